@@ -18,6 +18,13 @@ public class DubboRaftRpcFactory {
         return new RpcServer(endpoint, REMOTE_OPTIONS);
     }
 
+    /**
+     * shared by the server and the clients, change the transport here before anything is created.
+     */
+    public static RpcRemoteOptions getRpcRemoteOptions() {
+        return REMOTE_OPTIONS;
+    }
+
     public static RpcClient createRaftRpcClient() {
         RpcClient rpcClient = new RpcClient(REMOTE_OPTIONS);
         return rpcClient;
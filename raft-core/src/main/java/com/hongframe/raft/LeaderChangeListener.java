@@ -0,0 +1,16 @@
+package com.hongframe.raft;
+
+import com.hongframe.raft.entity.PeerId;
+
+/**
+ * Notified when a leader of a group becomes known, on the server through {@link NodeManager}
+ * and on the client through {@link RouteTable}.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 10:10
+ */
+public interface LeaderChangeListener {
+
+    void onLeaderChange(final String groupId, final PeerId leader, final long term);
+
+}
@@ -16,6 +16,8 @@ public interface Node extends Lifecycle<NodeOptions> {
 
     PeerId getLeaderId();
 
+    long getCurrentTerm();
+
     void apply(final Task task);
 
     void readIndex(final byte[] requestContext, final ReadIndexCallback callback);
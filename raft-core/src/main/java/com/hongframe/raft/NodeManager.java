@@ -5,12 +5,17 @@ import com.hongframe.raft.entity.PeerId;
 import com.hongframe.raft.util.Endpoint;
 import com.hongframe.raft.util.Utils;
 import org.apache.dubbo.common.utils.ConcurrentHashSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
@@ -18,12 +23,31 @@ import java.util.concurrent.ConcurrentMap;
  */
 public class NodeManager {
 
+    private static final Logger LOG = LoggerFactory.getLogger(NodeManager.class);
+
     private static final NodeManager INSTANCE = new NodeManager();
 
+    private static final int MAX_CACHED_PEERS = 4096;
+
     private final ConcurrentMap<NodeId, Node> nodeMap = new ConcurrentHashMap<>();
     private final ConcurrentMap<String, List<Node>> groupMap = new ConcurrentHashMap<>();
     private final ConcurrentHashSet<Endpoint> addrSet = new ConcurrentHashSet<>();
 
+    /**
+     * numeric handles of the local nodes: a random epoch of this process in the high 32 bits, the
+     * index in {@link #handleTable} in the low 32 bits. A handle issued before a restart never
+     * resolves to another node.
+     */
+    private final long epoch = (long) (ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE - 1) + 1) << 32;
+    private final ConcurrentMap<NodeId, Long> handles = new ConcurrentHashMap<>();
+    private volatile Node[] handleTable = new Node[1];
+    /**
+     * nodes by group id and peer string, so the rpc path neither parses the peer nor builds a NodeId.
+     */
+    private final ConcurrentMap<String, ConcurrentMap<String, Node>> nodesByString = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, PeerId> peerCache = new ConcurrentHashMap<>();
+    private final List<LeaderChangeListener> leaderChangeListeners = new CopyOnWriteArrayList<>();
+
     public static NodeManager getInstance() {
         return INSTANCE;
     }
@@ -39,12 +63,15 @@ public class NodeManager {
         this.addrSet.add(addr);
     }
 
-    public boolean add(Node node) {
+    public synchronized boolean add(Node node) {
         NodeId nodeId = node.getNodeId();
         if(!nodeExists(nodeId.getPeerId().getEndpoint())) {
             return false;
         }
         if(this.nodeMap.putIfAbsent(nodeId, node) == null) {
+            registerHandle(nodeId, node);
+            this.nodesByString.computeIfAbsent(nodeId.getGroupId(), k -> new ConcurrentHashMap<>())
+                    .put(nodeId.getPeerId().toString(), node);
             String gourp = nodeId.getGroupId();
             List<Node> nodes = groupMap.get(gourp);
             if(nodes == null) {
@@ -60,6 +87,40 @@ public class NodeManager {
         return false;
     }
 
+    /**
+     * forgets a node that shut down: its handle slot is cleared and never issued again, so a request
+     * still carrying the handle finds no node.
+     */
+    public synchronized boolean unregister(Node node) {
+        final NodeId nodeId = node.getNodeId();
+        if (!this.nodeMap.remove(nodeId, node)) {
+            return false;
+        }
+        final Long handle = this.handles.remove(nodeId);
+        if (handle != null) {
+            final Node[] table = Arrays.copyOf(this.handleTable, this.handleTable.length);
+            table[(int) handle.longValue()] = null;
+            this.handleTable = table;
+        }
+        final String peerId = nodeId.getPeerId().toString();
+        final ConcurrentMap<String, Node> nodes = this.nodesByString.get(nodeId.getGroupId());
+        if (nodes != null) {
+            nodes.remove(peerId, node);
+            if (nodes.isEmpty()) {
+                this.nodesByString.remove(nodeId.getGroupId());
+            }
+        }
+        this.peerCache.remove(peerId);
+        final List<Node> groupNodes = this.groupMap.get(nodeId.getGroupId());
+        if (groupNodes != null) {
+            groupNodes.remove(node);
+            if (groupNodes.isEmpty()) {
+                this.groupMap.remove(nodeId.getGroupId());
+            }
+        }
+        return true;
+    }
+
     public List<Node> getNodesByGroupId(final String groupId) {
         return this.groupMap.get(groupId);
     }
@@ -68,4 +129,91 @@ public class NodeManager {
         return this.nodeMap.get(new NodeId(groupId, peerId));
     }
 
+    public Node get(final String groupId, final String peerId) {
+        if (groupId == null || peerId == null) {
+            return null;
+        }
+        final ConcurrentMap<String, Node> nodes = this.nodesByString.get(groupId);
+        return nodes == null ? null : nodes.get(peerId);
+    }
+
+    private synchronized void registerHandle(NodeId nodeId, Node node) {
+        Node[] table = this.handleTable;
+        // index 0 is never issued, 0 means "no handle" on the wire
+        int index = table.length;
+        table = Arrays.copyOf(table, index + 1);
+        table[index] = node;
+        this.handleTable = table;
+        this.handles.put(nodeId, this.epoch | index);
+    }
+
+    /**
+     * @return the handle of the local node, 0 if it is not registered
+     */
+    public long getHandle(final NodeId nodeId) {
+        final Long handle = this.handles.get(nodeId);
+        return handle == null ? 0 : handle;
+    }
+
+    /**
+     * @return the local node of the handle, null if the handle is unknown or was issued by another process
+     */
+    public Node getByHandle(final long handle) {
+        if ((handle & 0xFFFFFFFF00000000L) != this.epoch) {
+            return null;
+        }
+        final int index = (int) handle;
+        final Node[] table = this.handleTable;
+        return index > 0 && index < table.length ? table[index] : null;
+    }
+
+    /**
+     * parsed and shared peer, callers must not {@link PeerId#parse(String)} into it.
+     *
+     * @return null if the string is not a valid peer
+     */
+    public PeerId getPeerId(final String peerId) {
+        if (peerId == null) {
+            return null;
+        }
+        PeerId peer = this.peerCache.get(peerId);
+        if (peer != null) {
+            return peer;
+        }
+        peer = new PeerId();
+        if (!peer.parse(peerId)) {
+            return null;
+        }
+        if (this.peerCache.size() < MAX_CACHED_PEERS) {
+            this.peerCache.putIfAbsent(peerId, peer);
+        }
+        return peer;
+    }
+
+    public void addLeaderChangeListener(final LeaderChangeListener listener) {
+        this.leaderChangeListeners.add(listener);
+    }
+
+    public void removeLeaderChangeListener(final LeaderChangeListener listener) {
+        this.leaderChangeListeners.remove(listener);
+    }
+
+    /**
+     * called by the local nodes, possibly under their lock, so listeners run on another thread.
+     */
+    public void notifyLeaderChange(final String groupId, final PeerId leader, final long term) {
+        if (this.leaderChangeListeners.isEmpty() || leader == null || leader.isEmpty()) {
+            return;
+        }
+        Utils.runInThread(() -> {
+            for (LeaderChangeListener listener : this.leaderChangeListeners) {
+                try {
+                    listener.onLeaderChange(groupId, leader, term);
+                } catch (Throwable t) {
+                    LOG.error("leader change listener {} fail", listener, t);
+                }
+            }
+        });
+    }
+
 }
@@ -1,7 +1,9 @@
 package com.hongframe.raft;
 
 import com.hongframe.raft.callback.ResponseCallback;
+import com.hongframe.raft.core.ReplicationScheduler;
 import com.hongframe.raft.core.Replicator;
+import com.hongframe.raft.core.ReplicatorType;
 import com.hongframe.raft.entity.NodeId;
 import com.hongframe.raft.entity.PeerId;
 import com.hongframe.raft.option.ReplicatorGroupOptions;
@@ -13,6 +15,11 @@ public interface ReplicatorGroup {
 
     boolean addReplicator(final PeerId peer);
 
+    /**
+     * a {@link ReplicatorType#Learner} gets the log but its acks never count for the commit.
+     */
+    boolean addReplicator(final PeerId peer, final ReplicatorType replicatorType);
+
     void sendHeartbeat(final PeerId peer, final ResponseCallback callback);
 
     boolean resetTerm(final long newTerm);
@@ -27,4 +34,26 @@ public interface ReplicatorGroup {
 
     boolean contains(final PeerId peer);
 
+    /**
+     * bandwidth sharing and per peer throughput of the followers.
+     */
+    ReplicationScheduler getReplicationScheduler();
+
+    /**
+     * @return the lowest index a replicator still needs, its match index plus one, not below floor,
+     * Long.MAX_VALUE if none
+     */
+    long getLowestNeededIndex(final long floor);
+
+    /**
+     * @return the lowest match index of the voting followers, Long.MAX_VALUE if none
+     */
+    long getLowestMatchIndex();
+
+    /**
+     * @return true if peer is a voting follower and the leader with the other voting followers close
+     * to lastLogIndex do not make a quorum, so the commit waits for peer
+     */
+    boolean isNeededForQuorum(final PeerId peer, final long lastLogIndex);
+
 }
@@ -1,15 +1,30 @@
 package com.hongframe.raft;
 
 import com.hongframe.raft.conf.Configuration;
-import com.hongframe.raft.entity.Message;
 import com.hongframe.raft.entity.PeerId;
 import com.hongframe.raft.rpc.ClientRequests.*;
 import com.hongframe.raft.rpc.ClientService;
+import com.hongframe.raft.rpc.RpcRequests.*;
+import com.hongframe.raft.util.NamedThreadFactory;
+import com.hongframe.raft.util.Utils;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.StampedLock;
 
 public class RouteTable {
@@ -17,6 +32,23 @@ public class RouteTable {
     private static final Logger LOG = LoggerFactory.getLogger(RouteTable.class);
 
     private static final RouteTable INSTANCE = new RouteTable();
+
+    /**
+     * connecting to a dead peer may block, so peers are asked from a pool instead of the caller. The
+     * pool is bounded, a query it rejects counts as a peer without answer.
+     */
+    private static final int REFRESH_THREADS = Math.max(4, Utils.CPUS * 2);
+    private static final int REFRESH_QUEUE_CAPACITY = 1024;
+    private static final ThreadPoolExecutor REFRESH_EXECUTOR = new ThreadPoolExecutor(REFRESH_THREADS, REFRESH_THREADS,
+            60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(REFRESH_QUEUE_CAPACITY), new NamedThreadFactory("Raft-Route-Refresh", true));
+
+    static {
+        REFRESH_EXECUTOR.allowCoreThreadTimeOut(true);
+    }
+
+    private static final ScheduledExecutorService REFRESH_TIMER = Executors.newSingleThreadScheduledExecutor(
+            new NamedThreadFactory("Raft-Route-Refresh-Timer", true));
+    private static final int WATCH_RETRY_MS = 100;
     private final ConcurrentMap<String, GroupConf> groupConfTable = new ConcurrentHashMap<>();
     public static RouteTable getInstance() {
         return INSTANCE;
@@ -72,14 +104,140 @@ public class RouteTable {
         final GroupConf gc = getGroupConf(groupId);
         final StampedLock stampedLock = gc.stampedLock;
         final long stamp = stampedLock.writeLock();
+        final boolean changed;
         try {
+            changed = !leader.equals(gc.leader);
             gc.leader = leader;
+            gc.version++;
         } finally {
             stampedLock.unlockWrite(stamp);
         }
+        if (changed) {
+            notifyLeaderChange(gc, groupId, leader, -1);
+        }
         return true;
     }
 
+    /**
+     * ignored when the cached leader has a newer term.
+     */
+    public boolean updateLeader(final String groupId, final PeerId leader, final long term) {
+        final GroupConf gc = getGroupConf(groupId);
+        final StampedLock stampedLock = gc.stampedLock;
+        final long stamp = stampedLock.writeLock();
+        final boolean changed;
+        try {
+            if (term < gc.leaderTerm) {
+                return false;
+            }
+            changed = term != gc.leaderTerm || !leader.equals(gc.leader);
+            gc.leader = leader;
+            gc.leaderTerm = term;
+            gc.version++;
+        } finally {
+            stampedLock.unlockWrite(stamp);
+        }
+        if (changed) {
+            notifyLeaderChange(gc, groupId, leader, term);
+        }
+        return true;
+    }
+
+    /**
+     * Applies the redirect hint of a {@link Status#NOT_LEADER} error, so the client retries on the
+     * leader without asking for it first.
+     *
+     * @return true if the error carried a leader and the route table took it
+     */
+    public boolean applyLeaderHint(final String groupId, final ErrorResponse error) {
+        if (error == null || StringUtils.isBlank(error.getLeaderId())) {
+            return false;
+        }
+        final PeerId leader = new PeerId();
+        if (!leader.parse(error.getLeaderId())) {
+            return false;
+        }
+        return updateLeader(groupId, leader, error.getTerm());
+    }
+
+    /**
+     * Subscribes to the leader changes of the group: while a subscriber is registered, one leader
+     * watch per group is kept open on a peer of the group, so the route table is updated as soon
+     * as that peer learns a new leader. {@code listener} is also told about the leaders learned
+     * by refresh or by redirect hints.
+     */
+    public void subscribe(final ClientService clientService, final String groupId, final LeaderChangeListener listener) {
+        final GroupConf gc = getGroupConf(groupId);
+        if (listener != null) {
+            gc.listeners.add(listener);
+        }
+        synchronized (gc) {
+            if (gc.watcher == null) {
+                gc.watcher = new LeaderWatcher(clientService, groupId);
+                gc.watcher.watch();
+            }
+        }
+    }
+
+    /**
+     * the leader watch of the group stops with its last subscriber.
+     */
+    public void unsubscribe(final String groupId, final LeaderChangeListener listener) {
+        final GroupConf gc = this.groupConfTable.get(groupId);
+        if (gc == null) {
+            return;
+        }
+        gc.listeners.remove(listener);
+        synchronized (gc) {
+            if (gc.listeners.isEmpty() && gc.watcher != null) {
+                gc.watcher.stopped = true;
+                gc.watcher = null;
+            }
+        }
+    }
+
+    private static void notifyLeaderChange(final GroupConf gc, final String groupId, final PeerId leader, final long term) {
+        for (LeaderChangeListener listener : gc.listeners) {
+            try {
+                listener.onLeaderChange(groupId, leader, term);
+            } catch (Throwable t) {
+                LOG.error("leader change listener {} of group {} fail", listener, groupId, t);
+            }
+        }
+    }
+
+    /**
+     * term of the cached leader, -1 if unknown.
+     */
+    public long getLeaderTerm(final String groupId) {
+        final GroupConf gc = this.groupConfTable.get(groupId);
+        if (gc == null) {
+            return -1;
+        }
+        final long stamp = gc.stampedLock.readLock();
+        try {
+            return gc.leaderTerm;
+        } finally {
+            gc.stampedLock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * bumped on every change of the cached leader.
+     */
+    public long getVersion(final String groupId) {
+        final GroupConf gc = this.groupConfTable.get(groupId);
+        if (gc == null) {
+            return 0;
+        }
+        final long stamp = gc.stampedLock.readLock();
+        try {
+            return gc.version;
+        } finally {
+            gc.stampedLock.unlockRead(stamp);
+        }
+    }
+
     public PeerId selectLeader(final String groupId) {
         final GroupConf gc = this.groupConfTable.get(groupId);
         if (gc == null) {
@@ -119,35 +277,219 @@ public class RouteTable {
     }
 
     public Status refreshLeader(final ClientService clientService, final String groupId) {
+        try {
+            return refreshLeaderAsync(clientService, groupId).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Status(10001, String.format("refresh leader of group %s interrupted", groupId));
+        } catch (ExecutionException e) {
+            return new Status(10001, String.format("refresh leader of group %s fail: %s", groupId, e.getCause()));
+        }
+    }
+
+    /**
+     * Asks every peer of the group in parallel, completes on the first peer that declares itself
+     * leader, otherwise with the answer of the highest term once all peers answered or
+     * {@link com.hongframe.raft.option.RpcRemoteOptions#getRpcTimeoutMs()} elapsed. Concurrent
+     * callers share the refresh in progress.
+     */
+    public CompletableFuture<Status> refreshLeaderAsync(final ClientService clientService, final String groupId) {
         final Configuration conf = getConf(groupId);
-        if(conf == null) {
-            return new Status(10001, "");
+        if (conf == null || conf.isEmpty()) {
+            return CompletableFuture.completedFuture(new Status(10001, String.format("no configuration of group %s", groupId)));
+        }
+        final GroupConf gc = getGroupConf(groupId);
+        final CompletableFuture<Status> future;
+        synchronized (gc) {
+            if (gc.refreshing != null) {
+                return gc.refreshing;
+            }
+            future = new CompletableFuture<>();
+            gc.refreshing = future;
+        }
+        future.whenComplete((status, e) -> {
+            synchronized (gc) {
+                if (gc.refreshing == future) {
+                    gc.refreshing = null;
+                }
+            }
+        });
+        new LeaderQuery(clientService, groupId, conf.getPeers(), future).start();
+        return future;
+    }
+
+    private class LeaderQuery {
+        private final ClientService clientService;
+        private final String groupId;
+        private final List<PeerId> peers;
+        private final CompletableFuture<Status> future;
+        private final AtomicInteger remaining;
+        private final AtomicBoolean done = new AtomicBoolean(false);
+        private PeerId bestLeader;
+        private long bestTerm = -1;
+
+        private LeaderQuery(ClientService clientService, String groupId, List<PeerId> peers, CompletableFuture<Status> future) {
+            this.clientService = clientService;
+            this.groupId = groupId;
+            this.peers = peers;
+            this.future = future;
+            this.remaining = new AtomicInteger(peers.size());
+        }
+
+        private void start() {
+            final GetLeaderRequest request = new GetLeaderRequest();
+            request.setGroupId(this.groupId);
+            REFRESH_TIMER.schedule(this::finish, this.clientService.getRpcRemoteOptions().getRpcTimeoutMs(), TimeUnit.MILLISECONDS);
+            for (PeerId peer : this.peers) {
+                try {
+                    REFRESH_EXECUTOR.execute(() -> {
+                        try {
+                            this.clientService.getLeaderAsync(peer, request).whenComplete((response, e) -> onAnswer(peer, e == null ? response : null));
+                        } catch (Throwable t) {
+                            LOG.warn("ask leader of group {} to {} fail", this.groupId, peer, t);
+                            onAnswer(peer, null);
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    LOG.warn("ask leader of group {} to {} rejected, refresh pool is full", this.groupId, peer);
+                    onAnswer(peer, null);
+                }
+            }
         }
 
-        GetLeaderRequest request = new GetLeaderRequest();
-        request.setGroupId(groupId);
+        private void onAnswer(PeerId peer, GetLeaderResponse response) {
+            boolean authoritative = false;
+            if (response != null && StringUtils.isNotBlank(response.getLeaderId())) {
+                final PeerId leader = new PeerId();
+                if (leader.parse(response.getLeaderId())) {
+                    synchronized (this) {
+                        if (this.bestLeader == null || response.getTerm() > this.bestTerm) {
+                            this.bestLeader = leader;
+                            this.bestTerm = response.getTerm();
+                        }
+                    }
+                    authoritative = leader.equals(peer);
+                }
+            }
+            if (authoritative || this.remaining.decrementAndGet() == 0) {
+                finish();
+            }
+        }
+
+        private void finish() {
+            if (!this.done.compareAndSet(false, true)) {
+                return;
+            }
+            final PeerId leader;
+            final long term;
+            synchronized (this) {
+                leader = this.bestLeader;
+                term = this.bestTerm;
+            }
+            if (leader == null) {
+                this.future.complete(new Status(10001, String.format("no leader of group %s found", this.groupId)));
+                return;
+            }
+            updateLeader(this.groupId, leader, term);
+            this.future.complete(Status.OK());
+        }
+    }
+
+    /**
+     * Long polls a follower rather than the leader: when the leader dies the follower survives it
+     * and answers as soon as the new leader reaches it. On failure the next peer is watched.
+     */
+    private class LeaderWatcher {
+        private final ClientService clientService;
+        private final String groupId;
+        private volatile boolean stopped;
+        private int failures;
+
+        private LeaderWatcher(ClientService clientService, String groupId) {
+            this.clientService = clientService;
+            this.groupId = groupId;
+        }
+
+        private void watch() {
+            if (this.stopped) {
+                return;
+            }
+            final PeerId peer = selectPeer();
+            if (peer == null) {
+                retry();
+                return;
+            }
+            final WatchLeaderRequest request = new WatchLeaderRequest();
+            request.setGroupId(this.groupId);
+            request.setKnownTerm(getLeaderTerm(this.groupId));
+            request.setTimeoutMs(this.clientService.getRpcRemoteOptions().getLeaderWatchTimeoutMs());
+            try {
+                REFRESH_EXECUTOR.execute(() -> {
+                    try {
+                        this.clientService.watchLeaderAsync(peer, request).whenComplete((response, e) -> onAnswer(peer, e == null ? response : null));
+                    } catch (Throwable t) {
+                        LOG.warn("watch leader of group {} on {} fail", this.groupId, peer, t);
+                        onAnswer(peer, null);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                LOG.warn("watch leader of group {} on {} rejected, refresh pool is full", this.groupId, peer);
+                onAnswer(peer, null);
+            }
+        }
+
+        private void onAnswer(PeerId peer, GetLeaderResponse response) {
+            final PeerId leader = new PeerId();
+            // a peer answering a leader older than the cached one is behind, the next peer is watched
+            if (response != null && StringUtils.isNotBlank(response.getLeaderId()) && leader.parse(response.getLeaderId())
+                    && updateLeader(this.groupId, leader, response.getTerm())) {
+                this.failures = 0;
+                watch();
+                return;
+            }
+            LOG.debug("watch leader of group {} on {} got no leader or a stale one", this.groupId, peer);
+            this.failures++;
+            retry();
+        }
+
+        private void retry() {
+            if (!this.stopped) {
+                REFRESH_TIMER.schedule(this::watch, WATCH_RETRY_MS, TimeUnit.MILLISECONDS);
+            }
+        }
 
-        for(PeerId peerId : conf.getPeers()) {
-            if(!clientService.connect(peerId)) {
-                return new Status(10001, "");
+        private PeerId selectPeer() {
+            final Configuration conf = getConf(this.groupId);
+            if (conf == null || conf.isEmpty()) {
+                return null;
             }
-            Message message = clientService.getLeader(peerId, request);
-            if(message instanceof GetLeaderResponse) {
-                GetLeaderResponse response = (GetLeaderResponse) message;
-                String leaderStr = response.getLeaderId();
-                updateLeader(groupId, leaderStr);
-                return Status.OK();
-            } else {
-                return new Status(10001, "");
+            final List<PeerId> peers = conf.getPeers();
+            final PeerId leader = selectLeader(this.groupId);
+            for (int i = 0; i < peers.size(); i++) {
+                final PeerId peer = peers.get((this.failures + i) % peers.size());
+                if (peers.size() == 1 || !peer.equals(leader)) {
+                    return peer;
+                }
             }
+            return peers.get(0);
         }
-        return new Status(10001, "");
     }
 
     private static class GroupConf {
         private final StampedLock stampedLock = new StampedLock();
         private Configuration conf;
         private PeerId leader;
+        private long leaderTerm = -1;
+        private long version;
+        /**
+         * refresh in progress, guarded by the GroupConf monitor.
+         */
+        private CompletableFuture<Status> refreshing;
+        private final List<LeaderChangeListener> listeners = new CopyOnWriteArrayList<>();
+        /**
+         * leader watch of the subscribers, guarded by the GroupConf monitor.
+         */
+        private LeaderWatcher watcher;
     }
 
 }
@@ -1,11 +1,18 @@
 package com.hongframe.raft;
 
+import com.hongframe.raft.entity.PeerId;
+
 /**
  * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
  * create time: 2020-04-17 17:27
  */
 public class Status {
 
+    /**
+     * the request reached a node that is not the leader, see {@link #getLeaderHint()}.
+     */
+    public static final int NOT_LEADER = 10002;
+
     private static class State {
         int    code;
         String msg;
@@ -25,6 +32,11 @@ public class Status {
     }
 
     private State state;
+    /**
+     * leader known by the failing node and its term, only set on {@link #NOT_LEADER}.
+     */
+    private PeerId leaderHint;
+    private long leaderTerm = -1;
 
     public Status() {
         this.state = null;
@@ -40,6 +52,28 @@ public class Status {
         } else {
             this.state = null;
         }
+        this.leaderHint = s.leaderHint;
+        this.leaderTerm = s.leaderTerm;
+    }
+
+    /**
+     * @param leader leader known by this node, null or empty if none
+     */
+    public static Status notLeader(PeerId leader, long term) {
+        final Status status = new Status(NOT_LEADER, "Is not leader.");
+        if (leader != null && !leader.isEmpty()) {
+            status.leaderHint = leader;
+            status.leaderTerm = term;
+        }
+        return status;
+    }
+
+    public PeerId getLeaderHint() {
+        return this.leaderHint;
+    }
+
+    public long getLeaderTerm() {
+        return this.leaderTerm;
     }
 
     public int getCode() {
@@ -65,6 +99,7 @@ public class Status {
     public String toString() {
         return "Status{" +
                 "state=" + state +
+                (leaderHint == null ? "" : ", leaderHint=" + leaderHint + ", leaderTerm=" + leaderTerm) +
                 '}';
     }
 }
@@ -3,6 +3,7 @@ package com.hongframe.raft.callback;
 import com.hongframe.raft.Status;
 import com.hongframe.raft.callback.ResponseCallback;
 import com.hongframe.raft.entity.Message;
+import com.hongframe.raft.entity.PeerId;
 import com.hongframe.raft.rpc.RpcRequests;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -33,13 +34,25 @@ public abstract class ResponseCallbackAdapter implements ResponseCallback {
         if(Objects.nonNull(message)) {
             setResponse(message);
             if(message instanceof RpcRequests.ErrorResponse) {
-                RpcRequests.ErrorResponse error = (RpcRequests.ErrorResponse) message;
-                run(new Status(error.getErrorCode(), error.getErrorMsg()));
+                run(toStatus((RpcRequests.ErrorResponse) message));
             } else {
                 run(Status.OK());
             }
         } else {
-            run(new Status(response.getError().getErrorCode(), response.getError().getErrorMsg()));
+            run(toStatus(response.getError()));
         }
     }
+
+    /**
+     * keeps the leader hint of a not leader error.
+     */
+    private static Status toStatus(RpcRequests.ErrorResponse error) {
+        if (error.getErrorCode() != null && error.getErrorCode() == Status.NOT_LEADER && error.getLeaderId() != null) {
+            final PeerId leader = new PeerId();
+            if (leader.parse(error.getLeaderId())) {
+                return Status.notLeader(leader, error.getTerm());
+            }
+        }
+        return new Status(error.getErrorCode(), error.getErrorMsg());
+    }
 }
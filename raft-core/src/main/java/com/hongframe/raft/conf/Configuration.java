@@ -14,7 +14,16 @@ import java.util.List;
  */
 public class Configuration implements Iterable<PeerId>, Copiable<Configuration> {
 
+    /**
+     * suffix of a learner in the string form, e.g. {@code 127.0.0.1:8081:0/learner}.
+     */
+    public static final String LEARNER_POSTFIX = "/learner";
+
     private List<PeerId> peers = new ArrayList<>();
+    /**
+     * non voting replicas, they receive the log but are never part of a quorum.
+     */
+    private List<PeerId> learners = new ArrayList<>();
 
     public Configuration() {
     }
@@ -23,6 +32,11 @@ public class Configuration implements Iterable<PeerId>, Copiable<Configuration>
         this.peers = peers;
     }
 
+    public Configuration(List<PeerId> peers, List<PeerId> learners) {
+        this.peers = peers;
+        this.learners = learners;
+    }
+
     public boolean addPeer(final PeerId peer) {
         return this.peers.add(peer);
     }
@@ -31,8 +45,21 @@ public class Configuration implements Iterable<PeerId>, Copiable<Configuration>
         return this.peers;
     }
 
+    public boolean addLearner(final PeerId learner) {
+        return this.learners.add(learner);
+    }
+
+    public List<PeerId> getLearners() {
+        return this.learners;
+    }
+
+    public boolean containsLearner(final PeerId learner) {
+        return this.learners.contains(learner);
+    }
+
     public void reset() {
         this.peers.clear();
+        this.learners.clear();
     }
 
     public boolean contains(final PeerId peer) {
@@ -41,7 +68,7 @@ public class Configuration implements Iterable<PeerId>, Copiable<Configuration>
 
     @Override
     public Configuration copy() {
-        return new Configuration(this.peers);
+        return new Configuration(new ArrayList<>(this.peers), new ArrayList<>(this.learners));
     }
 
     @Override
@@ -61,7 +88,11 @@ public class Configuration implements Iterable<PeerId>, Copiable<Configuration>
         final String[] peerStrs = StringUtils.split(conf, ',');
         for(String peerStr : peerStrs) {
             final PeerId peer = new PeerId();
-            if (peer.parse(peerStr)) {
+            if (peerStr.endsWith(LEARNER_POSTFIX)) {
+                if (peer.parse(peerStr.substring(0, peerStr.length() - LEARNER_POSTFIX.length()))) {
+                    addLearner(peer);
+                }
+            } else if (peer.parse(peerStr)) {
                 addPeer(peer);
             } else {
 
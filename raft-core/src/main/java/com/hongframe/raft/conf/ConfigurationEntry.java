@@ -26,6 +26,10 @@ public class ConfigurationEntry {
         return conf.contains(peerId);
     }
 
+    public boolean containsLearner(PeerId peerId) {
+        return conf.containsLearner(peerId);
+    }
+
     public LogId getId() {
         return id;
     }
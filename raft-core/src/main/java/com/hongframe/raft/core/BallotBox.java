@@ -12,9 +12,12 @@ import com.hongframe.raft.util.SegmentList;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
 
 /**
  * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
@@ -32,6 +35,10 @@ public class BallotBox implements Lifecycle<BallotBoxOptions> {
     private volatile long lastCommittedIndex = 0;
     private long pendingIndex = 0; // 小于这个index，都是已经提交了
     private final SegmentList<Ballot> pendingMetaQueue = new SegmentList<>();
+    /**
+     * told the new commit index each time the leader commits, outside of the lock.
+     */
+    private final List<LongConsumer> commitListeners = new CopyOnWriteArrayList<>();
 
 
     @Override
@@ -50,6 +57,14 @@ public class BallotBox implements Lifecycle<BallotBoxOptions> {
         }
     }
 
+    public void addCommitListener(final LongConsumer listener) {
+        this.commitListeners.add(listener);
+    }
+
+    public void removeCommitListener(final LongConsumer listener) {
+        this.commitListeners.remove(listener);
+    }
+
     public void clearPendingTasks() {
         this.writeLock.lock();
         try {
@@ -112,6 +127,9 @@ public class BallotBox implements Lifecycle<BallotBoxOptions> {
             this.writeLock.unlock();
         }
         this.caller.onCommitted(lastCommittedIndex);
+        for (LongConsumer listener : this.commitListeners) {
+            listener.accept(lastCommittedIndex);
+        }
         return true;
     }
 
@@ -0,0 +1,122 @@
+package com.hongframe.raft.core;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Distribution of the AppendEntries batches sent to one peer, in entries and in payload bytes.
+ * Bucket i counts the batches of size in [2^(i-1), 2^i), bucket 0 the empty ones.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 10:40
+ */
+public class BatchMetrics {
+
+    private static final int BUCKETS = 33;
+
+    private static final ConcurrentMap<String, BatchMetrics> METRICS = new ConcurrentHashMap<>();
+
+    private final AtomicLongArray entriesHistogram = new AtomicLongArray(BUCKETS);
+    private final AtomicLongArray bytesHistogram = new AtomicLongArray(BUCKETS);
+    private final AtomicLong batchCount = new AtomicLong();
+    private final AtomicLong entries = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong fullByCount = new AtomicLong();
+    private final AtomicLong fullByBytes = new AtomicLong();
+    private final AtomicLong lingered = new AtomicLong();
+
+    public static BatchMetrics get(String peerId) {
+        return METRICS.computeIfAbsent(peerId == null ? "unknown" : peerId, k -> new BatchMetrics());
+    }
+
+    public static Map<String, BatchMetrics> getAll() {
+        return new HashMap<>(METRICS);
+    }
+
+    void onBatch(int entryCount, long byteCount, boolean fullByCount, boolean fullByBytes, boolean lingered) {
+        this.batchCount.incrementAndGet();
+        this.entries.addAndGet(entryCount);
+        this.bytes.addAndGet(byteCount);
+        this.entriesHistogram.incrementAndGet(bucket(entryCount));
+        this.bytesHistogram.incrementAndGet(bucket(byteCount));
+        if (fullByCount) {
+            this.fullByCount.incrementAndGet();
+        }
+        if (fullByBytes) {
+            this.fullByBytes.incrementAndGet();
+        }
+        if (lingered) {
+            this.lingered.incrementAndGet();
+        }
+    }
+
+    private static int bucket(long value) {
+        return value <= 0 ? 0 : Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(value));
+    }
+
+    public long[] getEntriesHistogram() {
+        return toArray(this.entriesHistogram);
+    }
+
+    public long[] getBytesHistogram() {
+        return toArray(this.bytesHistogram);
+    }
+
+    private static long[] toArray(AtomicLongArray histogram) {
+        final long[] counts = new long[histogram.length()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = histogram.get(i);
+        }
+        return counts;
+    }
+
+    public long getBatchCount() {
+        return batchCount.get();
+    }
+
+    public long getEntries() {
+        return entries.get();
+    }
+
+    public long getBytes() {
+        return bytes.get();
+    }
+
+    /**
+     * batches closed by maxEntriesSize.
+     */
+    public long getFullByCount() {
+        return fullByCount.get();
+    }
+
+    /**
+     * batches closed by maxByteCountPerRpc.
+     */
+    public long getFullByBytes() {
+        return fullByBytes.get();
+    }
+
+    /**
+     * batches sent after waiting appendEntriesLingerMs for more entries.
+     */
+    public long getLingered() {
+        return lingered.get();
+    }
+
+    @Override
+    public String toString() {
+        final long count = this.batchCount.get();
+        return "BatchMetrics{" +
+                "batchCount=" + count +
+                ", avgEntries=" + (count == 0 ? 0 : this.entries.get() / count) +
+                ", avgBytes=" + (count == 0 ? 0 : this.bytes.get() / count) +
+                ", fullByCount=" + fullByCount +
+                ", fullByBytes=" + fullByBytes +
+                ", lingered=" + lingered +
+                '}';
+    }
+}
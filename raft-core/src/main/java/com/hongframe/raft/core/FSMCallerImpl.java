@@ -40,6 +40,7 @@ public class FSMCallerImpl implements FSMCaller {
     private StateMachine stateMachine;
     private LogManager logManager;
     private NodeImpl node;
+    private boolean witness;
     private volatile TaskType currTask;
     private final AtomicLong applyingIndex;
     private long lastAppliedTerm;
@@ -100,6 +101,7 @@ public class FSMCallerImpl implements FSMCaller {
         this.stateMachine = opts.getFsm();
         this.logManager = opts.getLogManager();
         this.node = opts.getNode();
+        this.witness = this.node != null && this.node.getNodeOptions().isWitness();
         this.callbackQueue = opts.getCallbackQueue();
         notifyLastAppliedIndexUpdated(this.lastAppliedIndex.get());
 
@@ -171,6 +173,10 @@ public class FSMCallerImpl implements FSMCaller {
     private void doCommitted(final long committedIndex) {
         final List<Callback> callbacks = new ArrayList<>();
         long firstIndex = this.callbackQueue.popClosureUntil(committedIndex, callbacks);
+        if (this.witness) {
+            doWitnessCommitted(committedIndex, callbacks);
+            return;
+        }
         //TODO doCommitted
         final IteratorImpl iterator = new IteratorImpl(this.stateMachine, this.logManager, callbacks, firstIndex,
                 committedIndex, this.applyingIndex, this.lastAppliedIndex.get());
@@ -192,6 +198,45 @@ public class FSMCallerImpl implements FSMCaller {
         notifyLastAppliedIndexUpdated(lastIndex);
     }
 
+    /**
+     * a witness only moves its applied index, the entries are neither read nor applied, and drops the
+     * log older than witnessRetainedLogEntries but never the entries a voting follower may miss.
+     */
+    private void doWitnessCommitted(final long committedIndex, final List<Callback> callbacks) {
+        for (final Callback callback : callbacks) {
+            callback.run(new Status(10001, "witness does not apply the log"));
+        }
+        if (committedIndex <= this.lastAppliedIndex.get()) {
+            return;
+        }
+        final long lastTerm = this.logManager.getTerm(committedIndex);
+        this.applyingIndex.set(committedIndex);
+        this.lastAppliedIndex.set(committedIndex);
+        this.lastAppliedTerm = lastTerm;
+        this.logManager.setAppliedId(new LogId(lastTerm, committedIndex));
+        notifyLastAppliedIndexUpdated(committedIndex);
+
+        final long compactIndex = witnessCompactIndex(committedIndex, this.logManager.getFirstLogIndex(),
+                this.node.getNodeOptions().getWitnessRetainedLogEntries(), this.node.getPeersMatchIndex());
+        if (compactIndex > 0) {
+            this.logManager.compactPrefix(compactIndex);
+        }
+    }
+
+    /**
+     * first index a witness keeps, 0 to keep the whole log. The entry at peersMatchIndex stays so that a
+     * follower fetching the tail can check it against its log, an unknown peersMatchIndex (0) keeps all.
+     */
+    static long witnessCompactIndex(final long committedIndex, final long firstLogIndex, final int retainedEntries,
+                                    final long peersMatchIndex) {
+        final int retained = Math.max(1, retainedEntries);
+        if (committedIndex - firstLogIndex < 2L * retained) {
+            return 0L;
+        }
+        final long compactIndex = Math.min(committedIndex - retained + 1, peersMatchIndex);
+        return compactIndex > firstLogIndex ? compactIndex : 0L;
+    }
+
     private void doApplyTasks(final IteratorImpl iterator) {
         final IteratorWrapper iter = new IteratorWrapper(iterator);
         this.stateMachine.onApply(iter);
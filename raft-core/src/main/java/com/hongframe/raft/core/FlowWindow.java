@@ -0,0 +1,128 @@
+package com.hongframe.raft.core;
+
+/**
+ * AIMD window of the AppendEntries a replicator keeps in flight. Every ack of entries that comes back
+ * about as fast as the best recent round trip widens the window by one request per window, unless
+ * the window already covers twice what the follower acks per round trip. An ack delayed well beyond
+ * it or a lost response halves the window, at most once per round trip. Acks without entries only
+ * bring the credit, their round trip says nothing about the queue of the follower. The follower
+ * credit caps the window. Only updated by the mailbox of its replicator.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 18:10
+ */
+class FlowWindow {
+
+    /**
+     * an ack slower than minRtt * RTT_FACTOR + RTT_SLACK_MS means requests queue at the follower.
+     */
+    private static final int RTT_FACTOR = 2;
+    private static final int RTT_SLACK_MS = 5;
+    /**
+     * minRtt is measured again after this long, so a route that got slower is not seen as congested forever.
+     */
+    private static final long MIN_RTT_WINDOW_MS = 10_000;
+    /**
+     * the ack rate is measured over at least this long.
+     */
+    private static final long RATE_SAMPLE_MS = 100;
+    /**
+     * the window grows up to this many times the requests the follower acks per round trip.
+     */
+    private static final int RATE_HEADROOM = 2;
+
+    private final int maxWindow;
+    private volatile double window;
+    private long minRttMs = -1;
+    private long minRttTimestamp;
+    private long lastDecreaseMs;
+    private volatile int credit = -1;
+    private long rateSampleStartMs = -1;
+    private int rateSampleAcks;
+    /**
+     * acks of entries per ms over the last full sample, -1 until measured.
+     */
+    private volatile double ackRatePerMs = -1;
+
+    FlowWindow(int initialWindow, int maxWindow) {
+        this.maxWindow = Math.max(1, maxWindow);
+        this.window = Math.max(1, Math.min(initialWindow, this.maxWindow));
+    }
+
+    /**
+     * @param entries entries the acked request carried, 0 for a probe
+     */
+    void onAck(long rttMs, int entries, int credit, long nowMs) {
+        this.credit = credit;
+        if (entries <= 0) {
+            return;
+        }
+        sampleAckRate(nowMs);
+        if (this.minRttMs < 0 || rttMs < this.minRttMs || nowMs - this.minRttTimestamp > MIN_RTT_WINDOW_MS) {
+            this.minRttMs = rttMs;
+            this.minRttTimestamp = nowMs;
+        }
+        if (rttMs > this.minRttMs * RTT_FACTOR + RTT_SLACK_MS) {
+            onCongestion(nowMs);
+            return;
+        }
+        if (this.ackRatePerMs >= 0 && this.window >= this.ackRatePerMs * Math.max(1, this.minRttMs) * RATE_HEADROOM) {
+            // the follower does not drain faster than the window already allows
+            return;
+        }
+        this.window = Math.min(this.maxWindow, this.window + 1.0 / this.window);
+    }
+
+    private void sampleAckRate(long nowMs) {
+        if (this.rateSampleStartMs < 0) {
+            this.rateSampleStartMs = nowMs;
+            this.rateSampleAcks = 0;
+        }
+        this.rateSampleAcks++;
+        final long elapsed = nowMs - this.rateSampleStartMs;
+        if (elapsed >= Math.max(RATE_SAMPLE_MS, this.minRttMs)) {
+            this.ackRatePerMs = (double) this.rateSampleAcks / elapsed;
+            this.rateSampleStartMs = nowMs;
+            this.rateSampleAcks = 0;
+        }
+    }
+
+    void onCongestion(long nowMs) {
+        if (this.minRttMs >= 0 && nowMs - this.lastDecreaseMs < Math.max(1, this.minRttMs)) {
+            return;
+        }
+        this.window = Math.max(1, this.window / 2);
+        this.lastDecreaseMs = nowMs;
+    }
+
+    /**
+     * @return how many AppendEntries may be in flight, at least one
+     */
+    int limit() {
+        final int limit = (int) this.window;
+        return this.credit < 0 ? limit : Math.max(1, Math.min(limit, this.credit));
+    }
+
+    double getWindow() {
+        return window;
+    }
+
+    long getMinRttMs() {
+        return minRttMs;
+    }
+
+    double getAckRatePerMs() {
+        return ackRatePerMs;
+    }
+
+    @Override
+    public String toString() {
+        return "FlowWindow{" +
+                "window=" + window +
+                ", maxWindow=" + maxWindow +
+                ", minRttMs=" + minRttMs +
+                ", ackRatePerMs=" + ackRatePerMs +
+                ", credit=" + credit +
+                '}';
+    }
+}
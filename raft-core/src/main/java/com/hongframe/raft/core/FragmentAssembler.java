@@ -0,0 +1,83 @@
+package com.hongframe.raft.core;
+
+import com.hongframe.raft.Status;
+import com.hongframe.raft.entity.LogId;
+import com.hongframe.raft.rpc.RpcRequests.*;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reassembles on a follower the log entry the leader sent in fragments, see
+ * {@link com.hongframe.raft.option.RaftOptions#getMaxBodySize()}. Fragments arrive one at a time
+ * and in order, so a single entry is assembled at once; a fragment that does not continue it
+ * starts over or is refused, as is an entry larger than
+ * {@link com.hongframe.raft.option.RaftOptions#getMaxEntrySize()}. Not thread safe, used under the
+ * write lock of the node.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 18:00
+ */
+class FragmentAssembler {
+
+    private final int maxEntrySize;
+    private LogId id;
+    private ByteBuffer buffer;
+
+    FragmentAssembler(int maxEntrySize) {
+        this.maxEntrySize = maxEntrySize;
+    }
+
+    /**
+     * @return the whole entry once its last fragment arrived, null while it is partial or when
+     * {@code st} is set to an error because the fragment is out of order
+     */
+    OutLogEntry offer(final OutLogEntry fragment, final Status st) {
+        final int offset = fragment.getFragmentOffset();
+        final int totalSize = fragment.getTotalSize();
+        if (totalSize < 0 || totalSize > this.maxEntrySize) {
+            st.setError(10001, "Fragment %s of an entry of %d bytes, the limit is %d", fragment, totalSize, this.maxEntrySize);
+            reset();
+            return null;
+        }
+        if (offset < 0 || (long) offset + fragment.getDataSize() > totalSize) {
+            st.setError(10001, "Fragment %s does not fit its entry", fragment);
+            reset();
+            return null;
+        }
+        if (offset == 0) {
+            this.id = fragment.getId();
+            this.buffer = ByteBuffer.allocate(fragment.getTotalSize());
+        } else if (this.buffer == null || !fragment.getId().equals(this.id) || this.buffer.position() != offset
+                || this.buffer.capacity() != fragment.getTotalSize()) {
+            st.setError(10001, "Fragment %s does not continue %s at %d", fragment, this.id,
+                    this.buffer == null ? 0 : this.buffer.position());
+            reset();
+            return null;
+        }
+        if (fragment.getDataSize() > this.buffer.remaining()) {
+            st.setError(10001, "Fragment %s overflows its entry", fragment);
+            reset();
+            return null;
+        }
+        this.buffer.put(fragment.getData().duplicate());
+        if (this.buffer.hasRemaining()) {
+            return null;
+        }
+        final OutLogEntry entry = new OutLogEntry();
+        entry.setType(fragment.getType());
+        entry.setId(fragment.getId());
+        entry.setPeers(fragment.getPeers());
+        entry.setOldPeers(fragment.getOldPeers());
+        entry.setLearners(fragment.getLearners());
+        entry.setOldLearners(fragment.getOldLearners());
+        this.buffer.flip();
+        entry.setData(this.buffer.asReadOnlyBuffer());
+        reset();
+        return entry;
+    }
+
+    void reset() {
+        this.id = null;
+        this.buffer = null;
+    }
+}
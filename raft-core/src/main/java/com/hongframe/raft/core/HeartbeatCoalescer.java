@@ -0,0 +1,243 @@
+package com.hongframe.raft.core;
+
+import com.hongframe.raft.Status;
+import com.hongframe.raft.callback.Invokeable;
+import com.hongframe.raft.callback.ResponseCallback;
+import com.hongframe.raft.entity.PeerId;
+import com.hongframe.raft.rpc.RpcClient;
+import com.hongframe.raft.rpc.RpcRequests.*;
+import com.hongframe.raft.util.Endpoint;
+import com.hongframe.raft.util.NamedThreadFactory;
+import com.hongframe.raft.util.ObjectLock;
+import com.hongframe.raft.util.Utils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One heartbeat rpc per remote endpoint and tick for all the replicators of the process, instead of
+ * a timer and a rpc per replicator. Every group led locally adds its term, commit index and matched
+ * log to a {@link HeartbeatVectorRequest}, the receiver handles them one by one as heartbeat
+ * AppendEntries, so followers refresh their leader timestamp and commit index as before and every
+ * ack goes back to its replicator.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 17:30
+ */
+public final class HeartbeatCoalescer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(HeartbeatCoalescer.class);
+
+    private static final HeartbeatCoalescer INSTANCE = new HeartbeatCoalescer();
+
+    private final ConcurrentMap<Endpoint, ConcurrentMap<ObjectLock<Replicator>, Registration>> registrations = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Endpoint, Queue<Heartbeat>> urgentHeartbeats = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timer;
+    private ScheduledFuture<?> tickFuture;
+    private int tickMs = Integer.MAX_VALUE;
+
+    private static class Registration {
+        private final ObjectLock<Replicator> lock;
+        private final PeerId peerId;
+        private final RpcClient rpcClient;
+        private final int heartbeatTimeoutMs;
+
+        private Registration(ObjectLock<Replicator> lock, PeerId peerId, RpcClient rpcClient, int heartbeatTimeoutMs) {
+            this.lock = lock;
+            this.peerId = peerId;
+            this.rpcClient = rpcClient;
+            this.heartbeatTimeoutMs = heartbeatTimeoutMs;
+        }
+    }
+
+    private static class Heartbeat {
+        private final Registration registration;
+        private final ResponseCallback callback;
+        private GroupHeartbeat request;
+        private long sendTimeMs;
+
+        private Heartbeat(Registration registration, ResponseCallback callback) {
+            this.registration = registration;
+            this.callback = callback;
+        }
+    }
+
+    private HeartbeatCoalescer() {
+        this.timer = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("Raft-Heartbeat-Coalescer", true));
+    }
+
+    public static HeartbeatCoalescer getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * the tick is the smallest heartbeat timeout of the registered replicators.
+     */
+    public synchronized void register(ObjectLock<Replicator> lock, PeerId peerId, RpcClient rpcClient, int heartbeatTimeoutMs) {
+        this.registrations.computeIfAbsent(peerId.getEndpoint(), k -> new ConcurrentHashMap<>())
+                .put(lock, new Registration(lock, peerId, rpcClient, Math.max(1, heartbeatTimeoutMs)));
+        reschedule();
+    }
+
+    /**
+     * drops the endpoint once its last replicator is gone, the tick follows the remaining ones.
+     */
+    public synchronized void unregister(ObjectLock<Replicator> lock, PeerId peerId) {
+        final Map<ObjectLock<Replicator>, Registration> endpointRegistrations = this.registrations.get(peerId.getEndpoint());
+        if (endpointRegistrations == null || endpointRegistrations.remove(lock) == null) {
+            return;
+        }
+        if (endpointRegistrations.isEmpty()) {
+            this.registrations.remove(peerId.getEndpoint());
+        }
+        reschedule();
+    }
+
+    private void reschedule() {
+        int minTickMs = Integer.MAX_VALUE;
+        for (Map<ObjectLock<Replicator>, Registration> endpointRegistrations : this.registrations.values()) {
+            for (Registration registration : endpointRegistrations.values()) {
+                minTickMs = Math.min(minTickMs, registration.heartbeatTimeoutMs);
+            }
+        }
+        if (minTickMs == this.tickMs) {
+            return;
+        }
+        this.tickMs = minTickMs;
+        if (this.tickFuture != null) {
+            this.tickFuture.cancel(false);
+            this.tickFuture = null;
+        }
+        if (minTickMs != Integer.MAX_VALUE) {
+            this.tickFuture = this.timer.scheduleAtFixedRate(this::tick, minTickMs, minTickMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * heartbeat on behalf of a ReadIndex, sent without waiting for the next tick but together with
+     * the other urgent heartbeats to the same endpoint.
+     */
+    public boolean heartbeatNow(ObjectLock<Replicator> lock, PeerId peerId, ResponseCallback callback) {
+        final Map<ObjectLock<Replicator>, Registration> endpointRegistrations = this.registrations.get(peerId.getEndpoint());
+        final Registration registration = endpointRegistrations == null ? null : endpointRegistrations.get(lock);
+        if (registration == null) {
+            return false;
+        }
+        final Heartbeat heartbeat = new Heartbeat(registration, callback);
+        this.urgentHeartbeats.compute(peerId.getEndpoint(), (k, queue) -> {
+            final Queue<Heartbeat> q = queue == null ? new ConcurrentLinkedQueue<>() : queue;
+            q.add(heartbeat);
+            return q;
+        });
+        this.timer.execute(() -> flushUrgent(peerId.getEndpoint()));
+        return true;
+    }
+
+    /**
+     * takes the whole queue of the endpoint, a heartbeat added later goes to a new queue and a new flush.
+     */
+    private void flushUrgent(Endpoint endpoint) {
+        final Queue<Heartbeat> queue = this.urgentHeartbeats.remove(endpoint);
+        final List<Heartbeat> heartbeats = new ArrayList<>();
+        Heartbeat heartbeat;
+        while (queue != null && (heartbeat = queue.poll()) != null) {
+            heartbeats.add(heartbeat);
+        }
+        send(heartbeats);
+    }
+
+    private void tick() {
+        try {
+            for (Map<ObjectLock<Replicator>, Registration> endpointRegistrations : this.registrations.values()) {
+                final List<Heartbeat> heartbeats = new ArrayList<>(endpointRegistrations.size());
+                for (Registration registration : endpointRegistrations.values()) {
+                    heartbeats.add(new Heartbeat(registration, null));
+                }
+                send(heartbeats);
+            }
+        } catch (Throwable t) {
+            LOG.error("heartbeat tick fail", t);
+        }
+    }
+
+    private void send(List<Heartbeat> heartbeats) {
+        final List<Heartbeat> prepared = new ArrayList<>(heartbeats.size());
+        final List<GroupHeartbeat> requests = new ArrayList<>(heartbeats.size());
+        for (Heartbeat heartbeat : heartbeats) {
+            heartbeat.request = Replicator.prepareHeartbeat(heartbeat.registration.lock);
+            if (heartbeat.request == null) {
+                // destroyed
+                unregister(heartbeat.registration.lock, heartbeat.registration.peerId);
+                continue;
+            }
+            heartbeat.sendTimeMs = Utils.monotonicMs();
+            prepared.add(heartbeat);
+            requests.add(heartbeat.request);
+        }
+        if (prepared.isEmpty()) {
+            return;
+        }
+        final Registration first = prepared.get(0).registration;
+        final HeartbeatVectorRequest request = new HeartbeatVectorRequest();
+        request.setServerId(requests.get(0).getServerId());
+        for (GroupHeartbeat groupHeartbeat : requests) {
+            // only a leader differing from the one of the vector is sent
+            if (request.getServerId() != null && request.getServerId().equals(groupHeartbeat.getServerId())) {
+                groupHeartbeat.setServerId(null);
+            }
+        }
+        request.setHeartbeats(requests);
+        first.rpcClient.heartbeats(first.peerId, request, new Invokeable() {
+            @Override
+            public void invoke(Response response) {
+                if (response.getData() instanceof BatchAppendEntriesResponse) {
+                    final List<Response> responses = ((BatchAppendEntriesResponse) response.getData()).getResponses();
+                    for (int i = 0; i < prepared.size(); i++) {
+                        final Response r = i < responses.size() ? responses.get(i) : null;
+                        ack(prepared.get(i), r != null ? r : new Response(new ErrorResponse(10001, "missing heartbeat ack")));
+                    }
+                    return;
+                }
+                LOG.warn("heartbeat of {} groups to {} fail: {}", prepared.size(), first.peerId, response.getError());
+                for (Heartbeat heartbeat : prepared) {
+                    ack(heartbeat, response);
+                }
+            }
+
+            @Override
+            public void run(Status status) {
+            }
+        });
+    }
+
+    private static void ack(Heartbeat heartbeat, Response response) {
+        Status status = Status.OK();
+        AppendEntriesResponse appendEntriesResponse = null;
+        if (response.getData() instanceof AppendEntriesResponse) {
+            appendEntriesResponse = (AppendEntriesResponse) response.getData();
+        } else {
+            final ErrorResponse error = response.getData() instanceof ErrorResponse ? (ErrorResponse) response.getData() : response.getError();
+            status = error == null ? new Status(10001, "empty heartbeat ack") : new Status(error.getErrorCode(), error.getErrorMsg());
+        }
+        final ObjectLock<Replicator> lock = heartbeat.registration.lock;
+        if (heartbeat.callback != null) {
+            if (appendEntriesResponse != null && Boolean.TRUE.equals(appendEntriesResponse.getSuccess())) {
+                Replicator.updateLastRpcSendTimestamp(lock, heartbeat.sendTimeMs);
+            }
+            heartbeat.callback.invoke(response);
+            return;
+        }
+        Replicator.onCoalescedHeartbeatReturned(lock, status, appendEntriesResponse, heartbeat.sendTimeMs);
+    }
+}
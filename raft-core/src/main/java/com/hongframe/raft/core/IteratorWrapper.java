@@ -32,7 +32,7 @@ public class IteratorWrapper implements Iterator {
     @Override
     public ByteBuffer data() {
         final LogEntry entry = this.iterator.entry();
-        return entry != null ? entry.getData() : null;
+        return entry != null ? entry.getDataView() : null;
     }
 
     @Override
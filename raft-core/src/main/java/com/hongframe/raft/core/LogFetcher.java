@@ -0,0 +1,210 @@
+package com.hongframe.raft.core;
+
+import com.hongframe.raft.Status;
+import com.hongframe.raft.callback.ResponseCallbackAdapter;
+import com.hongframe.raft.entity.LogEntry;
+import com.hongframe.raft.entity.PeerId;
+import com.hongframe.raft.option.RaftOptions;
+import com.hongframe.raft.rpc.RpcClient;
+import com.hongframe.raft.rpc.RpcRequests.*;
+import com.hongframe.raft.storage.LogManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Catches a lagging follower up from another follower: the committed entries up to the commit index
+ * the leader announced are read from the log of a peer with fetchLog, one batch at a time, while the
+ * leader is told to send only the tail. A peer that can not serve is replaced by the next one, the
+ * fetch stops when none can or when the log of the peer does not match ours, the leader then repairs
+ * the log as before. A replica whose vote requests are refused fetches the tail of the log, committed
+ * or not, from the refusing peer, so it can still win once a witness holds entries it misses.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 16:30
+ */
+class LogFetcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LogFetcher.class);
+
+    private final String groupId;
+    private final PeerId serverId;
+    private final LogManager logManager;
+    private final BallotBox ballotBox;
+    private final RpcClient rpcClient;
+    private final RaftOptions raftOptions;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private volatile long targetIndex;
+    private volatile boolean tail;
+    /**
+     * guarded by this, the fetch callbacks run on the rpc threads.
+     */
+    private List<PeerId> sources;
+    private int sourceIndex;
+    private int failures;
+
+    LogFetcher(String groupId, PeerId serverId, LogManager logManager, BallotBox ballotBox, RpcClient rpcClient,
+               RaftOptions raftOptions) {
+        this.groupId = groupId;
+        this.serverId = serverId;
+        this.logManager = logManager;
+        this.ballotBox = ballotBox;
+        this.rpcClient = rpcClient;
+        this.raftOptions = raftOptions;
+    }
+
+    boolean isRunning() {
+        return this.running.get();
+    }
+
+    /**
+     * fetches up to targetIndex from the peers but the leader and this node, raises the target if
+     * already running.
+     */
+    void start(final long targetIndex, final PeerId leaderId, final List<PeerId> peers) {
+        final List<PeerId> sources = new ArrayList<>(peers.size());
+        for (PeerId peer : peers) {
+            if (!peer.equals(leaderId) && !peer.equals(this.serverId)) {
+                sources.add(peer);
+            }
+        }
+        if (sources.isEmpty()) {
+            return;
+        }
+        if (!this.running.compareAndSet(false, true)) {
+            if (targetIndex > this.targetIndex) {
+                this.targetIndex = targetIndex;
+            }
+            return;
+        }
+        this.tail = false;
+        this.targetIndex = targetIndex;
+        synchronized (this) {
+            this.sources = sources;
+            this.sourceIndex = ThreadLocalRandom.current().nextInt(sources.size());
+            this.failures = 0;
+        }
+        LOG.info("Node {} fetches log up to {} from {}", this.serverId, targetIndex, sources);
+        fetchNext();
+    }
+
+    /**
+     * fetches the whole log after ours from source, the entries it has not committed too, does nothing
+     * if already running.
+     */
+    void fetchTail(final PeerId source) {
+        if (source.equals(this.serverId) || !this.running.compareAndSet(false, true)) {
+            return;
+        }
+        this.tail = true;
+        this.targetIndex = Long.MAX_VALUE;
+        synchronized (this) {
+            this.sources = Collections.singletonList(source);
+            this.sourceIndex = 0;
+            this.failures = 0;
+        }
+        LOG.info("Node {} fetches the log tail from {}", this.serverId, source);
+        fetchNext();
+    }
+
+    void stop() {
+        this.running.set(false);
+    }
+
+    private void fetchNext() {
+        if (!this.running.get()) {
+            return;
+        }
+        final long fromIndex = this.logManager.getLastLogIndex() + 1;
+        if (fromIndex > this.targetIndex) {
+            LOG.info("Node {} fetched log up to {}, the leader sends the rest", this.serverId, fromIndex - 1);
+            stop();
+            return;
+        }
+        final PeerId source;
+        synchronized (this) {
+            source = this.sources.get(this.sourceIndex);
+        }
+        final FetchLogRequest request = new FetchLogRequest();
+        request.setGroupId(this.groupId);
+        request.setServerId(this.serverId.toString());
+        request.setPeerId(source.toString());
+        request.setFromIndex(fromIndex);
+        request.setMaxCount((int) Math.min(this.raftOptions.getMaxEntriesSize(), this.targetIndex - fromIndex + 1));
+        request.setMaxBytes(this.raftOptions.getMaxByteCountPerRpc());
+        request.setIncludeUncommitted(this.tail);
+        this.rpcClient.fetchLog(source, request, new ResponseCallbackAdapter() {
+            @Override
+            public void run(Status status) {
+                onFetched(status, status.isOk() ? (FetchLogResponse) getResponse() : null, source, fromIndex);
+            }
+        });
+    }
+
+    private void onFetched(final Status status, final FetchLogResponse response, final PeerId source, final long fromIndex) {
+        if (!this.running.get()) {
+            return;
+        }
+        if (this.tail && (response == null || !response.getSuccess() || response.getEntries() == null
+                || response.getEntries().isEmpty())) {
+            // the source has nothing after our log
+            LOG.info("Node {} fetched the log tail from {} up to {}", this.serverId, source, fromIndex - 1);
+            stop();
+            return;
+        }
+        if (response == null || !response.getSuccess() || response.getEntries() == null || response.getEntries().isEmpty()) {
+            LOG.warn("Node {} can not fetch log from {} at {}: {}", this.serverId, source, fromIndex,
+                    response == null ? status.getErrorMsg() : response);
+            nextSource();
+            return;
+        }
+        if (response.getPrevLogTerm() != this.logManager.getTerm(fromIndex - 1)
+                || response.getEntries().get(0).getId().getIndex() != fromIndex) {
+            LOG.warn("Node {} log does not match {} at {}, stop fetching", this.serverId, source, fromIndex);
+            stop();
+            return;
+        }
+        synchronized (this) {
+            this.failures = 0;
+        }
+        final List<LogEntry> entries = new ArrayList<>(response.getEntries().size());
+        for (OutLogEntry entry : response.getEntries()) {
+            entries.add(LogEntry.getInstance(entry));
+        }
+        final long lastIndex = fromIndex + entries.size() - 1;
+        final long committedIndex = Math.min(response.getLastCommittedIndex(), lastIndex);
+        this.logManager.appendEntries(entries, new LogManager.FlushDoneCallback(entries) {
+            @Override
+            public void run(Status st) {
+                if (!st.isOk()) {
+                    LOG.warn("Node {} fails to append fetched log: {}", serverId, st.getErrorMsg());
+                    stop();
+                    return;
+                }
+                ballotBox.setLastCommittedIndex(committedIndex);
+                fetchNext();
+            }
+        });
+    }
+
+    private void nextSource() {
+        final boolean exhausted;
+        synchronized (this) {
+            exhausted = ++this.failures >= this.sources.size();
+            if (!exhausted) {
+                this.sourceIndex = (this.sourceIndex + 1) % this.sources.size();
+            }
+        }
+        if (exhausted) {
+            LOG.warn("Node {} finds no peer to fetch log from, the leader sends it", this.serverId);
+            stop();
+            return;
+        }
+        fetchNext();
+    }
+}
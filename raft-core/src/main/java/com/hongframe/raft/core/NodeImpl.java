@@ -26,6 +26,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -60,11 +61,16 @@ public class NodeImpl implements Node {
     private ConfigurationEntry conf;
     private ConfigurationManager configurationManager;
     private volatile long lastLeaderTimestamp;
+    /**
+     * lowest match index of the voting followers the leader announced, a witness keeps the log after it.
+     */
+    private volatile long peersMatchIndex;
 
     private NodeOptions nodeOptions;
     private RaftOptions raftOptions;
 
     private RpcClient rpcClient;
+    private LogFetcher logFetcher;
     private ReadOnlyService readOnlyService;
 
     private ReentrantTimer voteTimer;
@@ -82,7 +88,12 @@ public class NodeImpl implements Node {
     private FSMCaller caller;
     private RaftMetaStorage metaStorage;
     private ReplicatorGroup replicatorGroup;
+    /**
+     * mailboxes of the replicators and the reader of the log they send, shared with the other nodes.
+     */
+    private ReplicatorExecutors replicatorExecutors;
     private SnapshotExecutor snapshotExecutor;
+    private FragmentAssembler fragmentAssembler;
 
 
     public NodeImpl(String groupId, PeerId serverId) {
@@ -225,7 +236,11 @@ public class NodeImpl implements Node {
         this.applyQueue = this.applyDisruptor.start();
 
         this.rpcClient = DubboRaftRpcFactory.createRaftRpcClient();
+        this.fragmentAssembler = new FragmentAssembler(this.raftOptions.getMaxEntrySize());
+        this.logFetcher = new LogFetcher(this.groupId, this.serverId, this.logManager, this.ballotBox, this.rpcClient,
+                this.raftOptions);
         this.replicatorGroup = new ReplicatorGroupImpl();
+        this.replicatorExecutors = ReplicatorExecutors.acquire(this.raftOptions);
         ReplicatorGroupOptions rgo = new ReplicatorGroupOptions();
         rgo.setElectionTimeoutMs(this.nodeOptions.getElectionTimeoutMs());
         rgo.setHeartbeatTimeoutMs(heartbeatTimeout(this.nodeOptions.getElectionTimeoutMs()));
@@ -235,10 +250,13 @@ public class NodeImpl implements Node {
         rgo.setTimerManager(this.timerManger);
         rgo.setBallotBox(this.ballotBox);
         rgo.setRaftOptions(this.raftOptions);
+        rgo.setReplicatorExecutor(this.replicatorExecutors.getReplicatorExecutor());
+        rgo.setLogReadExecutor(this.replicatorExecutors.getLogReadExecutor());
         if (this.snapshotExecutor != null) {
             rgo.setSnapshotStorage(this.snapshotExecutor.getSnapshotStorage());
         }
         this.replicatorGroup.init(this.nodeId.copy(), rgo);
+        this.logManager.setRetainedIndexFunction(this.replicatorGroup::getLowestNeededIndex);
 
         this.readOnlyService = new ReadOnlyServiceImpl();
         final ReadOnlyServiceOptions rosOpts = new ReadOnlyServiceOptions();
@@ -249,7 +267,8 @@ public class NodeImpl implements Node {
 
         this.state = State.STATE_FOLLOWER;
 
-        if (this.snapshotExecutor != null && this.nodeOptions.getSnapshotIntervalSecs() > 0) {
+        if (this.snapshotExecutor != null && this.nodeOptions.getSnapshotIntervalSecs() > 0
+                && !this.nodeOptions.isWitness()) {
             this.snapshotTimer.start();
         }
 
@@ -286,6 +305,10 @@ public class NodeImpl implements Node {
             if (!candidateId.parse(request.getServerId())) {
                 return null;
             }
+            if (!this.conf.contains(candidateId)) {
+                LOG.warn("Node {} ignore PreVoteRequest from {}, not a voter.", getNodeId(), request.getServerId());
+                return notVoterResponse(true);
+            }
             boolean granted = false;
 
             do {
@@ -333,6 +356,14 @@ public class NodeImpl implements Node {
 
     }
 
+    private RequestVoteResponse notVoterResponse(final boolean preVote) {
+        RequestVoteResponse response = new RequestVoteResponse();
+        response.setGranted(false);
+        response.setTerm(this.currTerm);
+        response.setPreVote(preVote);
+        return response;
+    }
+
     public void handlePreVoteResponse(PeerId peerId, long term, RequestVoteResponse voteResponse) {
         boolean doUnlock = true;
         this.writeLock.lock();
@@ -363,6 +394,9 @@ public class NodeImpl implements Node {
                     doUnlock = false;
                     electSelf();
                 }
+            } else if (!this.nodeOptions.isWitness()) {
+                // the peer may hold entries we miss, e.g. a witness acked them with the dead leader
+                this.logFetcher.fetchTail(peerId);
             }
         } finally {
             if (doUnlock) {
@@ -382,6 +416,10 @@ public class NodeImpl implements Node {
             if (!candidateId.parse(request.getServerId())) {
                 return null;
             }
+            if (!this.conf.contains(candidateId)) {
+                LOG.warn("Node {} ignore RequestVoteRequest from {}, not a voter.", getNodeId(), request.getServerId());
+                return notVoterResponse(false);
+            }
 
             do {
                 if (request.getTerm() >= this.currTerm) {
@@ -509,8 +547,8 @@ public class NodeImpl implements Node {
             if (!this.state.isActive()) {
                 return new ErrorResponse(10001, "node not active");
             }
-            PeerId peerId = new PeerId();
-            if (!peerId.parse(request.getServerId())) {
+            PeerId peerId = NodeManager.getInstance().getPeerId(request.getServerId());
+            if (peerId == null) {
                 return new ErrorResponse(10001, "server parse fail");
             }
             if (request.getTerm() < this.currTerm) {
@@ -525,9 +563,25 @@ public class NodeImpl implements Node {
                 }
                 this.leaderId = peerId;
                 LOG.info("this leader id: {}", this.leaderId);
+                NodeManager.getInstance().notifyLeaderChange(this.groupId, peerId, this.currTerm);
             }
 
             updateLastLeaderTimestamp(Utils.monotonicMs());
+            if (request.getLowestMatchIndex() != null) {
+                this.peersMatchIndex = request.getLowestMatchIndex();
+            }
+
+            if (entriesCount > 0 && this.logFetcher.isRunning()) {
+                // the log is being fetched from a peer, the leader probes again later
+                AppendEntriesResponse response = new AppendEntriesResponse();
+                response.setSuccess(false);
+                response.setTerm(this.currTerm);
+                final long lastLogIndex = this.logManager.getLastLogIndex();
+                response.setLastLogLast(lastLogIndex);
+                response.setConflictIndex(lastLogIndex + 1);
+                response.setFetching(true);
+                return response;
+            }
 
             long reqPrevIndex = request.getPreLogIndex();
             long reqPrevTerm = request.getPrevLogTerm();
@@ -536,10 +590,43 @@ public class NodeImpl implements Node {
                 AppendEntriesResponse response = new AppendEntriesResponse();
                 response.setSuccess(false);
                 response.setTerm(this.currTerm);
-                response.setLastLogLast(this.logManager.getLastLogIndex());
+                final long lastLogIndex = this.logManager.getLastLogIndex();
+                response.setLastLogLast(lastLogIndex);
+                // lets the leader skip the whole conflicting term instead of one index per round trip
+                if (localPervTerm != 0 && reqPrevIndex <= lastLogIndex) {
+                    response.setConflictTerm(localPervTerm);
+                    // the search reads the log and may hit the disk, it runs without the node lock,
+                    // a log changed meanwhile only makes the hint stale and the leader probes again
+                    doUnlock = false;
+                    this.writeLock.unlock();
+                    response.setConflictIndex(this.logManager.getFirstIndexOfTerm(reqPrevIndex));
+                } else {
+                    response.setConflictIndex(lastLogIndex + 1);
+                    final long fetchTarget = Math.min(request.getCommittedIndex(), reqPrevIndex);
+                    if (this.raftOptions.isFetchLogFromPeers()
+                            && fetchTarget - lastLogIndex > this.raftOptions.getCatchupLagEntries()) {
+                        this.logFetcher.start(fetchTarget, this.leaderId, this.conf.getConf().getPeers());
+                    }
+                    response.setFetching(this.logFetcher.isRunning());
+                }
                 return response;
             }
-            if (entriesCount == 0) {
+            List<OutLogEntry> requestEntries = request.getOutEntries();
+            OutLogEntry assembled = null;
+            if (entriesCount == 1 && requestEntries.get(0).isFragment()) {
+                final Status st = new Status();
+                assembled = this.fragmentAssembler.offer(requestEntries.get(0), st);
+                if (!st.isOk()) {
+                    LOG.warn("Node {} refuses a fragment from {}: {}", getNodeId(), peerId, st.getErrorMsg());
+                    AppendEntriesResponse response = new AppendEntriesResponse();
+                    response.setSuccess(false);
+                    response.setTerm(this.currTerm);
+                    response.setLastLogLast(this.logManager.getLastLogIndex());
+                    return response;
+                }
+            }
+            if (entriesCount == 0 || (assembled == null && requestEntries.get(0).isFragment())) {
+                // a partial fragment is acked like a heartbeat, its entry is appended with the last fragment
                 AppendEntriesResponse response = new AppendEntriesResponse();
                 response.setSuccess(true);
                 response.setTerm(this.currTerm);
@@ -549,10 +636,11 @@ public class NodeImpl implements Node {
                 this.ballotBox.setLastCommittedIndex(Math.min(request.getCommittedIndex(), reqPrevIndex));
                 return response;
             }
-
+            if (assembled != null) {
+                requestEntries = Collections.singletonList(assembled);
+            }
 
             List<LogEntry> entries = new ArrayList<>(entriesCount);
-            List<OutLogEntry> requestEntries = request.getOutEntries();
 
             for (int i = 0; i < entriesCount; i++) {
                 //TODO check sum
@@ -569,6 +657,38 @@ public class NodeImpl implements Node {
         return null;
     }
 
+    public Message handleFetchLogRequest(FetchLogRequest request) {
+        final long committedIndex;
+        final long lastIndex;
+        this.readLock.lock();
+        try {
+            if (!this.state.isActive()) {
+                return new ErrorResponse(10001, "node not active");
+            }
+            committedIndex = this.ballotBox.getLastCommittedIndex();
+            lastIndex = request.isIncludeUncommitted() ? this.logManager.getLastLogIndex() : committedIndex;
+        } finally {
+            this.readLock.unlock();
+        }
+        // the log is read without the node lock, a fetcher stops on whatever no longer matches
+        final long fromIndex = request.getFromIndex();
+        if (fromIndex < this.logManager.getFirstLogIndex() || fromIndex > lastIndex) {
+            return new ErrorResponse(10001, "log " + fromIndex + " is not committed here");
+        }
+        final int maxCount = (int) Math.min(request.getMaxCount(), lastIndex - fromIndex + 1);
+        final List<LogEntry> entries = this.logManager.getEntries(fromIndex, maxCount, request.getMaxBytes());
+        final List<OutLogEntry> outEntries = new ArrayList<>(entries.size());
+        for (LogEntry entry : entries) {
+            outEntries.add(OutLogEntry.getInstance(entry));
+        }
+        FetchLogResponse response = new FetchLogResponse();
+        response.setSuccess(true);
+        response.setPrevLogTerm(this.logManager.getTerm(fromIndex - 1));
+        response.setLastCommittedIndex(committedIndex);
+        response.setEntries(outEntries);
+        return response;
+    }
+
     public Message handleReadIndexRequest(ReadIndexRequest request, ResponseCallback callback) {
         Message message = null;
         this.readLock.lock();
@@ -581,6 +701,7 @@ public class NodeImpl implements Node {
                     message = readLeader(request, callback);
                     break;
                 default:
+                    message = new ErrorResponse(Status.notLeader(this.leaderId, this.currTerm));
                     break;
             }
         } finally {
@@ -625,12 +746,14 @@ public class NodeImpl implements Node {
 
     private Message readFollower(final ReadIndexRequest request, ResponseCallback callback) {
         if (this.leaderId == null || this.leaderId.isEmpty()) {
-            return new ErrorResponse(10001, "No leader at term " + this.currTerm);
+            return new ErrorResponse(Status.notLeader(null, this.currTerm));
         }
         request.setPeerId(this.leaderId.toString());
-        if (this.rpcClient.connect(this.leaderId)) {
-            this.rpcClient.readIndex(this.leaderId, request, callback);
+        if (!this.rpcClient.connect(this.leaderId)) {
+            // the client may still reach the leader itself
+            return new ErrorResponse(Status.notLeader(this.leaderId, this.currTerm));
         }
+        this.rpcClient.readIndex(this.leaderId, request, callback);
         return null;
     }
 
@@ -744,6 +867,11 @@ public class NodeImpl implements Node {
             if (this.state != State.STATE_FOLLOWER) {
                 return;
             }
+            if (!this.conf.contains(this.serverId) || this.nodeOptions.isWitness()) {
+                // a learner never starts an election, a witness only votes: a follower its vote refuses
+                // fetches the tail from it first, see handlePreVoteResponse
+                return;
+            }
             if (isCurrentLeaderValid()) {
                 return;
             }
@@ -863,17 +991,22 @@ public class NodeImpl implements Node {
             this.state = State.STATE_LEADER;
             this.leaderId = this.serverId.copy();
             this.voteTimer.stop();
+            NodeManager.getInstance().notifyLeaderChange(this.groupId, this.leaderId, this.currTerm);
             this.replicatorGroup.resetTerm(this.currTerm);
             LOG.info("peer {} become Leader", this.leaderId);
             this.replicatorGroup.resetTerm(this.currTerm);
             this.ballotBox.resetPendingIndex(logManager.getLastLogIndex() + 1);
             for (PeerId peerId : this.conf.getConf().getPeers()) {
-                LOG.info("Node {} add a learner replicator, term={}, peer={}.", getNodeId(), this.currTerm, peerId);
                 if (peerId.equals(this.serverId)) {
                     continue;
                 }
+                LOG.info("Node {} add a replicator, term={}, peer={}.", getNodeId(), this.currTerm, peerId);
                 this.replicatorGroup.addReplicator(peerId);
             }
+            for (PeerId peerId : this.conf.getConf().getLearners()) {
+                LOG.info("Node {} add a learner replicator, term={}, peer={}.", getNodeId(), this.currTerm, peerId);
+                this.replicatorGroup.addReplicator(peerId, ReplicatorType.Learner);
+            }
 
             //TODO 这是要去掉的，非法操作
             this.nodeOptions.getStateMachine().onLeaderStart(this.currTerm);
@@ -946,6 +1079,20 @@ public class NodeImpl implements Node {
         return false;
     }
 
+    /**
+     * a peer answered a term above the current one, the node steps down to it. Called by the replicators.
+     */
+    void increaseTermTo(final long newTerm, final Status status) {
+        this.writeLock.lock();
+        try {
+            if (newTerm > this.currTerm) {
+                stepDown(newTerm, status);
+            }
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
     private void stepDown(final long term, final Status status) {
         if (!this.state.isActive()) {
             return;
@@ -965,6 +1112,7 @@ public class NodeImpl implements Node {
         if (this.snapshotExecutor != null) {
             this.snapshotExecutor.interruptDownloadingSnapshots(term);
         }
+        this.logFetcher.stop();
 
         this.replicatorGroup.stopAll();
 
@@ -1058,11 +1206,22 @@ public class NodeImpl implements Node {
         return this.leaderId;
     }
 
+    @Override
+    public long getCurrentTerm() {
+        this.readLock.lock();
+        try {
+            return this.currTerm;
+        } finally {
+            this.readLock.unlock();
+        }
+    }
+
     @Override
     public void apply(Task task) {
 
         LogEntry entry = new LogEntry();
-        entry.setData(task.getData());
+        // a view from the current position of the task, the caller must not change the content afterwards
+        entry.setData(task.getData() == null ? null : task.getData().asReadOnlyBuffer().slice());
 
         final EventTranslator<LogEntrAndCallback> translator = (event, seq) -> {
             event.callback = task.getCallback();
@@ -1099,7 +1258,7 @@ public class NodeImpl implements Node {
         this.writeLock.lock();
         try {
             if (this.state != State.STATE_LEADER) {
-                Status status = new Status(10001, "Is not leader.");
+                final Status status = Status.notLeader(this.leaderId, this.currTerm);
                 Utils.runInThread(() -> {
                     for (LogEntrAndCallback callback : tasks) {
                         callback.callback.run(status);
@@ -1122,6 +1281,10 @@ public class NodeImpl implements Node {
         }
     }
 
+    public long getPeersMatchIndex() {
+        return peersMatchIndex;
+    }
+
     public NodeOptions getNodeOptions() {
         return nodeOptions;
     }
@@ -1134,13 +1297,36 @@ public class NodeImpl implements Node {
         return timerManger;
     }
 
+    public long getLastCommittedIndex() {
+        return this.ballotBox.getLastCommittedIndex();
+    }
+
+    public LogManager getLogManager() {
+        return logManager;
+    }
+
     public RaftOptions getRaftOptions() {
         return raftOptions;
     }
 
     @Override
     public void shutdown() {
-
+        NodeManager.getInstance().unregister(this);
+        this.writeLock.lock();
+        try {
+            if (this.replicatorGroup != null) {
+                this.replicatorGroup.stopAll();
+            }
+            if (this.logFetcher != null) {
+                this.logFetcher.stop();
+            }
+        } finally {
+            this.writeLock.unlock();
+        }
+        if (this.replicatorExecutors != null) {
+            ReplicatorExecutors.release(this.replicatorExecutors);
+            this.replicatorExecutors = null;
+        }
     }
 
 }
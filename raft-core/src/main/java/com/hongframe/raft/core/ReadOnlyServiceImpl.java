@@ -5,7 +5,9 @@ import com.hongframe.raft.ReadOnlyService;
 import com.hongframe.raft.Status;
 import com.hongframe.raft.callback.ReadIndexCallback;
 import com.hongframe.raft.callback.ResponseCallbackAdapter;
+import com.hongframe.raft.entity.Message;
 import com.hongframe.raft.option.RaftOptions;
+import com.hongframe.raft.option.ReadOnlyOption;
 import com.hongframe.raft.option.ReadOnlyServiceOptions;
 import com.hongframe.raft.rpc.RpcRequests;
 import com.hongframe.raft.util.*;
@@ -116,7 +118,20 @@ public class ReadOnlyServiceImpl implements ReadOnlyService {
         }
         request.setDatas(byteses);
 
-        this.node.handleReadIndexRequest(request, new ReadIndexResponseCallback(states, request));
+        if (this.raftOptions.getReadOnlyOptions() == ReadOnlyOption.ReadOnlyStale) {
+            final RpcRequests.ReadIndexResponse response = new RpcRequests.ReadIndexResponse();
+            response.setSuccess(true);
+            response.setIndex(this.node.getLastCommittedIndex());
+            final ReadIndexResponseCallback callback = new ReadIndexResponseCallback(states, request);
+            callback.setResponse(response);
+            callback.run(Status.OK());
+            return;
+        }
+        final ReadIndexResponseCallback callback = new ReadIndexResponseCallback(states, request);
+        final Message message = this.node.handleReadIndexRequest(request, callback);
+        if (message != null) {
+            callback.invoke(new RpcRequests.Response(message));
+        }
     }
 
     private class ReadIndexResponseCallback extends ResponseCallbackAdapter {
@@ -0,0 +1,64 @@
+package com.hongframe.raft.core;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * How a follower behind the last snapshot of the leader is brought back, per peer: by replaying the
+ * log the retention window kept, or by installing the snapshot.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 18:20
+ */
+public class RecoveryMetrics {
+
+    private static final ConcurrentMap<String, RecoveryMetrics> METRICS = new ConcurrentHashMap<>();
+
+    private final AtomicLong replayBatches = new AtomicLong();
+    private final AtomicLong replayedEntries = new AtomicLong();
+    private final AtomicLong snapshotInstalls = new AtomicLong();
+
+    public static RecoveryMetrics get(String peerId) {
+        return METRICS.computeIfAbsent(peerId == null ? "unknown" : peerId, k -> new RecoveryMetrics());
+    }
+
+    public static Map<String, RecoveryMetrics> getAll() {
+        return new HashMap<>(METRICS);
+    }
+
+    void onReplay(int entryCount) {
+        this.replayBatches.incrementAndGet();
+        this.replayedEntries.addAndGet(entryCount);
+    }
+
+    void onSnapshotInstall() {
+        this.snapshotInstalls.incrementAndGet();
+    }
+
+    /**
+     * AppendEntries carrying entries older than the last snapshot.
+     */
+    public long getReplayBatches() {
+        return replayBatches.get();
+    }
+
+    public long getReplayedEntries() {
+        return replayedEntries.get();
+    }
+
+    public long getSnapshotInstalls() {
+        return snapshotInstalls.get();
+    }
+
+    @Override
+    public String toString() {
+        return "RecoveryMetrics{" +
+                "replayBatches=" + replayBatches +
+                ", replayedEntries=" + replayedEntries +
+                ", snapshotInstalls=" + snapshotInstalls +
+                '}';
+    }
+}
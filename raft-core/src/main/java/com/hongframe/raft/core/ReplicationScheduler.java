@@ -0,0 +1,137 @@
+package com.hongframe.raft.core;
+
+import com.hongframe.raft.entity.PeerId;
+import com.hongframe.raft.option.RaftOptions;
+import com.hongframe.raft.util.Utils;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shares the replication bandwidth of a leader between its followers. A follower more than
+ * {@link RaftOptions#getCatchupLagEntries()} entries behind is catching up: its batches draw from one
+ * token bucket refilled at {@link RaftOptions#getCatchupBytesPerSecond()}, while a follower the
+ * quorum needs is never throttled, so a rebuilding replica can not take the disk reads, encoding cpu
+ * and bandwidth the commit path needs.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 17:10
+ */
+public class ReplicationScheduler {
+
+    private final RaftOptions raftOptions;
+    private final ConcurrentMap<PeerId, Throughput> throughputs = new ConcurrentHashMap<>();
+    /**
+     * bytes the catching up followers may send, negative while they are in debt.
+     */
+    private double tokens;
+    private long lastRefillMs = Utils.monotonicMs();
+
+    public static class Throughput {
+        private final AtomicLong bytes = new AtomicLong();
+        private final AtomicLong catchupBytes = new AtomicLong();
+        private final AtomicLong throttled = new AtomicLong();
+        private long windowStartMs = Utils.monotonicMs();
+        private long windowBytes;
+        private volatile long bytesPerSecond;
+
+        private synchronized void onSent(long sentBytes, long nowMs) {
+            this.windowBytes += sentBytes;
+            final long elapsed = nowMs - this.windowStartMs;
+            if (elapsed >= 1000) {
+                this.bytesPerSecond = this.windowBytes * 1000 / elapsed;
+                this.windowBytes = 0;
+                this.windowStartMs = nowMs;
+            }
+        }
+
+        public long getBytes() {
+            return bytes.get();
+        }
+
+        public long getCatchupBytes() {
+            return catchupBytes.get();
+        }
+
+        /**
+         * batches held back by the catch up limit.
+         */
+        public long getThrottled() {
+            return throttled.get();
+        }
+
+        /**
+         * measured over the last full second.
+         */
+        public long getBytesPerSecond() {
+            return bytesPerSecond;
+        }
+
+        @Override
+        public String toString() {
+            return "Throughput{" +
+                    "bytes=" + bytes +
+                    ", catchupBytes=" + catchupBytes +
+                    ", throttled=" + throttled +
+                    ", bytesPerSecond=" + bytesPerSecond +
+                    '}';
+        }
+    }
+
+    public ReplicationScheduler(RaftOptions raftOptions) {
+        this.raftOptions = raftOptions;
+        this.tokens = raftOptions.getCatchupBytesPerSecond();
+    }
+
+    /**
+     * @param quorumNeeded the leader can not commit without this follower, see
+     *                     {@link com.hongframe.raft.ReplicatorGroup#isNeededForQuorum}
+     */
+    public boolean isCatchingUp(long lagEntries, boolean quorumNeeded) {
+        return !quorumNeeded && lagEntries > this.raftOptions.getCatchupLagEntries();
+    }
+
+    /**
+     * takes the tokens of a catch up batch. A batch larger than the bucket still goes once the bucket
+     * is not in debt, the debt then delays the next ones.
+     *
+     * @return 0 if the batch may be sent, else how long to wait before trying again
+     */
+    public long acquireCatchup(PeerId peerId, long bytes) {
+        final long rate = this.raftOptions.getCatchupBytesPerSecond();
+        if (rate <= 0) {
+            return 0;
+        }
+        synchronized (this) {
+            final long nowMs = Utils.monotonicMs();
+            this.tokens = Math.min(rate, this.tokens + (nowMs - this.lastRefillMs) * rate / 1000.0);
+            this.lastRefillMs = nowMs;
+            if (this.tokens < 0) {
+                getThroughput(peerId).throttled.incrementAndGet();
+                return Math.max(1, (long) Math.ceil(-this.tokens * 1000 / rate));
+            }
+            this.tokens -= bytes;
+            return 0;
+        }
+    }
+
+    public void onSent(PeerId peerId, long bytes, boolean catchingUp) {
+        final Throughput throughput = getThroughput(peerId);
+        throughput.bytes.addAndGet(bytes);
+        if (catchingUp) {
+            throughput.catchupBytes.addAndGet(bytes);
+        }
+        throughput.onSent(bytes, Utils.monotonicMs());
+    }
+
+    public Throughput getThroughput(PeerId peerId) {
+        return this.throughputs.computeIfAbsent(peerId, k -> new Throughput());
+    }
+
+    public Map<PeerId, Throughput> getAllThroughputs() {
+        return new HashMap<>(this.throughputs);
+    }
+}
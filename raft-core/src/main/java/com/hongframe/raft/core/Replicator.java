@@ -1,36 +1,68 @@
 package com.hongframe.raft.core;
 
+import com.hongframe.raft.ReplicatorGroup;
 import com.hongframe.raft.Status;
 import com.hongframe.raft.callback.ResponseCallback;
 import com.hongframe.raft.entity.LogEntry;
+import com.hongframe.raft.entity.LogId;
 import com.hongframe.raft.entity.Message;
 import com.hongframe.raft.entity.SnapshotMeta;
+import com.hongframe.raft.option.RaftOptions;
 import com.hongframe.raft.option.ReplicatorOptions;
 import com.hongframe.raft.callback.ResponseCallbackAdapter;
 import com.hongframe.raft.rpc.RpcClient;
 import com.hongframe.raft.rpc.RpcRequests.*;
+import com.hongframe.raft.rpc.compress.CompressorType;
+import com.hongframe.raft.storage.LogManager;
 import com.hongframe.raft.storage.snapshot.SnapshotReader;
 import com.hongframe.raft.util.ObjectLock;
+import com.hongframe.raft.util.SerializingExecutor;
 import com.hongframe.raft.util.Utils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.PriorityQueue;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Replicates the log to one follower. A replicator is an actor: its state is only touched by the
+ * tasks of its {@link SerializingExecutor} mailbox, rpc callbacks, timers and log waiters just post
+ * events. The mailboxes of the replicators of a node share {@link ReplicatorOptions#getReplicatorExecutor()},
+ * the log and the snapshot are read on {@link ReplicatorOptions#getLogReadExecutor()} so a slow disk
+ * never holds the mailboxes of the other followers.
+ */
 public class Replicator {
 
     private Logger LOG;
 
+    private final SerializingExecutor mailbox;
+    private volatile boolean destroyed;
+    /**
+     * set while the log is read for this replicator, a reset bumps the generation and drops the read.
+     */
+    private boolean reading;
+    private int readGeneration;
+
     private RpcClient rpcClient;
     private volatile long nextIndex = 1;
+    /**
+     * last entry known to be on the follower, (0, 0) until an AppendEntries succeeds. Heartbeats
+     * carry it as their prev log, so they never read the log.
+     */
+    private volatile LogId matchId = new LogId(0, 0);
     private State state;
     private long waitId = -1L;
     private ObjectLock<Replicator> self;
@@ -38,6 +70,39 @@ public class Replicator {
     private Scheduler timerManger;
     private volatile long lastRpcSendTimestamp;
     private volatile long heartbeatCounter = 0;
+    private volatile boolean heartbeatCoalesced;
+    private volatile int peerCompressors;
+    /**
+     * handle of the follower node issued by the follower, 0 until the first response.
+     */
+    private volatile long peerNodeHandle;
+    /**
+     * entry larger than maxBodySize being sent in fragments, and the offset of its next fragment.
+     */
+    private long fragmentIndex = -1;
+    private int fragmentOffset;
+    /**
+     * pending while an under filled batch waits for more entries, set once the wait is over.
+     */
+    private ScheduledFuture<?> lingerTimer;
+    private boolean lingerExpired;
+    private final BatchMetrics batchMetrics;
+    private final RecoveryMetrics recoveryMetrics;
+    private final FlowWindow flowWindow;
+    /**
+     * pending while a catch up batch waits for the budget of the {@link ReplicationScheduler}.
+     */
+    private ScheduledFuture<?> throttleTimer;
+    private boolean catchingUp;
+    /**
+     * pending while the follower fetches the log from a peer, nothing but the probe is sent meanwhile.
+     */
+    private ScheduledFuture<?> probeTimer;
+    /**
+     * one commit notification pending at most, the later commits ride on it.
+     */
+    private final AtomicBoolean commitNotifyScheduled = new AtomicBoolean();
+    private volatile long lastSentCommittedIndex;
 
     private FlyingAppendEntries fiying;
     private ArrayDeque<FlyingAppendEntries> appendEntriesInFly = new ArrayDeque<>();
@@ -50,8 +115,13 @@ public class Replicator {
 
     private Replicator(ReplicatorOptions options) {
         this.options = options;
+        this.mailbox = new SerializingExecutor(this.options.getReplicatorExecutor());
         this.rpcClient = this.options.getRpcClient();
         this.timerManger = this.options.getTimerManager();
+        this.batchMetrics = BatchMetrics.get(this.options.getPeerId().toString());
+        this.recoveryMetrics = RecoveryMetrics.get(this.options.getPeerId().toString());
+        this.flowWindow = new FlowWindow(this.options.getRaftOptions().getInitialReplicatorFlyingMsgs(),
+                this.options.getRaftOptions().getMaxReplicatorFlyingMsgs());
         this.LOG = LoggerFactory.getLogger(Replicator.class.getSimpleName() + " : " + this.options.getPeerId());
     }
 
@@ -169,24 +239,83 @@ public class Replicator {
 
         ObjectLock<Replicator> lock = new ObjectLock<>(replicator);
         replicator.self = lock;
-        lock.lock();
         replicator.lastRpcSendTimestamp = Utils.monotonicMs();
-        replicator.startHeartbeatTimer(Utils.nowMs());
-        replicator.LOG.warn("startHeartbeatTimer");
-        replicator.sendEmptyEntries(false, null);
-        replicator.LOG.info("start Replicator :{}", replicator.options.getPeerId());
-//        lock.unlock();
+        replicator.heartbeatCoalesced = replicator.options.getRaftOptions().isCoalesceHeartbeats();
+        replicator.submit(() -> {
+            if (replicator.heartbeatCoalesced) {
+                HeartbeatCoalescer.getInstance().register(lock, replicator.options.getPeerId(), replicator.rpcClient,
+                        replicator.options.getDynamicHeartBeatTimeoutMs());
+            } else {
+                replicator.startHeartbeatTimer(Utils.nowMs());
+                replicator.LOG.warn("startHeartbeatTimer");
+            }
+            replicator.sendEmptyEntries(false, null);
+            replicator.LOG.info("start Replicator :{}", replicator.options.getPeerId());
+        });
         return lock;
     }
 
+    /**
+     * posts an event to the mailbox, dropped once the replicator is destroyed.
+     */
+    private void submit(final Runnable event) {
+        this.mailbox.execute(() -> {
+            if (!this.destroyed) {
+                event.run();
+            }
+        });
+    }
+
+    /**
+     * runs read on the log reader pool and hands its result to then in the mailbox, unless the
+     * replicator was reset meanwhile. A failed read probes again later.
+     */
+    private <T> void readLog(final Supplier<T> read, final Consumer<T> then) {
+        final int generation = this.readGeneration;
+        this.reading = true;
+        try {
+            this.options.getLogReadExecutor().execute(() -> {
+                try {
+                    final T result = read.get();
+                    submit(() -> {
+                        if (generation == this.readGeneration) {
+                            this.reading = false;
+                            then.accept(result);
+                        }
+                    });
+                } catch (Exception e) {
+                    LOG.error("read log failed", e);
+                    submit(() -> {
+                        if (generation == this.readGeneration) {
+                            this.reading = false;
+                            probeLater();
+                        }
+                    });
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOG.warn("log reader rejected the read, the node is shutting down");
+            this.reading = false;
+        }
+    }
+
+    private void cancelRead() {
+        this.readGeneration++;
+        this.reading = false;
+    }
+
     private void startHeartbeatTimer(long startMs) {
+        if (this.heartbeatCoalesced) {
+            // ticked by the HeartbeatCoalescer
+            return;
+        }
         final long dueTime = startMs + this.options.getDynamicHeartBeatTimeoutMs();
         long delay = dueTime - Utils.nowMs();
         this.heartbeatTimer = this.timerManger.schedule(() -> onTimeout(this.self), delay, TimeUnit.MILLISECONDS);
     }
 
     private void onTimeout(ObjectLock<Replicator> lock) {
-        Utils.runInThread(() -> sendHeartbeat(lock, null));
+        submit(() -> sendEmptyEntries(true, null));
     }
 
     private boolean isInstallSnapshot(long prevTerm, long prevIndex) {
@@ -197,76 +326,206 @@ public class Replicator {
         return false;
     }
 
+    private static class SnapshotRead {
+        private final SnapshotReader reader;
+        private final String uri;
+        private final SnapshotMeta meta;
+
+        private SnapshotRead(SnapshotReader reader, String uri, SnapshotMeta meta) {
+            this.reader = reader;
+            this.uri = uri;
+            this.meta = meta;
+        }
+    }
+
+    /**
+     * opens and loads the last snapshot, null if there is none. Runs on the log reader.
+     */
+    private SnapshotRead openSnapshot() {
+        final SnapshotReader reader = this.options.getSnapshotStorage().open();
+        if (reader == null) {
+            return null;
+        }
+        final String uri = reader.generateURIForCopy();
+        if (uri == null) {
+            return null;
+        }
+        final SnapshotMeta meta = reader.load();
+        if (meta == null) {
+            return null;
+        }
+        return new SnapshotRead(reader, uri, meta);
+    }
+
     private void installSnapshot() {
         if (this.state == State.Snapshot) {
             LOG.warn("Replicator {} is installing snapshot, ignore the new request.", this.options.getPeerId());
-            this.self.unlock();
             return;
         }
-        boolean doUnlock = true;
-        try {
-            this.reader = this.options.getSnapshotStorage().open();
-            if (this.reader == null) {
-                this.self.unlock();
-                doUnlock = false;
-                return;
-            }
-            final String uri = this.reader.generateURIForCopy();
-            if (uri == null) {
-                return;
+        readLog(this::openSnapshot, snapshot -> {
+            if (snapshot != null) {
+                installSnapshot(snapshot);
             }
-            SnapshotMeta meta = this.reader.load();
-            if (meta == null) {
-                return;
+        });
+    }
+
+    private void installSnapshot(final SnapshotRead snapshot) {
+        if (this.state == State.Snapshot) {
+            return;
+        }
+        this.reader = snapshot.reader;
+        final String uri = snapshot.uri;
+        final SnapshotMeta meta = snapshot.meta;
+        InstallSnapshotRequest request = new InstallSnapshotRequest();
+        request.setTerm(this.options.getTerm());
+        request.setGroupId(this.options.getGroupId());
+        request.setServerId(this.options.getServerId().toString());
+        request.setPeerId(this.options.getPeerId().toString());
+        request.setMeta(meta);
+        request.setUri(uri);
+        this.state = State.Snapshot;
+        this.recoveryMetrics.onSnapshotInstall();
+        final long monotonicSendTimeMs = Utils.monotonicMs();
+        final int seq = getAndIncrementReqSeq();
+        CompletableFuture<?> future = this.rpcClient.installSnapshot(this.options.getPeerId(), request, new ResponseCallbackAdapter() {
+            @Override
+            public void run(Status status) {
+                final InstallSnapshotResponse response = status.isOk() ? (InstallSnapshotResponse) getResponse() : null;
+                submit(() -> onInstallSnapshotReturned(status, response, meta));
             }
-            InstallSnapshotRequest request = new InstallSnapshotRequest();
-            request.setTerm(this.options.getTerm());
-            request.setGroupId(this.options.getGroupId());
-            request.setServerId(this.options.getServerId().toString());
-            request.setPeerId(this.options.getPeerId().toString());
-            request.setMeta(meta);
-            request.setUri(uri);
-            this.state = State.Snapshot;
-            final long monotonicSendTimeMs = Utils.monotonicMs();
-            final int seq = getAndIncrementReqSeq();
-            CompletableFuture<?> future = this.rpcClient.installSnapshot(this.options.getPeerId(), request, new ResponseCallbackAdapter() {
-                @Override
-                public void run(Status status) {
-                    //TODO installSnapshot()
-                }
-            });
-            addFlying(RequestType.Snapshot, this.nextIndex, 0, seq, future);
-        } finally {
-            if (doUnlock) {
-                this.self.unlock();
+        });
+        addFlying(RequestType.Snapshot, this.nextIndex, 0, seq, future);
+    }
+
+    private void onInstallSnapshotReturned(Status status, InstallSnapshotResponse response, SnapshotMeta meta) {
+        releaseReader();
+        resetInflights();
+        this.state = State.Probe;
+        if (!status.isOk()) {
+            LOG.warn("Replicator {} fails to install snapshot {}: {}", this.options.getPeerId(),
+                    meta.getLastIncludedIndex(), status.getErrorMsg());
+            probeLater();
+            return;
+        }
+        if (response.getTerm() > this.options.getTerm()) {
+            stepDownNode(response.getTerm(), "InstallSnapshot");
+            return;
+        }
+        if (!response.isSuccess()) {
+            LOG.warn("Replicator {} snapshot {} refused by the follower", this.options.getPeerId(), meta.getLastIncludedIndex());
+            probeLater();
+            return;
+        }
+        this.nextIndex = meta.getLastIncludedIndex() + 1;
+        sendEmptyEntries(false, null);
+    }
+
+    private void releaseReader() {
+        final SnapshotReader reader = this.reader;
+        if (reader == null) {
+            return;
+        }
+        this.reader = null;
+        try {
+            reader.close();
+        } catch (IOException e) {
+            LOG.warn("Replicator {} fails to close snapshot reader", this.options.getPeerId(), e);
+        }
+    }
+
+    /**
+     * a follower answered a higher term: the node steps down, which stops this replicator.
+     */
+    private void stepDownNode(final long term, final String rpc) {
+        LOG.warn("Replicator {} {} answered term {} above {}", this.options.getPeerId(), rpc, term, this.options.getTerm());
+        this.options.getNode().increaseTermTo(term, new Status(10001,
+                String.format("%s response from %s with higher term %d", rpc, this.options.getPeerId(), term)));
+    }
+
+    /**
+     * called when the leader commits, pushes the new commit index to the follower unless a data rpc
+     * is about to carry it, so followers apply without waiting for the next heartbeat.
+     */
+    static void notifyCommitted(final ObjectLock<Replicator> lock, final long lastCommittedIndex) {
+        final Replicator r = lock.getData();
+        if (r == null || r.destroyed || lastCommittedIndex <= r.lastSentCommittedIndex) {
+            return;
+        }
+        if (r.commitNotifyScheduled.compareAndSet(false, true)) {
+            r.submit(r::sendCommitNotification);
+        }
+    }
+
+    private void sendCommitNotification() {
+        this.commitNotifyScheduled.set(false);
+        final long committedIndex = this.options.getBallotBox().getLastCommittedIndex();
+        if (committedIndex <= this.lastSentCommittedIndex || this.state != State.Replicate) {
+            return;
+        }
+        final long nextSendIndex = getNextSendIndex();
+        if (this.reading) {
+            // the request being read carries it
+            return;
+        }
+        if (nextSendIndex > 0 && nextSendIndex <= this.options.getLogManager().getLastLogIndex() && this.throttleTimer == null) {
+            // the next AppendEntries carries it
+            return;
+        }
+        this.lastSentCommittedIndex = committedIndex;
+        final ResponseCallback callback = new ResponseCallbackAdapter() {
+            @Override
+            public void run(Status status) {
             }
+        };
+        if (this.heartbeatCoalesced && HeartbeatCoalescer.getInstance().heartbeatNow(this.self, this.options.getPeerId(), callback)) {
+            return;
         }
+        sendEmptyEntries(true, callback);
     }
 
     public static void sendHeartbeat(final ObjectLock<Replicator> lock, ResponseCallback heartBeatCallback) {
-        final Replicator r = lock.lock();
-        if (r == null) {
+        final Replicator r = lock.getData();
+        if (r == null || r.destroyed) {
             return;
         }
-        // unlock in sendEmptyEntries
-        r.sendEmptyEntries(true, heartBeatCallback);
+        if (r.heartbeatCoalesced && heartBeatCallback != null
+                && HeartbeatCoalescer.getInstance().heartbeatNow(lock, r.options.getPeerId(), heartBeatCallback)) {
+            return;
+        }
+        r.submit(() -> r.sendEmptyEntries(true, heartBeatCallback));
     }
 
+    /**
+     * a heartbeat carries {@link #matchId} as its prev log, a probe reads the term of the entry before
+     * nextIndex on the log reader first.
+     */
     private void sendEmptyEntries(final boolean isHeartbeat, ResponseCallback heartBeatCallback) {
-        final AtomicBoolean doUnlock = new AtomicBoolean(true);
-        try {
-            AppendEntriesRequest request = new AppendEntriesRequest();
-            long prevLogTerm = this.options.getLogManager().getTerm(this.nextIndex - 1);
-            if (!isHeartbeat && isInstallSnapshot(prevLogTerm, this.nextIndex - 1)) {
+        if (isHeartbeat) {
+            final LogId match = this.matchId;
+            sendEmptyEntries(true, heartBeatCallback, match.getIndex(), match.getTerm());
+            return;
+        }
+        // a probe supersedes the entries being read
+        cancelRead();
+        final long prevLogIndex = this.nextIndex - 1;
+        readLog(() -> this.options.getLogManager().getTerm(prevLogIndex), prevLogTerm -> {
+            if (prevLogIndex != this.nextIndex - 1) {
+                // a response moved nextIndex meanwhile
+                sendEmptyEntries(false, null);
                 return;
             }
-            request.setTerm(this.options.getTerm());
-            request.setGroupId(this.options.getGroupId());
-            request.setServerId(this.options.getServerId().toString());
-            request.setPeerId(this.options.getPeerId().toString());
-            request.setPrevLogTerm(prevLogTerm);
-            request.setPreLogIndex(this.nextIndex - 1);
-            request.setCommittedIndex(this.options.getBallotBox().getLastCommittedIndex());
+            if (isInstallSnapshot(prevLogTerm, prevLogIndex)) {
+                return;
+            }
+            sendEmptyEntries(false, null, prevLogIndex, prevLogTerm);
+        });
+    }
+
+    private void sendEmptyEntries(final boolean isHeartbeat, ResponseCallback heartBeatCallback,
+                                  final long prevLogIndex, final long prevLogTerm) {
+        try {
+            final AppendEntriesRequest request = newEmptyRequest(prevLogIndex, prevLogTerm);
+            request.setHeartbeat(isHeartbeat);
 
             final long monotonicSendTimeMs = Utils.monotonicMs();
 
@@ -275,14 +534,8 @@ public class Replicator {
                     heartBeatCallback = new ResponseCallbackAdapter() {
                         @Override
                         public void run(Status status) {
-                            AppendEntriesResponse appendEntriesResponse = null;
-                            if (!status.isOk()) {
-                                doUnlock.set(false);
-                                Replicator.this.self.unlock();
-                            } else {
-                                appendEntriesResponse = (AppendEntriesResponse) getResponse();
-                            }
-                            onHeartbeatReturned(Replicator.this.self, status, appendEntriesResponse, monotonicSendTimeMs);
+                            final AppendEntriesResponse appendEntriesResponse = status.isOk() ? (AppendEntriesResponse) getResponse() : null;
+                            submit(() -> onHeartbeatReturned(status, appendEntriesResponse, monotonicSendTimeMs));
                         }
                     };
                 }
@@ -293,69 +546,122 @@ public class Replicator {
                 CompletableFuture<?> future = this.rpcClient.appendEntries(this.options.getPeerId(), request, new ResponseCallbackAdapter() {
                     @Override
                     public void run(Status status) {
-                        //TODO appendEntries response
-                        AppendEntriesResponse appendEntriesResponse = null;
-                        if (!status.isOk()) {
-                            doUnlock.set(false);
-                            Replicator.this.self.unlock();
-                        } else {
-                            appendEntriesResponse = (AppendEntriesResponse) getResponse();
-                        }
-                        onAppendEntriesReturned(Replicator.this.self, status, request, appendEntriesResponse, reqSeq, monotonicSendTimeMs);
+                        final AppendEntriesResponse appendEntriesResponse = status.isOk() ? (AppendEntriesResponse) getResponse() : null;
+                        submit(() -> onAppendEntriesReturned(status, request, appendEntriesResponse, reqSeq, monotonicSendTimeMs));
                     }
                 });
                 if (future != null) {
-                    addFlying(RequestType.AppendEntries, this.nextIndex, 0, reqSeq, future);
+                    addFlying(RequestType.AppendEntries, prevLogIndex + 1, 0, reqSeq, future);
                 }
 
             }
         } catch (Exception e) {
             LOG.error("", e);
-        } finally {
-            if (doUnlock.get()) {
-                this.self.unlock();
-            }
+        }
+    }
 
+    /**
+     * null if no voting follower is known, only read volatile state.
+     */
+    private Long lowestMatchIndex() {
+        final ReplicatorGroup group = this.options.getReplicatorGroup();
+        if (group == null) {
+            return null;
         }
+        final long lowest = group.getLowestMatchIndex();
+        return lowest == Long.MAX_VALUE ? null : lowest;
     }
 
-    private void onHeartbeatReturned(ObjectLock<Replicator> lock, Status status, AppendEntriesResponse response, long monotonicSendTimeMs) {
-        boolean doUnlock = true;
-        final long startTimeMs = Utils.nowMs();
-        Replicator replicator = lock.lock();
+    private AppendEntriesRequest newEmptyRequest(long prevLogIndex, long prevLogTerm) {
+        AppendEntriesRequest request = new AppendEntriesRequest();
+        request.setTerm(this.options.getTerm());
+        request.setGroupId(this.options.getGroupId());
+        request.setServerId(this.options.getServerId().toString());
+        request.setPeerId(this.options.getPeerId().toString());
+        request.setNodeHandle(this.peerNodeHandle);
+        request.setPrevLogTerm(prevLogTerm);
+        request.setPreLogIndex(prevLogIndex);
+        request.setCommittedIndex(this.options.getBallotBox().getLastCommittedIndex());
+        request.setLowestMatchIndex(lowestMatchIndex());
+        return request;
+    }
 
-        try {
-            if (!status.isOk()) {
-                LOG.warn("onHeartbeatReturned {}", status.getErrorMsg());
-                replicator.startHeartbeatTimer(startTimeMs);
-                return;
-            }
-            if (response.getTerm() > replicator.options.getTerm()) {
-                //TODO down step
-                return;
-            }
-            if (!response.getSuccess() && !(response.getLastLogLast() < 0)) {
-                doUnlock = false;
-                replicator.sendEmptyEntries(false, null);
-                replicator.startHeartbeatTimer(startTimeMs);
-                return;
-            }
-            if (monotonicSendTimeMs > replicator.lastRpcSendTimestamp) {
-                replicator.lastRpcSendTimestamp = monotonicSendTimeMs;
-            }
-            replicator.startHeartbeatTimer(startTimeMs);
-        } finally {
-            if (doUnlock) {
-                lock.unlock();
+    /**
+     * heartbeat of this replicator for the {@link HeartbeatCoalescer}, null if it is destroyed. Runs
+     * on the coalescer thread, so it only reads the volatile state of the replicator and never the log.
+     */
+    static GroupHeartbeat prepareHeartbeat(final ObjectLock<Replicator> lock) {
+        final Replicator r = lock.getData();
+        if (r == null || r.destroyed) {
+            return null;
+        }
+        final LogId match = r.matchId;
+        final GroupHeartbeat heartbeat = new GroupHeartbeat();
+        heartbeat.setNodeHandle(r.peerNodeHandle);
+        if (r.peerNodeHandle == 0) {
+            heartbeat.setGroupId(r.options.getGroupId());
+            heartbeat.setPeerId(r.options.getPeerId().toString());
+        }
+        heartbeat.setServerId(r.options.getServerId().toString());
+        heartbeat.setTerm(r.options.getTerm());
+        heartbeat.setCommittedIndex(r.options.getBallotBox().getLastCommittedIndex());
+        heartbeat.setPrevLogIndex(match.getIndex());
+        heartbeat.setPrevLogTerm(match.getTerm());
+        heartbeat.setLowestMatchIndex(r.lowestMatchIndex());
+        return heartbeat;
+    }
+
+    static void onCoalescedHeartbeatReturned(final ObjectLock<Replicator> lock, Status status, AppendEntriesResponse response,
+                                             long monotonicSendTimeMs) {
+        final Replicator r = lock.getData();
+        if (r == null) {
+            return;
+        }
+        r.submit(() -> r.onHeartbeatReturned(status, response, monotonicSendTimeMs));
+    }
+
+    static void updateLastRpcSendTimestamp(final ObjectLock<Replicator> lock, long monotonicSendTimeMs) {
+        final Replicator r = lock.getData();
+        if (r == null) {
+            return;
+        }
+        r.submit(() -> {
+            if (monotonicSendTimeMs > r.lastRpcSendTimestamp) {
+                r.lastRpcSendTimestamp = monotonicSendTimeMs;
             }
+        });
+    }
 
+    private void onHeartbeatReturned(Status status, AppendEntriesResponse response, long monotonicSendTimeMs) {
+        final long startTimeMs = Utils.nowMs();
+        final Replicator replicator = this;
+        if (!status.isOk()) {
+            LOG.warn("onHeartbeatReturned {}", status.getErrorMsg());
+            // the follower may have restarted, address it by group and peer again
+            replicator.peerNodeHandle = 0;
+            replicator.startHeartbeatTimer(startTimeMs);
+            return;
+        }
+        replicator.peerCompressors = response.getCompressors();
+        replicator.peerNodeHandle = response.getNodeHandle();
+        if (response.getTerm() > replicator.options.getTerm()) {
+            replicator.stepDownNode(response.getTerm(), "heartbeat");
+            return;
+        }
+        if (!Boolean.TRUE.equals(response.getSuccess()) && !(response.getLastLogLast() < 0)) {
+            replicator.sendEmptyEntries(false, null);
+            replicator.startHeartbeatTimer(startTimeMs);
+            return;
         }
+        if (monotonicSendTimeMs > replicator.lastRpcSendTimestamp) {
+            replicator.lastRpcSendTimestamp = monotonicSendTimeMs;
+        }
+        replicator.startHeartbeatTimer(startTimeMs);
     }
 
-    private void onAppendEntriesReturned(ObjectLock<Replicator> lock, Status status, AppendEntriesRequest request,
+    private void onAppendEntriesReturned(Status status, AppendEntriesRequest request,
                                          AppendEntriesResponse response, int seq, long monotonicSendTimeMs) {
-        boolean doUnlock = true;
-        Replicator replicator = lock.lock();
+        final Replicator replicator = this;
         LOG.info("replicator state is {}", this.state);
         boolean continueSendEntries = true;
 
@@ -365,18 +671,19 @@ public class Replicator {
             if (holdingQueue.size() > this.options.getRaftOptions().getMaxReplicatorFlyingMsgs()) {
                 LOG.info("pendingResponses size: {} more than Max Replicator Flying Msgs: {}", holdingQueue.size(),
                         this.options.getRaftOptions().getMaxReplicatorFlyingMsgs());
-                doUnlock = false;
                 continueSendEntries = false;
+                replicator.flowWindow.onCongestion(Utils.monotonicMs());
                 replicator.resetInflights();
                 replicator.sendEmptyEntries(false, null);
                 return;
             }
 
             if (!status.isOk()) {
-                //TODO block
                 LOG.warn("onAppendEntriesReturned status :{}", (status.isOk() ? "OK!" : "Not OK!!!"));
+                replicator.peerNodeHandle = 0;
                 continueSendEntries = false;
-                doUnlock = false;
+                // a lost response breaks the pipeline, the window shrinks so a slow follower gets fewer requests next time
+                replicator.flowWindow.onCongestion(Utils.monotonicMs());
                 replicator.resetInflights();
                 replicator.sendEmptyEntries(false, null);
                 return;
@@ -391,7 +698,6 @@ public class Replicator {
                         break;
                     }
                     continueSendEntries = false;
-//                    lock.unlock();
                     return;
                 }
 
@@ -402,22 +708,28 @@ public class Replicator {
                     continue;
                 }
                 if (flying.seq != rpcResponse.seq) {
-                    //TODO 不知道什么情况下会这样 and block
+                    // the responses no longer match the requests, the pipeline starts again from a probe
+                    LOG.warn("Replicator {} flying seq {} does not match response seq {}", this.options.getPeerId(),
+                            flying.seq, rpcResponse.seq);
+                    continueSendEntries = false;
+                    replicator.resetInflights();
+                    replicator.sendEmptyEntries(false, null);
+                    return;
                 }
 
                 try {
                     request = (AppendEntriesRequest) rpcResponse.request;
 
                     if (flying.startLogIndex != request.getPreLogIndex() + 1) {
-                        //TODO
                         LOG.warn("flying.startLogIndex != request.getPreLogIndex() + 1");
                         continueSendEntries = false;
-                        doUnlock = false;
                         replicator.sendEmptyEntries(false, null);
                         break;
                     }
 
                     response = (AppendEntriesResponse) rpcResponse.response;
+                    replicator.peerCompressors = response.getCompressors();
+                    replicator.peerNodeHandle = response.getNodeHandle();
 
                     LOG.info("\ncurr term: {}, request seq {} [prev index: {}, prev term: {}, curr term: {}, entries size: {}]" +
                                     "\nresponse[term: {}, success?: {}, lastLogLast: {}]" +
@@ -429,54 +741,81 @@ public class Replicator {
 
                     if (!response.getSuccess()) {
                         if (response.getTerm() > replicator.options.getTerm()) {
-                            //TODO dowm step
                             continueSendEntries = false;
+                            replicator.stepDownNode(response.getTerm(), "AppendEntries");
                             break;
                         }
 
                         if (monotonicSendTimeMs > replicator.lastRpcSendTimestamp) {
                             replicator.lastRpcSendTimestamp = monotonicSendTimeMs;
                         }
-                        //TODO appendEntriesInFly clear
+                        // the requests behind the rejected one are rejected as well, the pipeline starts again
+                        replicator.resetInflights();
 
-                        if (response.getLastLogLast() + 1 < replicator.nextIndex) {
+                        if (response.isFetching()) {
+                            // the follower catches up from a peer, sending it the same log again is wasted
+                            if (response.getConflictIndex() > 0) {
+                                replicator.nextIndex = response.getConflictIndex();
+                            }
+                            continueSendEntries = false;
+                            replicator.resetInflights();
+                            replicator.probeLater();
+                            break;
+                        }
+                        continueSendEntries = false;
+                        if (response.getConflictIndex() > 0) {
+                            replicator.probeAfterConflict(response);
+                            break;
+                        } else if (response.getLastLogLast() + 1 < replicator.nextIndex) {
                             replicator.nextIndex = response.getLastLogLast() + 1;
                         } else {
                             if (replicator.nextIndex > 1) {
                                 replicator.nextIndex--;
                             }
                         }
-                        continueSendEntries = false;
-                        doUnlock = false;
                         replicator.sendEmptyEntries(false, null);
                         break;
                     }
 
                     if (response.getTerm() != replicator.options.getTerm()) {
-                        //TODO appendEntriesInFly clear
                         continueSendEntries = false;
+                        replicator.resetInflights();
+                        replicator.sendEmptyEntries(false, null);
                         break;
                     }
 
                     if (monotonicSendTimeMs > replicator.lastRpcSendTimestamp) {
                         replicator.lastRpcSendTimestamp = monotonicSendTimeMs;
                     }
-                    if (request.getEntriesCount() > 0) {
-                        replicator.options.getBallotBox().commitAt(replicator.nextIndex,
-                                replicator.nextIndex + request.getEntriesCount() - 1, replicator.options.getPeerId());
+                    final long nowMs = Utils.monotonicMs();
+                    replicator.flowWindow.onAck(nowMs - rpcResponse.rpcSendTime, request.getEntriesCount(), response.getCredit(), nowMs);
+                    final int entriesCount = completeEntriesCount(request);
+                    if (entriesCount > 0) {
+                        // the ack of a learner never counts for the commit
+                        if (replicator.options.getReplicatorType().isFollower()) {
+                            replicator.options.getBallotBox().commitAt(replicator.nextIndex,
+                                    replicator.nextIndex + entriesCount - 1, replicator.options.getPeerId());
+                        }
                     } else {
                         replicator.state = State.Replicate;
                     }
-                    replicator.nextIndex += request.getEntriesCount();
+                    if (request.getEntriesCount() == 1 && request.getOutEntries().get(0).isFragment()) {
+                        final OutLogEntry fragment = request.getOutEntries().get(0);
+                        if (fragment.isPartial() && fragment.getId().getIndex() == replicator.fragmentIndex) {
+                            replicator.fragmentOffset = fragment.getFragmentOffset() + fragment.getDataSize();
+                        } else {
+                            replicator.resetFragment();
+                        }
+                    }
+                    replicator.nextIndex += entriesCount;
+                    if (entriesCount > 0) {
+                        replicator.matchId = request.getOutEntries().get(request.getEntriesCount() - 1).getId();
+                    } else if (request.getEntriesCount() == 0) {
+                        replicator.matchId = new LogId(request.getPrevLogTerm(), request.getPreLogIndex());
+                    }
                     continueSendEntries = true;
                 } finally {
-                    //TODO
                     if (continueSendEntries) {
-//                        LOG.info("\n-----------------------------\n" +
-//                                "request: {}\n" +
-//                                "response: {}\n" +
-//                                "RequiredNextSeq: {}" +
-//                                "\n-----------------------------\n", request, response, this.requiredNextSeq);
                         replicator.getAndIncrementRequiredNextSeq();
                     }
                 }
@@ -488,17 +827,43 @@ public class Replicator {
         } finally {
 
             if (continueSendEntries) {
-                // TODO send entries
                 replicator.sendEntries();
-            } else {
-                if (doUnlock) {
-                    lock.unlock();
-                }
             }
         }
     }
 
+    /**
+     * probes again after a rejection carrying conflict hints: right after the last entry of the
+     * conflicting term if the leader has that term, else at the first index the follower has of it.
+     * The last index of the term is looked up on the log reader.
+     */
+    private void probeAfterConflict(final AppendEntriesResponse response) {
+        final long conflictIndex = response.getConflictIndex();
+        final long conflictTerm = response.getConflictTerm();
+        if (conflictTerm <= 0) {
+            this.nextIndex = backtrackIndex(conflictIndex);
+            sendEmptyEntries(false, null);
+            return;
+        }
+        cancelRead();
+        readLog(() -> this.options.getLogManager().getLastIndexOfTerm(conflictTerm), lastIndexOfTerm -> {
+            this.nextIndex = backtrackIndex(lastIndexOfTerm > 0 ? lastIndexOfTerm + 1 : conflictIndex);
+            sendEmptyEntries(false, null);
+        });
+    }
+
+    /**
+     * always moves back, so a stale hint can not stall the probe.
+     */
+    private long backtrackIndex(final long index) {
+        return Math.max(1, Math.min(index, this.nextIndex - 1));
+    }
+
     void resetInflights() {
+        cancelRead();
+        resetFragment();
+        cancelLinger();
+        cancelThrottle();
         this.appendEntriesInFly.clear();
         this.pendingResponses.clear();
         final int rs = Math.max(this.getReqSeq(), this.getRequiredNextSeq());
@@ -512,10 +877,13 @@ public class Replicator {
     }
 
     private long getNextSendIndex() {
+        if (this.probeTimer != null || this.reading) {
+            return -1;
+        }
         if (this.appendEntriesInFly.isEmpty()) {
             return this.nextIndex;
         }
-        if (this.appendEntriesInFly.size() > this.options.getRaftOptions().getMaxReplicatorFlyingMsgs()) {
+        if (this.appendEntriesInFly.size() >= this.flowWindow.limit()) {
             return -1;
         }
         if (this.fiying != null && this.fiying.isSendingLogEntries()) {
@@ -525,23 +893,40 @@ public class Replicator {
     }
 
     private void sendEntries() {
-        try {
-            long prevSendIndex = -1;
-            while (true) {
-                long nextSendIndex = getNextSendIndex();
-                if (nextSendIndex > prevSendIndex) {
-                    if (sendEntries(nextSendIndex)) {
-                        prevSendIndex = nextSendIndex;
-                    } else {
-                        break;
-                    }
-                } else {
-                    break;
-                }
+        sendEntries(-1);
+    }
 
+    /**
+     * reads the next batch on the log reader and sends it, then reads the one after while the flow
+     * window has room.
+     */
+    private void sendEntries(final long prevSendIndex) {
+        final long nextSendIndex = getNextSendIndex();
+        if (nextSendIndex <= prevSendIndex) {
+            return;
+        }
+        final RaftOptions raftOptions = this.options.getRaftOptions();
+        final LogManager logManager = this.options.getLogManager();
+        readLog(() -> new LogRead(logManager.getTerm(nextSendIndex - 1),
+                logManager.getEntries(nextSendIndex, raftOptions.getMaxEntriesSize(), raftOptions.getMaxByteCountPerRpc())), read -> {
+            if (nextSendIndex != getNextSendIndex()) {
+                // an ack or a reset moved the window meanwhile
+                sendEntries();
+                return;
             }
-        } finally {
-            self.unlock();
+            if (sendEntries(nextSendIndex, read.prevLogTerm, read.entries)) {
+                sendEntries(nextSendIndex);
+            }
+        });
+    }
+
+    private static class LogRead {
+        private final long prevLogTerm;
+        private final List<LogEntry> entries;
+
+        private LogRead(long prevLogTerm, List<LogEntry> entries) {
+            this.prevLogTerm = prevLogTerm;
+            this.entries = entries;
         }
     }
 
@@ -555,63 +940,284 @@ public class Replicator {
     }
 
     static boolean continueSending(final ObjectLock<Replicator> lock, final int errCode) {
-        Replicator replicator = lock.lock();
-        replicator.LOG.info("Node {} continueSending next index: {}, appendEntriesInFly.size(): {}, requiredNextSeq: {}",
-                replicator.options.getPeerId(), replicator.nextIndex, replicator.appendEntriesInFly.size(), replicator.requiredNextSeq);
-        //TODO continueSending 未处理errCode，待完善
-        replicator.waitId = -1;
-        replicator.sendEntries();
+        final Replicator replicator = lock.getData();
+        if (replicator == null) {
+            return false;
+        }
+        replicator.submit(() -> {
+            replicator.LOG.info("Node {} continueSending next index: {}, appendEntriesInFly.size(): {}, requiredNextSeq: {}",
+                    replicator.options.getPeerId(), replicator.nextIndex, replicator.appendEntriesInFly.size(), replicator.requiredNextSeq);
+            replicator.waitId = -1;
+            if (errCode != 0) {
+                replicator.LOG.warn("Node {} waiting for new log fails with {}, probes later", replicator.options.getPeerId(), errCode);
+                replicator.probeLater();
+                return;
+            }
+            replicator.sendEntries();
+        });
         return true;
     }
 
-    private boolean sendEntries(final long nextSendingIndex) {
+    private boolean sendEntries(final long nextSendingIndex, final long prevLogTerm, final List<LogEntry> logEntries) {
         AppendEntriesRequest request = new AppendEntriesRequest();
         request.setTerm(this.options.getTerm());
         request.setServerId(this.options.getServerId().toString());
         request.setGroupId(this.options.getGroupId());
         request.setPeerId(this.options.getPeerId().toString());
+        request.setNodeHandle(this.peerNodeHandle);
         request.setPreLogIndex(nextSendingIndex - 1);
-        request.setPrevLogTerm(this.options.getLogManager().getTerm(nextSendingIndex - 1));
+        request.setPrevLogTerm(prevLogTerm);
         request.setCommittedIndex(this.options.getBallotBox().getLastCommittedIndex());
+        request.setLowestMatchIndex(lowestMatchIndex());
 
         final int maxEntriesSize = this.options.getRaftOptions().getMaxEntriesSize();
-        List<OutLogEntry> entries = new LinkedList<>();
-        LOG.warn("prepareEntry start!!!");
-        for (int i = 0; i < maxEntriesSize; i++) {
-            if (!prepareEntry(nextSendingIndex, i, entries)) {
-                LOG.info("prepareEntry end, nextSendingIndex: {}, i: {}, entries size: {}", nextSendingIndex, i, entries.size());
-                break;
+        final int maxBodySize = this.options.getRaftOptions().getMaxBodySize();
+        final int maxByteCount = this.options.getRaftOptions().getMaxByteCountPerRpc();
+        if (!logEntries.isEmpty() && sizeOf(logEntries.get(0)) > maxBodySize) {
+            // an oversized entry never shares a request, it goes alone in fragments
+            if (throttle(nextSendingIndex, maxBodySize)) {
+                return false;
             }
+            return sendFragment(request, logEntries.get(0), maxBodySize);
         }
-        if (entries.isEmpty()) {
+        if (logEntries.isEmpty()) {
             waitMoreEntries(nextSendingIndex);
             return false;
         }
+        final List<OutLogEntry> entries = new ArrayList<>(logEntries.size());
+        long bytes = 0;
+        for (LogEntry entry : logEntries) {
+            bytes += sizeOf(entry);
+            entries.add(OutLogEntry.getInstance(entry));
+        }
+        final boolean fullByCount = entries.size() >= maxEntriesSize;
+        // the range read stops short of the log only when the next entry would not fit
+        final boolean fullByBytes = !fullByCount && (bytes >= maxByteCount
+                || this.options.getLogManager().getLastLogIndex() >= nextSendingIndex + entries.size());
+        if (!fullByCount && !fullByBytes && linger()) {
+            return false;
+        }
+        if (throttle(nextSendingIndex, bytes)) {
+            return false;
+        }
+        final boolean lingered = this.lingerExpired;
+        cancelLinger();
+        this.batchMetrics.onBatch(entries.size(), bytes, fullByCount, fullByBytes, lingered);
+        if (nextSendingIndex <= this.options.getLogManager().getLastSnapshotIndex()) {
+            // kept by the retention window, the follower replays instead of installing the snapshot
+            this.recoveryMetrics.onReplay(entries.size());
+        }
 
         LOG.info("entries size: {}, first index: {}", entries.size(), entries.get(0).getId());
         request.setOutEntries(entries);
-        //TODO send request
+        sendAppendEntries(request, nextSendingIndex, entries.size());
+        return true;
+    }
+
+    /**
+     * holds an under filled batch back while other AppendEntries are in flight, their acks or the
+     * linger timer send it with whatever was appended meanwhile.
+     *
+     * @return true if the batch waits
+     */
+    private boolean linger() {
+        final int lingerMs = this.options.getRaftOptions().getAppendEntriesLingerMs();
+        if (lingerMs <= 0 || this.lingerExpired || this.appendEntriesInFly.isEmpty()) {
+            return false;
+        }
+        if (this.lingerTimer == null) {
+            this.lingerTimer = this.timerManger.schedule(() -> submit(() -> {
+                this.lingerTimer = null;
+                this.lingerExpired = true;
+                sendEntries();
+            }), lingerMs, TimeUnit.MILLISECONDS);
+        }
+        return true;
+    }
+
+    private void cancelLinger() {
+        if (this.lingerTimer != null) {
+            this.lingerTimer.cancel(false);
+            this.lingerTimer = null;
+        }
+        this.lingerExpired = false;
+    }
+
+    /**
+     * holds a batch back while this follower is catching up and the catch up budget of the leader is
+     * spent, the timer sends it once the budget is back.
+     *
+     * @return true if the batch waits
+     */
+    private boolean throttle(final long nextSendingIndex, final long bytes) {
+        final ReplicationScheduler scheduler = this.options.getReplicationScheduler();
+        if (scheduler == null) {
+            return false;
+        }
+        final long lastLogIndex = this.options.getLogManager().getLastLogIndex();
+        final ReplicatorGroup group = this.options.getReplicatorGroup();
+        // a follower of unknown standing counts as needed
+        final boolean quorumNeeded = group == null || group.isNeededForQuorum(this.options.getPeerId(), lastLogIndex);
+        this.catchingUp = scheduler.isCatchingUp(lastLogIndex - nextSendingIndex, quorumNeeded);
+        if (!this.catchingUp) {
+            return false;
+        }
+        if (this.throttleTimer != null) {
+            return true;
+        }
+        final long delayMs = scheduler.acquireCatchup(this.options.getPeerId(), bytes);
+        if (delayMs <= 0) {
+            return false;
+        }
+        this.throttleTimer = this.timerManger.schedule(() -> submit(() -> {
+            this.throttleTimer = null;
+            sendEntries();
+        }), delayMs, TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    /**
+     * probes again after a heartbeat interval, the follower then tells how far it fetched.
+     */
+    private void probeLater() {
+        if (this.probeTimer != null) {
+            return;
+        }
+        this.probeTimer = this.timerManger.schedule(() -> submit(() -> {
+            this.probeTimer = null;
+            sendEmptyEntries(false, null);
+        }), this.options.getDynamicHeartBeatTimeoutMs(), TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelProbe() {
+        if (this.probeTimer != null) {
+            this.probeTimer.cancel(false);
+            this.probeTimer = null;
+        }
+    }
+
+    private void cancelThrottle() {
+        if (this.throttleTimer != null) {
+            this.throttleTimer.cancel(false);
+            this.throttleTimer = null;
+        }
+    }
+
+    private static int sizeOf(final LogEntry entry) {
+        return entry.getData() == null ? 0 : entry.getData().remaining();
+    }
+
+    /**
+     * Sends the next fragment of an entry larger than maxBodySize, so one entry never becomes one
+     * giant frame. A fragment that does not complete the entry counts no entry in flight, so the
+     * next one waits for its ack: fragments reach the follower in order.
+     */
+    private boolean sendFragment(final AppendEntriesRequest request, final LogEntry entry, final int maxBodySize) {
+        final long index = entry.getId().getIndex();
+        if (this.fragmentIndex != index) {
+            this.fragmentIndex = index;
+            this.fragmentOffset = 0;
+        }
+        final ByteBuffer data = entry.getDataView();
+        final int totalSize = data.remaining();
+        final int len = Math.min(Math.max(1, maxBodySize), totalSize - this.fragmentOffset);
+        data.position(data.position() + this.fragmentOffset);
+        data.limit(data.position() + len);
+        final OutLogEntry fragment = OutLogEntry.getInstance(entry);
+        fragment.setData(data.slice());
+        fragment.setTotalSize(totalSize);
+        fragment.setFragmentOffset(this.fragmentOffset);
+        LOG.debug("send fragment {} of entry {}", fragment, entry.getId());
+        request.setOutEntries(Collections.singletonList(fragment));
+        sendAppendEntries(request, index, fragment.isPartial() ? 0 : 1);
+        return true;
+    }
+
+    private void sendAppendEntries(final AppendEntriesRequest request, final long startLogIndex, final int entriesSize) {
+        request.setCompressor(selectCompressor(request.getOutEntries()));
+        final ReplicationScheduler scheduler = this.options.getReplicationScheduler();
+        if (scheduler != null) {
+            long bytes = 0;
+            for (OutLogEntry entry : request.getOutEntries()) {
+                bytes += entry.getDataSize();
+            }
+            scheduler.onSent(this.options.getPeerId(), bytes, this.catchingUp);
+        }
+        this.lastSentCommittedIndex = Math.max(this.lastSentCommittedIndex, request.getCommittedIndex());
         final long monotonicSendTimeMs = Utils.monotonicMs();
         final int seq = getAndIncrementReqSeq();
         CompletableFuture future = this.rpcClient.appendEntries(this.options.getPeerId(), request, new ResponseCallbackAdapter() {
             @Override
             public void run(Status status) {
-                onAppendEntriesReturned(Replicator.this.self, status, request, (AppendEntriesResponse) getResponse(), seq, monotonicSendTimeMs);
+                final AppendEntriesResponse response = status.isOk() ? (AppendEntriesResponse) getResponse() : null;
+                submit(() -> onAppendEntriesReturned(status, request, response, seq, monotonicSendTimeMs));
             }
         });
-        addFlying(RequestType.AppendEntries, nextSendingIndex, entries.size(), seq, future);
-        return true;
+        addFlying(RequestType.AppendEntries, startLogIndex, entriesSize, seq, future);
     }
 
-    private boolean prepareEntry(long nextSendIndex, int offset, List<OutLogEntry> entries) {
-        long logIndex = nextSendIndex + offset;
-        LogEntry entry = this.options.getLogManager().getEntry(logIndex);
-        if (entry == null) {
-            return false;
+    /**
+     * entries the follower received with the request, a partial fragment brings none.
+     */
+    private static int completeEntriesCount(final AppendEntriesRequest request) {
+        final List<OutLogEntry> entries = request.getOutEntries();
+        if (entries != null && entries.size() == 1 && entries.get(0).isPartial()) {
+            return 0;
         }
-        entries.add(OutLogEntry.getInstance(entry));
-        LOG.info("entry log index: {}, entries size: {}", entry.getId(), entries.size());
-        return true;
+        return request.getEntriesCount();
+    }
+
+    private void resetFragment() {
+        this.fragmentIndex = -1;
+        this.fragmentOffset = 0;
+    }
+
+    /**
+     * compress only when the follower can decode the configured codec and the payload is large enough.
+     */
+    private CompressorType selectCompressor(List<OutLogEntry> entries) {
+        final CompressorType compressor = this.options.getRaftOptions().getCompressor();
+        if (compressor == null || compressor == CompressorType.NONE || (this.peerCompressors & compressor.mask()) == 0) {
+            return CompressorType.NONE;
+        }
+        long bytes = 0;
+        for (OutLogEntry entry : entries) {
+            bytes += entry.getDataSize();
+        }
+        return bytes >= this.options.getRaftOptions().getCompressThresholdBytes() ? compressor : CompressorType.NONE;
+    }
+
+    /**
+     * 0 if the replicator is destroyed.
+     */
+    public static long getNextIndex(final ObjectLock<Replicator> lock) {
+        final Replicator r = lock.getData();
+        if (r == null) {
+            return 0L;
+        }
+        return r.nextIndex;
+    }
+
+    /**
+     * 0 if the replicator is destroyed or nothing is matched yet.
+     */
+    public static long getMatchIndex(final ObjectLock<Replicator> lock) {
+        final Replicator r = lock.getData();
+        if (r == null) {
+            return 0L;
+        }
+        return r.matchId.getIndex();
+    }
+
+    /**
+     * null if the replicator is destroyed.
+     */
+    public static ReplicatorType getReplicatorType(final ObjectLock<Replicator> lock) {
+        final Replicator r = lock.getData();
+        if (r == null) {
+            return null;
+        }
+        return r.options.getReplicatorType();
     }
 
     public static long getLastRpcSendTimestamp(final ObjectLock<Replicator> lock) {
@@ -622,9 +1228,30 @@ public class Replicator {
         return r.lastRpcSendTimestamp;
     }
 
+    /**
+     * AppendEntries the replicator may keep in flight now, 0 if it is destroyed.
+     */
+    public static int getFlowWindow(final ObjectLock<Replicator> lock) {
+        final Replicator r = lock.getData();
+        if (r == null) {
+            return 0;
+        }
+        return r.flowWindow.limit();
+    }
+
     public static void stop(ObjectLock<Replicator> self) {
-        Replicator r = self.lock();
-        try {
+        final Replicator r = self.getData();
+        if (r == null) {
+            return;
+        }
+        r.destroyed = true;
+        // events already queued are dropped as well, submit checks destroyed when they run. The
+        // cleanup bypasses submit, it runs once the mailbox reaches it.
+        r.mailbox.execute(() -> {
+            if (r.waitId > -1) {
+                r.options.getLogManager().removeWaiter(r.waitId);
+                r.waitId = -1;
+            }
             for (final FlyingAppendEntries inflight : r.appendEntriesInFly) {
                 if (inflight != r.fiying) {
                     if (inflight.future != null) {
@@ -632,14 +1259,20 @@ public class Replicator {
                     }
                 }
             }
-            r.heartbeatTimer.cancel(true);
+            if (r.heartbeatCoalesced) {
+                HeartbeatCoalescer.getInstance().unregister(self, r.options.getPeerId());
+            }
+            if (r.heartbeatTimer != null) {
+                r.heartbeatTimer.cancel(true);
+            }
+            r.cancelLinger();
+            r.cancelThrottle();
+            r.cancelProbe();
+            r.releaseReader();
             if (r.heartbeatInFly != null) {
                 r.heartbeatInFly.cancel(true);
             }
-        } finally {
-            self.unlock();
-        }
-
+        });
     }
 
 }
@@ -0,0 +1,77 @@
+package com.hongframe.raft.core;
+
+import com.hongframe.raft.option.RaftOptions;
+import com.hongframe.raft.util.NamedThreadFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executors shared by the replicators of all the nodes of the process, so hundreds of groups still
+ * run their mailboxes and log reads on a few threads. A node acquires them on init and releases them
+ * on shutdown, the last release shuts them down. The pools grow to the largest
+ * {@link RaftOptions#getReplicatorThreads()} and {@link RaftOptions#getReplicatorLogReadThreads()}
+ * asked by their nodes.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 19:00
+ */
+public final class ReplicatorExecutors {
+
+    private static ReplicatorExecutors instance;
+
+    private final ThreadPoolExecutor replicatorExecutor;
+    private final ThreadPoolExecutor logReadExecutor;
+    private int refs;
+
+    private ReplicatorExecutors() {
+        this.replicatorExecutor = newPool(1, "Raft-Replicator");
+        this.logReadExecutor = newPool(1, "Raft-Replicator-LogReader");
+    }
+
+    private static ThreadPoolExecutor newPool(int threads, String name) {
+        return new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                new NamedThreadFactory(name, true));
+    }
+
+    private static void grow(ThreadPoolExecutor executor, int threads) {
+        if (threads > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(threads);
+            executor.setCorePoolSize(threads);
+        }
+    }
+
+    public static synchronized ReplicatorExecutors acquire(RaftOptions options) {
+        if (instance == null) {
+            instance = new ReplicatorExecutors();
+        }
+        grow(instance.replicatorExecutor, Math.max(1, options.getReplicatorThreads()));
+        grow(instance.logReadExecutor, Math.max(1, options.getReplicatorLogReadThreads()));
+        instance.refs++;
+        return instance;
+    }
+
+    /**
+     * the queued tasks still run after the last release, the stopped replicators clean up in them.
+     */
+    public static synchronized void release(ReplicatorExecutors executors) {
+        if (--executors.refs > 0) {
+            return;
+        }
+        executors.replicatorExecutor.shutdown();
+        executors.logReadExecutor.shutdown();
+        if (instance == executors) {
+            instance = null;
+        }
+    }
+
+    public Executor getReplicatorExecutor() {
+        return replicatorExecutor;
+    }
+
+    public Executor getLogReadExecutor() {
+        return logReadExecutor;
+    }
+}
@@ -23,6 +23,7 @@ public class ReplicatorGroupImpl implements ReplicatorGroup {
     private NodeId nodeId;
     private ReplicatorGroupOptions options;
     private ReplicatorOptions replicatorOptions;
+    private ReplicationScheduler replicationScheduler;
 
     @Override
     public boolean init(NodeId nodeId, ReplicatorGroupOptions options) {
@@ -42,13 +43,33 @@ public class ReplicatorGroupImpl implements ReplicatorGroup {
         this.replicatorOptions.setBallotBox(this.options.getBallotBox());
         this.replicatorOptions.setRaftOptions(this.options.getRaftOptions());
         this.replicatorOptions.setSnapshotStorage(this.options.getSnapshotStorage());
+        this.replicationScheduler = new ReplicationScheduler(this.options.getRaftOptions());
+        this.replicatorOptions.setReplicationScheduler(this.replicationScheduler);
+        this.replicatorOptions.setReplicatorGroup(this);
+        this.replicatorOptions.setReplicatorExecutor(this.options.getReplicatorExecutor());
+        this.replicatorOptions.setLogReadExecutor(this.options.getLogReadExecutor());
+        if (this.options.getBallotBox() != null) {
+            this.options.getBallotBox().addCommitListener(this::onCommitted);
+        }
         return true;
     }
 
+    private void onCommitted(long lastCommittedIndex) {
+        for (ObjectLock<Replicator> lock : this.replicatorMap.values()) {
+            Replicator.notifyCommitted(lock, lastCommittedIndex);
+        }
+    }
+
     @Override
     public boolean addReplicator(PeerId peer) {
+        return addReplicator(peer, ReplicatorType.Follower);
+    }
+
+    @Override
+    public boolean addReplicator(PeerId peer, ReplicatorType replicatorType) {
         ReplicatorOptions ro = this.replicatorOptions.copy();
         ro.setPeerId(peer);
+        ro.setReplicatorType(replicatorType);
         return replicatorMap.put(peer, Replicator.start(ro)) == null;
     }
 
@@ -90,6 +111,58 @@ public class ReplicatorGroupImpl implements ReplicatorGroup {
         return false;
     }
 
+    @Override
+    public long getLowestNeededIndex(long floor) {
+        long lowest = Long.MAX_VALUE;
+        for (ObjectLock<Replicator> lock : this.replicatorMap.values()) {
+            if (Replicator.getReplicatorType(lock) == null) {
+                continue;
+            }
+            // nextIndex runs ahead of the acks, only the matched log is known to be on the follower
+            final long neededIndex = Replicator.getMatchIndex(lock) + 1;
+            if (neededIndex >= floor && neededIndex < lowest) {
+                lowest = neededIndex;
+            }
+        }
+        return lowest;
+    }
+
+    @Override
+    public long getLowestMatchIndex() {
+        long lowest = Long.MAX_VALUE;
+        for (ObjectLock<Replicator> lock : this.replicatorMap.values()) {
+            final ReplicatorType type = Replicator.getReplicatorType(lock);
+            if (type != null && type.isFollower()) {
+                lowest = Math.min(lowest, Replicator.getMatchIndex(lock));
+            }
+        }
+        return lowest;
+    }
+
+    @Override
+    public boolean isNeededForQuorum(PeerId peer, long lastLogIndex) {
+        final ObjectLock<Replicator> self = this.replicatorMap.get(peer);
+        final ReplicatorType selfType = self == null ? null : Replicator.getReplicatorType(self);
+        if (selfType == null || !selfType.isFollower()) {
+            return false;
+        }
+        final long lagEntries = this.options.getRaftOptions().getCatchupLagEntries();
+        // the leader votes and is up to date
+        int voters = 1;
+        int upToDate = 1;
+        for (Map.Entry<PeerId, ObjectLock<Replicator>> entry : this.replicatorMap.entrySet()) {
+            final ReplicatorType type = Replicator.getReplicatorType(entry.getValue());
+            if (type == null || !type.isFollower()) {
+                continue;
+            }
+            voters++;
+            if (!entry.getKey().equals(peer) && lastLogIndex - Replicator.getMatchIndex(entry.getValue()) <= lagEntries) {
+                upToDate++;
+            }
+        }
+        return upToDate < voters / 2 + 1;
+    }
+
     @Override
     public boolean stopAll() {
         final List<ObjectLock<Replicator>> rids = new ArrayList<>(this.replicatorMap.values());
@@ -105,4 +178,9 @@ public class ReplicatorGroupImpl implements ReplicatorGroup {
     public boolean contains(PeerId peer) {
         return false;
     }
+
+    @Override
+    public ReplicationScheduler getReplicationScheduler() {
+        return this.replicationScheduler;
+    }
 }
@@ -12,6 +12,8 @@ public class LogEntry implements Serializable {
     private LogId id = new LogId(0, 0);
     private List<PeerId> peers;
     private List<PeerId> oldPeers;
+    private List<PeerId> learners;
+    private List<PeerId> oldLearners;
     private ByteBuffer data;
 
     public EntryType getType() {
@@ -46,10 +48,34 @@ public class LogEntry implements Serializable {
         this.oldPeers = oldPeers;
     }
 
+    public List<PeerId> getLearners() {
+        return learners;
+    }
+
+    public void setLearners(List<PeerId> learners) {
+        this.learners = learners;
+    }
+
+    public List<PeerId> getOldLearners() {
+        return oldLearners;
+    }
+
+    public void setOldLearners(List<PeerId> oldLearners) {
+        this.oldLearners = oldLearners;
+    }
+
     public ByteBuffer getData() {
         return data;
     }
 
+    /**
+     * read-only view of the payload with its own position, shares the content with the entry. Only
+     * saves the copies inside the node, the netty transport still copies the payload out of its frame.
+     */
+    public ByteBuffer getDataView() {
+        return this.data == null ? null : this.data.asReadOnlyBuffer();
+    }
+
     public void setData(ByteBuffer data) {
         this.data = data;
     }
@@ -60,8 +86,10 @@ public class LogEntry implements Serializable {
         logEntry.setId(out.getId());
         logEntry.setPeers(out.getPeers());
         logEntry.setOldPeers(out.getOldPeers());
-        if(out.getData() != null && out.getData().length > 0) {
-            logEntry.setData(ByteBuffer.wrap(out.getData()));
+        logEntry.setLearners(out.getLearners());
+        logEntry.setOldLearners(out.getOldLearners());
+        if(out.getData() != null && out.getData().hasRemaining()) {
+            logEntry.setData(out.getData());
         }
         return logEntry;
     }
@@ -1,6 +1,7 @@
 package com.hongframe.raft.entity.codec.proto;
 
 import com.google.protobuf.ByteString;
+import com.google.protobuf.CodedInputStream;
 import com.google.protobuf.InvalidProtocolBufferException;
 import com.hongframe.raft.entity.EntryType;
 import com.hongframe.raft.entity.LogEntry;
@@ -9,7 +10,6 @@ import com.hongframe.raft.entity.codec.LogEntryDecoder;
 import com.hongframe.raft.util.AsciiStringUtil;
 import com.hongframe.raft.util.Utils;
 
-import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -27,7 +27,10 @@ public class ProtoLogEntryDecoder implements LogEntryDecoder {
     @Override
     public LogEntry decode(byte[] bs) {
         try {
-            LogOutter.LogEntry lle = LogOutter.LogEntry.parseFrom(bs);
+            // the payload aliases bs instead of being copied out of it
+            final CodedInputStream input = CodedInputStream.newInstance(bs);
+            input.enableAliasing(true);
+            LogOutter.LogEntry lle = LogOutter.LogEntry.parseFrom(input);
 
             final LogEntry log = new LogEntry();
             log.setType(EntryType.get(lle.getType()));
@@ -48,28 +51,25 @@ public class ProtoLogEntryDecoder implements LogEntryDecoder {
                 }
                 log.setOldPeers(peers);
             }
+            if (lle.getLearnersCount() > 0) {
+                final List<PeerId> peers = new ArrayList<>(lle.getLearnersCount());
+                for (final ByteString bstring : lle.getLearnersList()) {
+                    peers.add(Utils.getPeerId(AsciiStringUtil.unsafeDecode(bstring)));
+                }
+                log.setLearners(peers);
+            }
+            if (lle.getOldLearnersCount() > 0) {
+                final List<PeerId> peers = new ArrayList<>(lle.getOldLearnersCount());
+                for (final ByteString bstring : lle.getOldLearnersList()) {
+                    peers.add(Utils.getPeerId(AsciiStringUtil.unsafeDecode(bstring)));
+                }
+                log.setOldLearners(peers);
+            }
             final ByteString data = lle.getData();
             if (!data.isEmpty()) {
-                log.setData(ByteBuffer.wrap(data.toByteArray()));
+                log.setData(data.asReadOnlyByteBuffer());
             }
 
-
-//            if (lle.getLearnersCount() > 0) {
-//                final List<PeerId> peers = new ArrayList<>(lle.getLearnersCount());
-//                for (final ByteString bstring : lle.getLearnersList()) {
-//                    peers.add(JRaftUtils.getPeerId(AsciiStringUtil.unsafeDecode(bstring)));
-//                }
-//                log.setLearners(peers);
-//            }
-//
-//            if (lle.getOldLearnersCount() > 0) {
-//                final List<PeerId> peers = new ArrayList<>(lle.getOldLearnersCount());
-//                for (final ByteString bstring : lle.getOldLearnersList()) {
-//                    peers.add(JRaftUtils.getPeerId(AsciiStringUtil.unsafeDecode(bstring)));
-//                }
-//                log.setOldLearners(peers);
-//            }
-
             return log;
         } catch (InvalidProtocolBufferException e) {
             e.printStackTrace();
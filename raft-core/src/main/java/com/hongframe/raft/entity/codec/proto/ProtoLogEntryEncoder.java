@@ -1,6 +1,7 @@
 package com.hongframe.raft.entity.codec.proto;
 
 import com.google.protobuf.ByteString;
+import com.google.protobuf.UnsafeByteOperations;
 import com.hongframe.raft.entity.LogEntry;
 import com.hongframe.raft.entity.LogId;
 import com.hongframe.raft.entity.PeerId;
@@ -9,7 +10,6 @@ import com.hongframe.raft.util.AsciiStringUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.nio.ByteBuffer;
 import java.util.Collection;
 import java.util.List;
 
@@ -45,10 +45,19 @@ public class ProtoLogEntryEncoder implements LogEntryEncoder {
             encodeOldPeers(builder, oldPeers);
         }
 
+        final List<PeerId> learners = log.getLearners();
+        if (hasPeers(learners)) {
+            encodeLearners(builder, learners);
+        }
+
+        final List<PeerId> oldLearners = log.getOldLearners();
+        if (hasPeers(oldLearners)) {
+            encodeOldLearners(builder, oldLearners);
+        }
+
         if(log.getData() != null) {
-            byte[] bs = log.getData().array();
-            builder.setData(ByteString.copyFrom(log.getData()));
-            log.setData(ByteBuffer.wrap(bs));
+            // wraps the payload, it is only copied once into the encoded bytes
+            builder.setData(UnsafeByteOperations.unsafeWrap(log.getDataView()));
         } else {
             builder.setData(ByteString.EMPTY);
         }
@@ -73,4 +82,18 @@ public class ProtoLogEntryEncoder implements LogEntryEncoder {
             builder.addOldPeers(ByteString.copyFrom(AsciiStringUtil.unsafeEncode(peers.get(i).toString())));
         }
     }
+
+    private void encodeLearners(final LogOutter.LogEntry.Builder builder, final List<PeerId> learners) {
+        final int size = learners.size();
+        for (int i = 0; i < size; i++) {
+            builder.addLearners(ByteString.copyFrom(AsciiStringUtil.unsafeEncode(learners.get(i).toString())));
+        }
+    }
+
+    private void encodeOldLearners(final LogOutter.LogEntry.Builder builder, final List<PeerId> learners) {
+        final int size = learners.size();
+        for (int i = 0; i < size; i++) {
+            builder.addOldLearners(ByteString.copyFrom(AsciiStringUtil.unsafeEncode(learners.get(i).toString())));
+        }
+    }
 }
@@ -31,6 +31,17 @@ public class NodeOptions {
 
     private boolean filterBeforeCopyRemote = false;
 
+    /**
+     * a witness votes and persists the log but never applies it to the state machine, never takes a
+     * snapshot and never becomes leader.
+     */
+    private boolean witness = false;
+
+    /**
+     * committed entries a witness keeps, the older ones are dropped.
+     */
+    private int witnessRetainedLogEntries = 1024;
+
     public int getLeaderLeaseTimeRatio() {
         return leaderLeaseTimeRatio;
     }
@@ -43,6 +54,22 @@ public class NodeOptions {
         this.leaderLeaseTimeRatio = leaderLeaseTimeRatio;
     }
 
+    public boolean isWitness() {
+        return witness;
+    }
+
+    public void setWitness(boolean witness) {
+        this.witness = witness;
+    }
+
+    public int getWitnessRetainedLogEntries() {
+        return witnessRetainedLogEntries;
+    }
+
+    public void setWitnessRetainedLogEntries(int witnessRetainedLogEntries) {
+        this.witnessRetainedLogEntries = witnessRetainedLogEntries;
+    }
+
     public boolean isFilterBeforeCopyRemote() {
         return filterBeforeCopyRemote;
     }
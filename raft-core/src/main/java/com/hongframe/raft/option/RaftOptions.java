@@ -1,17 +1,62 @@
 package com.hongframe.raft.option;
 
+import com.hongframe.raft.rpc.compress.CompressorType;
+import com.hongframe.raft.util.Utils;
+
 /**
  * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
  * @version create time: 2020-04-16 01:41
  */
 public class RaftOptions {
 
+    /**
+     * payload bytes of the entries batched in one AppendEntries, a batch closes at this size or at
+     * maxEntriesSize entries, whichever comes first.
+     */
     private int maxByteCountPerRpc = 128 * 1024;
 
     private int maxEntriesSize = 1024;
 
+    /**
+     * how long an under filled batch waits for more entries while other AppendEntries are in flight,
+     * 0 sends it at once.
+     */
+    private int appendEntriesLingerMs = 1;
+
+    /**
+     * a follower further behind than this many entries is catching up.
+     */
+    private int catchupLagEntries = 4096;
+
+    /**
+     * payload bytes per second shared by the catching up followers of a leader, 0 for no limit.
+     * The followers of the quorum are never throttled.
+     */
+    private long catchupBytesPerSecond = 0;
+
+    /**
+     * entries kept behind a snapshot while a follower still needs them, so it replays the log instead
+     * of installing the snapshot. 0 together with logRetentionBytes truncates as soon as the snapshot
+     * is done.
+     */
+    private long logRetentionEntries = 0;
+
+    /**
+     * the same window in bytes, estimated from the average size of the entries written, the smaller
+     * of the two windows applies.
+     */
+    private long logRetentionBytes = 0;
+
+    /**
+     * payload bytes of one AppendEntries, a larger entry is replicated in fragments of this size.
+     */
     private int maxBodySize = 512 * 1024;
 
+    /**
+     * largest entry a follower reassembles from fragments, a larger total size is refused.
+     */
+    private int maxEntrySize = 64 * 1024 * 1024;
+
     private int maxElectionDelayMs = 1000;
 
     private int electionHeartbeatFactor = 10;
@@ -26,12 +71,82 @@ public class RaftOptions {
 
     private int maxReplicatorFlyingMsgs = 256;
 
+    /**
+     * AppendEntries in flight to a follower at first, the window then adapts between 1 and
+     * maxReplicatorFlyingMsgs to the round trip and the credit of the follower.
+     */
+    private int initialReplicatorFlyingMsgs = 16;
+
+    /**
+     * threads running the replicators, shared by the nodes of the process, they never read the log from the disk.
+     */
+    private int replicatorThreads = Math.max(2, Utils.CPUS);
+
+    /**
+     * threads reading the log for the replicators, shared by the nodes of the process.
+     */
+    private int replicatorLogReadThreads = 2;
+
     private boolean sync = true;
 
     private boolean syncMeta = false;
 
     private ReadOnlyOption readOnlyOptions = ReadOnlyOption.ReadOnlySafe;
 
+    /**
+     * one heartbeat rpc per remote endpoint for all the groups of the process, every node of the
+     * cluster must support {@code batchAppendEntries}.
+     */
+    private boolean coalesceHeartbeats = false;
+
+    /**
+     * a follower more than catchupLagEntries behind fetches the committed log from another follower,
+     * the leader only sends it the tail. Every node of the cluster must support {@code fetchLog}.
+     */
+    private boolean fetchLogFromPeers = false;
+
+    /**
+     * codec of the AppendEntries payloads, only used when the follower advertises it.
+     */
+    private CompressorType compressor = CompressorType.NONE;
+
+    /**
+     * payloads smaller than this are sent uncompressed.
+     */
+    private int compressThresholdBytes = 4 * 1024;
+
+    public CompressorType getCompressor() {
+        return compressor;
+    }
+
+    public void setCompressor(CompressorType compressor) {
+        this.compressor = compressor;
+    }
+
+    public int getCompressThresholdBytes() {
+        return compressThresholdBytes;
+    }
+
+    public void setCompressThresholdBytes(int compressThresholdBytes) {
+        this.compressThresholdBytes = compressThresholdBytes;
+    }
+
+    public boolean isCoalesceHeartbeats() {
+        return coalesceHeartbeats;
+    }
+
+    public void setCoalesceHeartbeats(boolean coalesceHeartbeats) {
+        this.coalesceHeartbeats = coalesceHeartbeats;
+    }
+
+    public boolean isFetchLogFromPeers() {
+        return fetchLogFromPeers;
+    }
+
+    public void setFetchLogFromPeers(boolean fetchLogFromPeers) {
+        this.fetchLogFromPeers = fetchLogFromPeers;
+    }
+
     public ReadOnlyOption getReadOnlyOptions() {
         return readOnlyOptions;
     }
@@ -80,6 +195,46 @@ public class RaftOptions {
         this.maxByteCountPerRpc = maxByteCountPerRpc;
     }
 
+    public int getAppendEntriesLingerMs() {
+        return appendEntriesLingerMs;
+    }
+
+    public void setAppendEntriesLingerMs(int appendEntriesLingerMs) {
+        this.appendEntriesLingerMs = appendEntriesLingerMs;
+    }
+
+    public int getCatchupLagEntries() {
+        return catchupLagEntries;
+    }
+
+    public void setCatchupLagEntries(int catchupLagEntries) {
+        this.catchupLagEntries = catchupLagEntries;
+    }
+
+    public long getCatchupBytesPerSecond() {
+        return catchupBytesPerSecond;
+    }
+
+    public void setCatchupBytesPerSecond(long catchupBytesPerSecond) {
+        this.catchupBytesPerSecond = catchupBytesPerSecond;
+    }
+
+    public long getLogRetentionEntries() {
+        return logRetentionEntries;
+    }
+
+    public void setLogRetentionEntries(long logRetentionEntries) {
+        this.logRetentionEntries = logRetentionEntries;
+    }
+
+    public long getLogRetentionBytes() {
+        return logRetentionBytes;
+    }
+
+    public void setLogRetentionBytes(long logRetentionBytes) {
+        this.logRetentionBytes = logRetentionBytes;
+    }
+
     public int getMaxEntriesSize() {
         return maxEntriesSize;
     }
@@ -96,6 +251,14 @@ public class RaftOptions {
         this.maxBodySize = maxBodySize;
     }
 
+    public int getMaxEntrySize() {
+        return maxEntrySize;
+    }
+
+    public void setMaxEntrySize(int maxEntrySize) {
+        this.maxEntrySize = maxEntrySize;
+    }
+
     public int getMaxElectionDelayMs() {
         return maxElectionDelayMs;
     }
@@ -112,6 +275,30 @@ public class RaftOptions {
         this.electionHeartbeatFactor = electionHeartbeatFactor;
     }
 
+    public int getInitialReplicatorFlyingMsgs() {
+        return initialReplicatorFlyingMsgs;
+    }
+
+    public void setInitialReplicatorFlyingMsgs(int initialReplicatorFlyingMsgs) {
+        this.initialReplicatorFlyingMsgs = initialReplicatorFlyingMsgs;
+    }
+
+    public int getReplicatorThreads() {
+        return replicatorThreads;
+    }
+
+    public void setReplicatorThreads(int replicatorThreads) {
+        this.replicatorThreads = replicatorThreads;
+    }
+
+    public int getReplicatorLogReadThreads() {
+        return replicatorLogReadThreads;
+    }
+
+    public void setReplicatorLogReadThreads(int replicatorLogReadThreads) {
+        this.replicatorLogReadThreads = replicatorLogReadThreads;
+    }
+
     public int getMaxReplicatorFlyingMsgs() {
         return maxReplicatorFlyingMsgs;
     }
@@ -7,6 +7,11 @@ package com.hongframe.raft.option;
 public enum ReadOnlyOption {
 
     ReadOnlySafe,
-    ReadOnlyLeaseBased;
+    ReadOnlyLeaseBased,
+    /**
+     * served locally up to the commit index this node knows, without asking the leader. Reads may
+     * miss the latest writes, used by the learners that take the read load off the voters.
+     */
+    ReadOnlyStale;
 
 }
@@ -7,6 +7,8 @@ import com.hongframe.raft.rpc.RpcClient;
 import com.hongframe.raft.storage.LogManager;
 import com.hongframe.raft.storage.snapshot.SnapshotStorage;
 
+import java.util.concurrent.Executor;
+
 public class ReplicatorGroupOptions {
 
     private int heartbeatTimeoutMs;
@@ -18,6 +20,8 @@ public class ReplicatorGroupOptions {
     private Scheduler timerManager;
     private BallotBox ballotBox;
     private RaftOptions raftOptions;
+    private Executor replicatorExecutor;
+    private Executor logReadExecutor;
 
     public SnapshotStorage getSnapshotStorage() {
         return snapshotStorage;
@@ -35,6 +39,22 @@ public class ReplicatorGroupOptions {
         this.ballotBox = ballotBox;
     }
 
+    public Executor getReplicatorExecutor() {
+        return replicatorExecutor;
+    }
+
+    public void setReplicatorExecutor(Executor replicatorExecutor) {
+        this.replicatorExecutor = replicatorExecutor;
+    }
+
+    public Executor getLogReadExecutor() {
+        return logReadExecutor;
+    }
+
+    public void setLogReadExecutor(Executor logReadExecutor) {
+        this.logReadExecutor = logReadExecutor;
+    }
+
     public RaftOptions getRaftOptions() {
         return raftOptions;
     }
@@ -1,7 +1,10 @@
 package com.hongframe.raft.option;
 
+import com.hongframe.raft.ReplicatorGroup;
 import com.hongframe.raft.core.BallotBox;
 import com.hongframe.raft.core.NodeImpl;
+import com.hongframe.raft.core.ReplicationScheduler;
+import com.hongframe.raft.core.ReplicatorType;
 import com.hongframe.raft.core.Scheduler;
 import com.hongframe.raft.entity.PeerId;
 import com.hongframe.raft.rpc.RpcClient;
@@ -9,6 +12,8 @@ import com.hongframe.raft.storage.LogManager;
 import com.hongframe.raft.storage.snapshot.SnapshotStorage;
 import com.hongframe.raft.util.Copiable;
 
+import java.util.concurrent.Executor;
+
 public class ReplicatorOptions implements Copiable<ReplicatorOptions> {
 
     private int dynamicHeartBeatTimeoutMs;
@@ -24,6 +29,17 @@ public class ReplicatorOptions implements Copiable<ReplicatorOptions> {
     private RpcClient rpcClient;
     private Scheduler timerManager;
     private RaftOptions raftOptions;
+    private ReplicationScheduler replicationScheduler;
+    private ReplicatorType replicatorType = ReplicatorType.Follower;
+    private ReplicatorGroup replicatorGroup;
+    /**
+     * runs the mailboxes of the replicators.
+     */
+    private Executor replicatorExecutor;
+    /**
+     * reads the log, which may hit the disk, off the replicator threads.
+     */
+    private Executor logReadExecutor;
 
     public ReplicatorOptions() {
     }
@@ -48,8 +64,54 @@ public class ReplicatorOptions implements Copiable<ReplicatorOptions> {
 
     @Override
     public ReplicatorOptions copy() {
-        return new ReplicatorOptions(this.dynamicHeartBeatTimeoutMs, this.electionTimeoutMs, this.groupId, this.serverId,
+        final ReplicatorOptions options = new ReplicatorOptions(this.dynamicHeartBeatTimeoutMs, this.electionTimeoutMs, this.groupId, this.serverId,
                 this.peerId, this.logManager, this.node, this.term, this.snapshotStorage, this.rpcClient, this.timerManager, this.ballotBox, this.raftOptions);
+        options.setReplicationScheduler(this.replicationScheduler);
+        options.setReplicatorType(this.replicatorType);
+        options.setReplicatorGroup(this.replicatorGroup);
+        options.setReplicatorExecutor(this.replicatorExecutor);
+        options.setLogReadExecutor(this.logReadExecutor);
+        return options;
+    }
+
+    public ReplicatorType getReplicatorType() {
+        return replicatorType;
+    }
+
+    public void setReplicatorType(ReplicatorType replicatorType) {
+        this.replicatorType = replicatorType;
+    }
+
+    public Executor getReplicatorExecutor() {
+        return replicatorExecutor;
+    }
+
+    public void setReplicatorExecutor(Executor replicatorExecutor) {
+        this.replicatorExecutor = replicatorExecutor;
+    }
+
+    public Executor getLogReadExecutor() {
+        return logReadExecutor;
+    }
+
+    public void setLogReadExecutor(Executor logReadExecutor) {
+        this.logReadExecutor = logReadExecutor;
+    }
+
+    public ReplicatorGroup getReplicatorGroup() {
+        return replicatorGroup;
+    }
+
+    public void setReplicatorGroup(ReplicatorGroup replicatorGroup) {
+        this.replicatorGroup = replicatorGroup;
+    }
+
+    public ReplicationScheduler getReplicationScheduler() {
+        return replicationScheduler;
+    }
+
+    public void setReplicationScheduler(ReplicationScheduler replicationScheduler) {
+        this.replicationScheduler = replicationScheduler;
     }
 
     public SnapshotStorage getSnapshotStorage() {
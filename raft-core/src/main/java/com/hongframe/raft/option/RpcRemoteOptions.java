@@ -2,6 +2,10 @@ package com.hongframe.raft.option;
 
 import com.hongframe.raft.rpc.core.*;
 import com.hongframe.raft.rpc.impl.*;
+import com.hongframe.raft.rpc.transport.RaftTransportFactory;
+import com.hongframe.raft.rpc.transport.RpcLane;
+import com.hongframe.raft.rpc.transport.dubbo.DubboTransportFactory;
+import com.hongframe.raft.util.Utils;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -22,6 +26,83 @@ public class RpcRemoteOptions {
     private List<Class> userServicesInterface = new ArrayList<>();
     private List<Object> userServicesImpl = new ArrayList<>();
 
+    /**
+     * transport of the raft services, client and user services always use dubbo.
+     */
+    private RaftTransportFactory transportFactory = new DubboTransportFactory();
+
+    private int rpcTimeoutMs = 1000;
+
+    /**
+     * how long a leader watch of {@link com.hongframe.raft.RouteTable#subscribe} is held by the server,
+     * must stay below the timeout of the client services.
+     */
+    private int leaderWatchTimeoutMs = 5000;
+
+    /**
+     * connections to one remote endpoint, shared by every group and service of the process. The requests
+     * of one group to one peer always take the same connection, so they arrive in order.
+     */
+    private int connectionsPerEndpoint = 1;
+
+    /**
+     * AppendEntries of all the groups sharing a client transport are written together per endpoint,
+     * each one still gets its own response. Only the netty transport writes a batch at once, the dubbo
+     * and local transports send every request on its own and ignore this option.
+     */
+    private boolean appendEntriesBatchEnabled = false;
+
+    private int appendEntriesBatchWindowMs = 1;
+
+    private int appendEntriesBatchMaxCount = 64;
+
+    private int appendEntriesBatchMaxBytes = 512 * 1024;
+
+    /**
+     * a native transport listens on the dubbo port plus this offset.
+     */
+    private int nettyPortOffset = 1000;
+
+    private int nettyIoThreads = Utils.CPUS;
+
+    private int nettyServerThreads = Utils.CPUS * 2;
+
+    private int nettyMaxFrameSize = 16 * 1024 * 1024;
+
+    private int nettyConnectTimeoutMs = 3000;
+
+    /**
+     * threads of every {@link RpcLane} of the server.
+     */
+    private int electionLaneThreads = 2;
+
+    private int heartbeatLaneThreads = 2;
+
+    private int appendLaneThreads = Utils.CPUS * 2;
+
+    private int snapshotLaneThreads = 2;
+
+    private int clientLaneThreads = Utils.CPUS;
+
+    /**
+     * size of the dubbo protocol pool, user services run on it with their dubbo {@code RpcContext}.
+     */
+    private int userServiceThreads = 200;
+
+    private int laneQueueCapacity = 10000;
+
+    /**
+     * injected on every link of the in-JVM transport, may be changed at runtime.
+     */
+    private volatile int localDelayMs = 0;
+
+    /**
+     * 0 means unlimited.
+     */
+    private volatile long localBandwidthBytesPerSec = 0;
+
+    private volatile double localDropRate = 0;
+
     public RpcRemoteOptions() {
         init();
     }
@@ -87,4 +168,203 @@ public class RpcRemoteOptions {
     public List<Class> getServicesMock() {
         return servicesMock;
     }
+
+    public RaftTransportFactory getTransportFactory() {
+        return transportFactory;
+    }
+
+    public void setTransportFactory(RaftTransportFactory transportFactory) {
+        this.transportFactory = transportFactory;
+    }
+
+    public int getRpcTimeoutMs() {
+        return rpcTimeoutMs;
+    }
+
+    public void setRpcTimeoutMs(int rpcTimeoutMs) {
+        this.rpcTimeoutMs = rpcTimeoutMs;
+    }
+
+    public int getLeaderWatchTimeoutMs() {
+        return leaderWatchTimeoutMs;
+    }
+
+    public void setLeaderWatchTimeoutMs(int leaderWatchTimeoutMs) {
+        this.leaderWatchTimeoutMs = leaderWatchTimeoutMs;
+    }
+
+    public int getConnectionsPerEndpoint() {
+        return connectionsPerEndpoint;
+    }
+
+    public void setConnectionsPerEndpoint(int connectionsPerEndpoint) {
+        this.connectionsPerEndpoint = connectionsPerEndpoint;
+    }
+
+    public boolean isAppendEntriesBatchEnabled() {
+        return appendEntriesBatchEnabled;
+    }
+
+    public void setAppendEntriesBatchEnabled(boolean appendEntriesBatchEnabled) {
+        this.appendEntriesBatchEnabled = appendEntriesBatchEnabled;
+    }
+
+    public int getAppendEntriesBatchWindowMs() {
+        return appendEntriesBatchWindowMs;
+    }
+
+    public void setAppendEntriesBatchWindowMs(int appendEntriesBatchWindowMs) {
+        this.appendEntriesBatchWindowMs = appendEntriesBatchWindowMs;
+    }
+
+    public int getAppendEntriesBatchMaxCount() {
+        return appendEntriesBatchMaxCount;
+    }
+
+    public void setAppendEntriesBatchMaxCount(int appendEntriesBatchMaxCount) {
+        this.appendEntriesBatchMaxCount = appendEntriesBatchMaxCount;
+    }
+
+    public int getAppendEntriesBatchMaxBytes() {
+        return appendEntriesBatchMaxBytes;
+    }
+
+    public void setAppendEntriesBatchMaxBytes(int appendEntriesBatchMaxBytes) {
+        this.appendEntriesBatchMaxBytes = appendEntriesBatchMaxBytes;
+    }
+
+    public int getNettyPortOffset() {
+        return nettyPortOffset;
+    }
+
+    public void setNettyPortOffset(int nettyPortOffset) {
+        this.nettyPortOffset = nettyPortOffset;
+    }
+
+    public int getNettyIoThreads() {
+        return nettyIoThreads;
+    }
+
+    public void setNettyIoThreads(int nettyIoThreads) {
+        this.nettyIoThreads = nettyIoThreads;
+    }
+
+    public int getNettyServerThreads() {
+        return nettyServerThreads;
+    }
+
+    public void setNettyServerThreads(int nettyServerThreads) {
+        this.nettyServerThreads = nettyServerThreads;
+    }
+
+    public int getNettyMaxFrameSize() {
+        return nettyMaxFrameSize;
+    }
+
+    public void setNettyMaxFrameSize(int nettyMaxFrameSize) {
+        this.nettyMaxFrameSize = nettyMaxFrameSize;
+    }
+
+    public int getNettyConnectTimeoutMs() {
+        return nettyConnectTimeoutMs;
+    }
+
+    public void setNettyConnectTimeoutMs(int nettyConnectTimeoutMs) {
+        this.nettyConnectTimeoutMs = nettyConnectTimeoutMs;
+    }
+
+    public int getLocalDelayMs() {
+        return localDelayMs;
+    }
+
+    public void setLocalDelayMs(int localDelayMs) {
+        this.localDelayMs = localDelayMs;
+    }
+
+    public long getLocalBandwidthBytesPerSec() {
+        return localBandwidthBytesPerSec;
+    }
+
+    public void setLocalBandwidthBytesPerSec(long localBandwidthBytesPerSec) {
+        this.localBandwidthBytesPerSec = localBandwidthBytesPerSec;
+    }
+
+    public double getLocalDropRate() {
+        return localDropRate;
+    }
+
+    public void setLocalDropRate(double localDropRate) {
+        this.localDropRate = localDropRate;
+    }
+
+    public int getLaneThreads(RpcLane lane) {
+        switch (lane) {
+            case ELECTION:
+                return electionLaneThreads;
+            case HEARTBEAT:
+                return heartbeatLaneThreads;
+            case APPEND:
+                return appendLaneThreads;
+            case SNAPSHOT:
+                return snapshotLaneThreads;
+            default:
+                return clientLaneThreads;
+        }
+    }
+
+    public int getElectionLaneThreads() {
+        return electionLaneThreads;
+    }
+
+    public void setElectionLaneThreads(int electionLaneThreads) {
+        this.electionLaneThreads = electionLaneThreads;
+    }
+
+    public int getHeartbeatLaneThreads() {
+        return heartbeatLaneThreads;
+    }
+
+    public void setHeartbeatLaneThreads(int heartbeatLaneThreads) {
+        this.heartbeatLaneThreads = heartbeatLaneThreads;
+    }
+
+    public int getAppendLaneThreads() {
+        return appendLaneThreads;
+    }
+
+    public void setAppendLaneThreads(int appendLaneThreads) {
+        this.appendLaneThreads = appendLaneThreads;
+    }
+
+    public int getSnapshotLaneThreads() {
+        return snapshotLaneThreads;
+    }
+
+    public void setSnapshotLaneThreads(int snapshotLaneThreads) {
+        this.snapshotLaneThreads = snapshotLaneThreads;
+    }
+
+    public int getClientLaneThreads() {
+        return clientLaneThreads;
+    }
+
+    public void setClientLaneThreads(int clientLaneThreads) {
+        this.clientLaneThreads = clientLaneThreads;
+    }
+
+    public int getUserServiceThreads() {
+        return userServiceThreads;
+    }
+
+    public void setUserServiceThreads(int userServiceThreads) {
+        this.userServiceThreads = userServiceThreads;
+    }
+
+    public int getLaneQueueCapacity() {
+        return laneQueueCapacity;
+    }
+
+    public void setLaneQueueCapacity(int laneQueueCapacity) {
+        this.laneQueueCapacity = laneQueueCapacity;
+    }
 }
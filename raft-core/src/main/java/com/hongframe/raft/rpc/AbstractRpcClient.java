@@ -4,25 +4,35 @@ import com.hongframe.raft.callback.Invokeable;
 import com.hongframe.raft.entity.Message;
 import com.hongframe.raft.entity.PeerId;
 import com.hongframe.raft.option.RpcRemoteOptions;
+import com.hongframe.raft.rpc.codec.RaftSerialization;
+import com.hongframe.raft.rpc.transport.EndpointConnectionRegistry;
 import com.hongframe.raft.util.Utils;
 import org.apache.commons.beanutils.BeanUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.ThreadUtils;
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.config.ApplicationConfig;
 import org.apache.dubbo.config.ReferenceConfig;
+import org.apache.dubbo.config.RegistryConfig;
 import org.apache.dubbo.rpc.RpcContext;
 import org.apache.dubbo.rpc.service.GenericService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 public abstract class AbstractRpcClient {
 
     private static final Logger LOG = LoggerFactory.getLogger(AbstractRpcClient.class);
 
+    private static final ApplicationConfig APPLICATION_CONFIG = new ApplicationConfig("dubbo-demo-api-consumer");
+
+    private static final RegistryConfig REGISTRY_CONFIG = new RegistryConfig("N/A");
+
     private RpcRemoteOptions rpcRemoteOptions;
 
     private Map<PeerId, Map<String, ReferenceConfig>> references = new ConcurrentHashMap<>();
@@ -50,23 +60,57 @@ public abstract class AbstractRpcClient {
         return invokeAsync(findReferenceConfig(peerId, request), request, callback);
     }
 
-    public Message invoke(ReferenceConfig reference, Message request) {
+    /**
+     * Invokes a raft or client service through its typed stub, {@code call} receives the stub and
+     * performs the actual method call. The returned future completes with the raw result.
+     */
+    protected CompletableFuture<?> invokeAsync(PeerId peerId, Message request, Invokeable callback,
+                                               Function<Object, Object> call) {
+        CompletableFuture<?> future = null;
         try {
-            Map<String, String> res = (Map<String, String>) invokeAsync(reference, request, null, false).get();
-            Object o = Class.forName(res.get("class")).newInstance();
-            BeanUtils.populate(o, res);
-            return (Message) o;
+            call.apply(findReferenceConfig(peerId, request).get());
+            future = RpcContext.getContext().getCompletableFuture();
+            future.whenComplete((result, e) -> {
+                if (e == null) {
+                    callback.invoke(toResponse(result));
+                } else {
+                    callback.invoke(new RpcRequests.Response(new RpcRequests.ErrorResponse(10001, e.toString())));
+                    LOG.error("channel {} -> {} fail", request.getPeerId(), request.method(), e);
+                }
+            });
         } catch (Exception e) {
-            LOG.error("get message fail {}", request.getPeerId(), e);
+            Utils.runInThread(() -> callback.invoke(new RpcRequests.Response(new RpcRequests.ErrorResponse(10001, e.toString()))));
         }
-        return null;
+        return future;
     }
 
-    protected static CompletableFuture<?> invokeAsync(ReferenceConfig reference, Message request, Invokeable callBack) {
-        return invokeAsync(reference, request, callBack, true);
+    protected RpcRequests.Response invoke(PeerId peerId, Message request, Function<Object, Object> call) {
+        try {
+            call.apply(findReferenceConfig(peerId, request).get());
+            return toResponse(RpcContext.getContext().getCompletableFuture().get());
+        } catch (Exception e) {
+            LOG.error("invoke {} -> {} fail", request.getPeerId(), request.method(), e);
+            return new RpcRequests.Response(new RpcRequests.ErrorResponse(10001, e.toString()));
+        }
+    }
+
+    public static RpcRequests.Response toResponse(Object result) {
+        if (result instanceof RpcRequests.Response) {
+            return (RpcRequests.Response) result;
+        }
+        if (result instanceof RpcRequests.ErrorResponse) {
+            return new RpcRequests.Response((RpcRequests.ErrorResponse) result);
+        }
+        if (result instanceof Message) {
+            return new RpcRequests.Response((Message) result);
+        }
+        return new RpcRequests.Response(new RpcRequests.ErrorResponse(10001, "unexpected response: " + result));
     }
 
-    private static CompletableFuture<?> invokeAsync(ReferenceConfig reference, Message request, Invokeable callBack, boolean isAsync) {
+    /**
+     * Generic invocation, only used for user services whose classes the raft side does not know.
+     */
+    protected static CompletableFuture<?> invokeAsync(ReferenceConfig reference, Message request, Invokeable callBack) {
         GenericService genericService;
         CompletableFuture<?> future = null;
         try {
@@ -74,28 +118,22 @@ public abstract class AbstractRpcClient {
             genericService.$invoke(request.method(), new String[]{request.getName()},
                     new Object[]{request});
             future = RpcContext.getContext().getCompletableFuture();
-            if (isAsync) {
-                future.whenComplete((response, e) -> {
-                    Map<String, Object> map = (Map) response;
-                    if (e == null) {
-                        try {
-                            callBack.invoke(mapToResponse(map));
-                        } catch (Exception e1) {
-                            callBack.invoke(new RpcRequests.Response(new RpcRequests.ErrorResponse(10001, e1.toString())));
-                            LOG.error("invoke {} -> {} fail", request.getPeerId(), request.method(), e1);
-                        }
-                    } else {
-                        callBack.invoke(new RpcRequests.Response(new RpcRequests.ErrorResponse(10001, e.toString())));
-                        LOG.error("channel {} -> {} fail", request.getPeerId(), request.method(), e);
+            future.whenComplete((response, e) -> {
+                Map<String, Object> map = (Map) response;
+                if (e == null) {
+                    try {
+                        callBack.invoke(mapToResponse(map));
+                    } catch (Exception e1) {
+                        callBack.invoke(new RpcRequests.Response(new RpcRequests.ErrorResponse(10001, e1.toString())));
+                        LOG.error("invoke {} -> {} fail", request.getPeerId(), request.method(), e1);
                     }
-                });
-            }
+                } else {
+                    callBack.invoke(new RpcRequests.Response(new RpcRequests.ErrorResponse(10001, e.toString())));
+                    LOG.error("channel {} -> {} fail", request.getPeerId(), request.method(), e);
+                }
+            });
         } catch (Exception e) {
-            if (isAsync) {
-                Utils.runInThread(() -> callBack.invoke(new RpcRequests.Response(new RpcRequests.ErrorResponse(10001, e.toString()))));
-            } else {
-                callBack.invoke(new RpcRequests.Response(new RpcRequests.ErrorResponse(10001, e.toString())));
-            }
+            Utils.runInThread(() -> callBack.invoke(new RpcRequests.Response(new RpcRequests.ErrorResponse(10001, e.toString()))));
         }
         return future;
     }
@@ -123,6 +161,47 @@ public abstract class AbstractRpcClient {
 
     protected abstract Map<String, ReferenceConfig> addReferenceConfig(PeerId peerId);
 
+    /**
+     * References are shared by every client of the process through {@link EndpointConnectionRegistry},
+     * dubbo multiplexes them over {@link RpcRemoteOptions#getConnectionsPerEndpoint()} connections.
+     */
+    protected ReferenceConfig<?> getSharedReferenceConfig(PeerId peerId, Class<?> serviceInterface, boolean generic, int timeoutMs) {
+        final int connections = this.rpcRemoteOptions.getConnectionsPerEndpoint();
+        final String name = generic ? serviceInterface.getName() + "#generic" : serviceInterface.getName();
+        return EndpointConnectionRegistry.getInstance().getOrCreate(peerId.getEndpoint(), name, endpoint -> {
+            ReferenceConfig<?> reference = createReferenceConfig(peerId, serviceInterface, generic, connections);
+            if (timeoutMs > 0) {
+                reference.setTimeout(timeoutMs);
+            }
+            return reference;
+        }, ReferenceConfig::destroy);
+    }
+
+    /**
+     * @param generic     typed stubs use the compact raft serialization, generic ones stay on hessian2
+     * @param connections connections shared by all the references to the endpoint
+     */
+    protected static ReferenceConfig<?> createReferenceConfig(PeerId peerId, Class<?> serviceInterface, boolean generic, int connections) {
+        URL url = new URL("dubbo", peerId.getEndpoint().getIp(), peerId.getEndpoint().getPort(), serviceInterface.getName());
+        ReferenceConfig<?> reference = new ReferenceConfig<>();
+        reference.setApplication(APPLICATION_CONFIG);
+        reference.setRegistry(REGISTRY_CONFIG);
+        reference.setInterface(serviceInterface);
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put("shareconnections", String.valueOf(connections));
+        url = url.addParameter("shareconnections", connections);
+        if (generic) {
+            reference.setGeneric("true");
+        } else {
+            url = url.addParameter("serialization", RaftSerialization.NAME);
+            parameters.put("serialization", RaftSerialization.NAME);
+        }
+        reference.setParameters(parameters);
+        reference.setUrl(url.toFullString());
+        reference.setAsync(true);
+        return reference;
+    }
+
     protected ReferenceConfig findReferenceConfig(PeerId peerId, Message message) {
         if (StringUtils.isNotBlank(message.seviceName())) {
             return references.get(peerId).get(message.seviceName());
@@ -0,0 +1,13 @@
+package com.hongframe.raft.rpc;
+
+/**
+ * Transport neutral handle of a response that is written after the service method returned.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 21:05
+ */
+public interface AsyncResponse {
+
+    void write(Object response);
+
+}
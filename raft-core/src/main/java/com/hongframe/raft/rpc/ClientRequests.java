@@ -44,9 +44,78 @@ public class ClientRequests {
         }
     }
 
+    /**
+     * Long poll of the leader of a group: answered with a {@link GetLeaderResponse} as soon as the
+     * responder knows a leader newer than {@link #knownTerm}, or with the current leader after
+     * {@link #timeoutMs}.
+     */
+    public final static class WatchLeaderRequest implements Message {
+
+        private String groupId;
+        private long knownTerm = -1;
+        private int timeoutMs;
+
+        public void setGroupId(String groupId) {
+            this.groupId = groupId;
+        }
+
+        public long getKnownTerm() {
+            return knownTerm;
+        }
+
+        public void setKnownTerm(long knownTerm) {
+            this.knownTerm = knownTerm;
+        }
+
+        public int getTimeoutMs() {
+            return timeoutMs;
+        }
+
+        public void setTimeoutMs(int timeoutMs) {
+            this.timeoutMs = timeoutMs;
+        }
+
+        @Override
+        public String getPeerId() {
+            return null;
+        }
+
+        @Override
+        public String getGroupId() {
+            return this.groupId;
+        }
+
+        @Override
+        public String seviceName() {
+            return ClientRequestRpc.class.getSimpleName();
+        }
+
+        @Override
+        public String method() {
+            return "watchLeader";
+        }
+
+        @Override
+        public String getName() {
+            return getClass().getName();
+        }
+    }
+
     public final static class GetLeaderResponse implements Message {
 
         private String leaderId;
+        /**
+         * term of the leader as known by the responder, newer answers win in the route table.
+         */
+        private long term = -1;
+
+        public long getTerm() {
+            return term;
+        }
+
+        public void setTerm(long term) {
+            this.term = term;
+        }
 
         public String getLeaderId() {
             return leaderId;
@@ -1,18 +1,16 @@
 package com.hongframe.raft.rpc;
 
+import com.hongframe.raft.Status;
+import com.hongframe.raft.callback.Invokeable;
 import com.hongframe.raft.entity.PeerId;
 import com.hongframe.raft.option.RpcRemoteOptions;
 import com.hongframe.raft.rpc.ClientRequests.*;
-import org.apache.dubbo.common.URL;
-import org.apache.dubbo.config.ApplicationConfig;
+import com.hongframe.raft.rpc.core.ClientRequestRpc;
 import org.apache.dubbo.config.ReferenceConfig;
-import org.apache.dubbo.config.RegistryConfig;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 public class ClientService extends AbstractRpcClient {
 
@@ -21,25 +19,66 @@ public class ClientService extends AbstractRpcClient {
     }
 
     public GetLeaderResponse getLeader(PeerId peerId, GetLeaderRequest request) {
-        return (GetLeaderResponse) invoke(findReferenceConfig(peerId, request), request);
+        RpcRequests.Response response = invoke(peerId, request, service -> ((ClientRequestRpc) service).getLeader(request));
+        if (response.getData() instanceof GetLeaderResponse) {
+            return (GetLeaderResponse) response.getData();
+        }
+        return null;
+    }
+
+    /**
+     * completes with null when the peer fails or does not answer a {@link GetLeaderResponse}.
+     */
+    public CompletableFuture<GetLeaderResponse> getLeaderAsync(PeerId peerId, GetLeaderRequest request) {
+        final CompletableFuture<GetLeaderResponse> future = new CompletableFuture<>();
+        if (!connect(peerId)) {
+            future.complete(null);
+            return future;
+        }
+        invokeAsync(peerId, request, new Invokeable() {
+            @Override
+            public void invoke(RpcRequests.Response response) {
+                future.complete(response.getData() instanceof GetLeaderResponse ? (GetLeaderResponse) response.getData() : null);
+            }
+
+            @Override
+            public void run(Status status) {
+            }
+        }, service -> ((ClientRequestRpc) service).getLeader(request));
+        return future;
+    }
+
+    /**
+     * long poll of {@link ClientRequestRpc#watchLeader}, completes with null when the peer fails
+     * or knows no leader.
+     */
+    public CompletableFuture<GetLeaderResponse> watchLeaderAsync(PeerId peerId, WatchLeaderRequest request) {
+        final CompletableFuture<GetLeaderResponse> future = new CompletableFuture<>();
+        if (!connect(peerId)) {
+            future.complete(null);
+            return future;
+        }
+        invokeAsync(peerId, request, new Invokeable() {
+            @Override
+            public void invoke(RpcRequests.Response response) {
+                future.complete(response.getData() instanceof GetLeaderResponse ? (GetLeaderResponse) response.getData() : null);
+            }
+
+            @Override
+            public void run(Status status) {
+            }
+        }, service -> ((ClientRequestRpc) service).watchLeader(request));
+        return future;
     }
 
     @Override
     protected Map<String, ReferenceConfig> addReferenceConfig(PeerId peerId) {
         Map<String, ReferenceConfig> referenceConfigMap = new HashMap<>();
-        List<Class> classes = this.getRpcRemoteOptions().getClientServicesInterface();
-        classes.addAll(this.getRpcRemoteOptions().getUserServicesInterface());
-        for (Class c : classes) {
-            URL url = new URL("dubbo", peerId.getEndpoint().getIp(), peerId.getEndpoint().getPort(), c.getName());
-            ReferenceConfig<?> reference = new ReferenceConfig<>();
-            reference.setApplication(new ApplicationConfig("dubbo-demo-api-consumer"));
-            reference.setRegistry(new RegistryConfig("N/A"));
-            reference.setInterface(c);
-            reference.setUrl(url.toFullString());
-            reference.setGeneric("true");
-            reference.setAsync(true);
-            reference.setTimeout(10000);
-            referenceConfigMap.put(c.getSimpleName(), reference);
+        for (Class c : this.getRpcRemoteOptions().getClientServicesInterface()) {
+            referenceConfigMap.put(c.getSimpleName(), getSharedReferenceConfig(peerId, c, false, 10000));
+        }
+        for (Class c : this.getRpcRemoteOptions().getUserServicesInterface()) {
+            referenceConfigMap.put(c.getSimpleName(), getSharedReferenceConfig(peerId, c, true, 10000));
         }
 
         return referenceConfigMap;
@@ -0,0 +1,85 @@
+package com.hongframe.raft.rpc;
+
+import com.hongframe.raft.rpc.RpcRequests.*;
+import org.apache.dubbo.rpc.AsyncContext;
+import org.apache.dubbo.rpc.RpcContext;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Replacement of {@link RpcContext#startAsync()} for the raft services, so the same service
+ * implementation can be driven by dubbo or by a native transport.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 21:05
+ */
+public final class RaftRpcContext {
+
+    private static final ThreadLocal<Context> CURRENT = new ThreadLocal<>();
+
+    private static class Context {
+        private final AsyncResponse response;
+        private boolean async;
+
+        private Context(AsyncResponse response) {
+            this.response = response;
+        }
+    }
+
+    private static class DubboAsyncResponse implements AsyncResponse {
+        private final AsyncContext asyncContext;
+
+        private DubboAsyncResponse(AsyncContext asyncContext) {
+            this.asyncContext = asyncContext;
+        }
+
+        @Override
+        public void write(Object response) {
+            this.asyncContext.signalContextSwitch();
+            this.asyncContext.write(response);
+        }
+    }
+
+    private RaftRpcContext() {
+    }
+
+    /**
+     * Must be called on the thread that entered the service method, the returned value of
+     * that method is ignored afterwards.
+     */
+    public static AsyncResponse startAsync() {
+        final Context context = CURRENT.get();
+        if (context == null) {
+            return new DubboAsyncResponse(RpcContext.startAsync());
+        }
+        context.async = true;
+        return context.response;
+    }
+
+    /**
+     * Used by the native transports: runs {@code call} with {@code response} bound to the current
+     * thread and writes its result unless the service switched to async mode. Calls may be nested,
+     * the outer binding is restored afterwards.
+     */
+    public static void invoke(final AsyncResponse response, final Callable<Object> call) {
+        final Context previous = CURRENT.get();
+        final Context context = new Context(response);
+        CURRENT.set(context);
+        Object result;
+        try {
+            result = call.call();
+        } catch (final Throwable t) {
+            context.async = false;
+            result = new Response<>(new ErrorResponse(10001, t.toString()));
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+        if (!context.async) {
+            response.write(result);
+        }
+    }
+}
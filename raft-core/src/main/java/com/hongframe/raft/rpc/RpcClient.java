@@ -3,67 +3,87 @@ package com.hongframe.raft.rpc;
 import com.hongframe.raft.callback.Invokeable;
 import com.hongframe.raft.entity.PeerId;
 import com.hongframe.raft.option.RpcRemoteOptions;
-import org.apache.dubbo.common.URL;
-import org.apache.dubbo.config.ApplicationConfig;
-import org.apache.dubbo.config.ReferenceConfig;
-import org.apache.dubbo.config.RegistryConfig;
+import com.hongframe.raft.rpc.transport.AppendEntriesBatcher;
+import com.hongframe.raft.rpc.transport.RaftClientTransport;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 import java.util.concurrent.CompletableFuture;
 
 import static com.hongframe.raft.rpc.RpcRequests.*;
 
 /**
+ * Sends the raft requests through the {@link RaftClientTransport} selected by
+ * {@link RpcRemoteOptions#getTransportFactory()}.
+ *
  * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
  * @version create time: 2020-04-15 19:31
  */
-public class RpcClient extends AbstractRpcClient {
+public class RpcClient {
 
     private static final Logger LOG = LoggerFactory.getLogger(RpcClient.class);
 
+    private RpcRemoteOptions rpcRemoteOptions;
+
+    private RaftClientTransport transport;
+
     public RpcClient(RpcRemoteOptions options) {
-        super(options);
+        this.rpcRemoteOptions = options;
+        this.transport = options.getTransportFactory().createClientTransport(options);
     }
 
     public void init(RpcRemoteOptions options) {
     }
 
+    public RpcRemoteOptions getRpcRemoteOptions() {
+        return rpcRemoteOptions;
+    }
+
+    public boolean connect(PeerId peerId) {
+        return this.transport.connect(peerId);
+    }
+
     public CompletableFuture<?> requestVote(PeerId peerId, RequestVoteRequest request, Invokeable callback) {
-        return invokeAsync(findReferenceConfig(peerId, request), request, callback);
+        return this.transport.invokeAsync(peerId, request, callback);
     }
 
     public CompletableFuture<?> appendEntries(PeerId peerId, AppendEntriesRequest request, Invokeable callback) {
-        return invokeAsync(findReferenceConfig(peerId, request), request, callback);
+        if (this.rpcRemoteOptions.isAppendEntriesBatchEnabled() && this.transport.isCoalescing()) {
+            return AppendEntriesBatcher.getInstance(this.transport).appendEntries(peerId, request, this.rpcRemoteOptions, callback);
+        }
+        return this.transport.invokeAsync(peerId, request, callback);
+    }
+
+    /**
+     * sent as is, bypassing the AppendEntries batching.
+     */
+    public CompletableFuture<?> batchAppendEntries(PeerId peerId, BatchAppendEntriesRequest request, Invokeable callback) {
+        return this.transport.invokeAsync(peerId, request, callback);
+    }
+
+    public CompletableFuture<?> heartbeats(PeerId peerId, HeartbeatVectorRequest request, Invokeable callback) {
+        return this.transport.invokeAsync(peerId, request, callback);
+    }
+
+    public CompletableFuture<?> fetchLog(PeerId peerId, FetchLogRequest request, Invokeable callback) {
+        return this.transport.invokeAsync(peerId, request, callback);
     }
 
     public CompletableFuture<?> readIndex(PeerId peerId, ReadIndexRequest request, Invokeable callback) {
-        return invokeAsync(findReferenceConfig(peerId, request), request, callback);
+        return this.transport.invokeAsync(peerId, request, callback);
     }
 
     public CompletableFuture<?> installSnapshot(PeerId peerId, InstallSnapshotRequest request, Invokeable callback) {
-        return invokeAsync(findReferenceConfig(peerId, request), request, callback);
+        return this.transport.invokeAsync(peerId, request, callback);
     }
 
-    protected Map<String, ReferenceConfig> addReferenceConfig(PeerId peerId) {
-        Map<String, ReferenceConfig> referenceConfigMap = new HashMap<>();
-        List<Class> classes = this.getRpcRemoteOptions().getServicesInterface();
-        for (Class c : classes) {
-            URL url = new URL("dubbo", peerId.getEndpoint().getIp(), peerId.getEndpoint().getPort(), c.getName());
-            ReferenceConfig<?> reference = new ReferenceConfig<>();
-            reference.setApplication(new ApplicationConfig("dubbo-demo-api-consumer"));
-            reference.setRegistry(new RegistryConfig("N/A"));
-            reference.setInterface(c);
-            reference.setUrl(url.toFullString());
-            reference.setGeneric("true");
-            reference.setAsync(true);
-            referenceConfigMap.put(c.getSimpleName(), reference);
-        }
+    public CompletableFuture<?> getFile(PeerId peerId, GetFileRequest request, Invokeable callback) {
+        return this.transport.invokeAsync(peerId, request, callback);
+    }
 
-        return referenceConfigMap;
+    public void shutdown() {
+        AppendEntriesBatcher.shutdown(this.transport);
+        this.transport.shutdown();
     }
 
 }
@@ -1,7 +1,9 @@
 package com.hongframe.raft.rpc;
 
+import com.hongframe.raft.Status;
 import com.hongframe.raft.entity.*;
 import com.hongframe.raft.rpc.core.*;
+import com.hongframe.raft.rpc.compress.CompressorType;
 
 import java.io.Serializable;
 import java.nio.ByteBuffer;
@@ -259,7 +261,17 @@ public class RpcRequests {
         private LogId id = new LogId(0, 0);
         private List<PeerId> peers;
         private List<PeerId> oldPeers;
-        private byte[] data;
+        private List<PeerId> learners;
+        private List<PeerId> oldLearners;
+        /**
+         * read-only view of the payload of the log entry, heap or direct, copied once into the frame.
+         */
+        private ByteBuffer data;
+        /**
+         * size of the whole payload when {@link #data} is only a fragment of it, 0 otherwise.
+         */
+        private int totalSize;
+        private int fragmentOffset;
 
         public EntryType getType() {
             return type;
@@ -293,23 +305,70 @@ public class RpcRequests {
             this.oldPeers = oldPeers;
         }
 
-        public byte[] getData() {
+        public List<PeerId> getLearners() {
+            return learners;
+        }
+
+        public void setLearners(List<PeerId> learners) {
+            this.learners = learners;
+        }
+
+        public List<PeerId> getOldLearners() {
+            return oldLearners;
+        }
+
+        public void setOldLearners(List<PeerId> oldLearners) {
+            this.oldLearners = oldLearners;
+        }
+
+        public ByteBuffer getData() {
             return data;
         }
 
-        public void setData(byte[] data) {
+        public void setData(ByteBuffer data) {
             this.data = data;
         }
 
+        public int getDataSize() {
+            return this.data == null ? 0 : this.data.remaining();
+        }
+
+        public int getTotalSize() {
+            return totalSize;
+        }
+
+        public void setTotalSize(int totalSize) {
+            this.totalSize = totalSize;
+        }
+
+        public int getFragmentOffset() {
+            return fragmentOffset;
+        }
+
+        public void setFragmentOffset(int fragmentOffset) {
+            this.fragmentOffset = fragmentOffset;
+        }
+
+        public boolean isFragment() {
+            return this.totalSize > 0;
+        }
+
+        /**
+         * a fragment that does not complete its entry, the entry is not received yet.
+         */
+        public boolean isPartial() {
+            return isFragment() && this.fragmentOffset + getDataSize() < this.totalSize;
+        }
+
         public static OutLogEntry getInstance(LogEntry entry) {
             OutLogEntry out = new OutLogEntry();
             out.setType(entry.getType());
             out.setId(entry.getId());
             out.setPeers(entry.getPeers());
             out.setOldPeers(entry.getOldPeers());
-            if (entry.getData() != null) {
-                out.setData(entry.getData().array());
-            }
+            out.setLearners(entry.getLearners());
+            out.setOldLearners(entry.getOldLearners());
+            out.setData(entry.getDataView());
             return out;
         }
 
@@ -318,6 +377,7 @@ public class RpcRequests {
             return "OutLogEntry{" +
                     "type=" + type +
                     ", id=" + id +
+                    (isFragment() ? ", fragment=" + fragmentOffset + "+" + getDataSize() + "/" + totalSize : "") +
                     '}';
         }
     }
@@ -333,11 +393,31 @@ public class RpcRequests {
         private List<LogEntry> entries;
         private List<OutLogEntry> outEntries;
         private Long committedIndex;
+        /**
+         * codec of the entries on the wire, the logical entries are not affected.
+         */
+        private CompressorType compressor = CompressorType.NONE;
+        /**
+         * handle of the target node issued by the receiver, see {@link AppendEntriesResponse#getNodeHandle()}.
+         * When set, groupId and peerId are not sent.
+         */
+        private long nodeHandle;
+        /**
+         * a heartbeat is served on its own lane and answered at once, not ordered with the appends.
+         */
+        private boolean heartbeat;
+        /**
+         * lowest match index of the voting followers, a witness keeps the log after it.
+         */
+        private Long lowestMatchIndex;
 
         @Override
         public String toString() {
             return "AppendEntriesRequest{" +
-                    "groupId='" + groupId + '\'' +
+                    "nodeHandle=" + nodeHandle +
+                    ", heartbeat=" + heartbeat +
+                    ", lowestMatchIndex=" + lowestMatchIndex +
+                    ", groupId='" + groupId + '\'' +
                     ", serverId='" + serverId + '\'' +
                     ", peerId='" + peerId + '\'' +
                     ", term=" + term +
@@ -345,9 +425,42 @@ public class RpcRequests {
                     ", preLogIndex=" + preLogIndex +
                     ", outEntries=" + outEntries +
                     ", committedIndex=" + committedIndex +
+                    ", compressor=" + compressor +
                     '}';
         }
 
+        public CompressorType getCompressor() {
+            return compressor;
+        }
+
+        public void setCompressor(CompressorType compressor) {
+            this.compressor = compressor;
+        }
+
+        public long getNodeHandle() {
+            return nodeHandle;
+        }
+
+        public void setNodeHandle(long nodeHandle) {
+            this.nodeHandle = nodeHandle;
+        }
+
+        public boolean isHeartbeat() {
+            return heartbeat;
+        }
+
+        public void setHeartbeat(boolean heartbeat) {
+            this.heartbeat = heartbeat;
+        }
+
+        public Long getLowestMatchIndex() {
+            return lowestMatchIndex;
+        }
+
+        public void setLowestMatchIndex(Long lowestMatchIndex) {
+            this.lowestMatchIndex = lowestMatchIndex;
+        }
+
         public List<OutLogEntry> getOutEntries() {
             return outEntries;
         }
@@ -448,6 +561,31 @@ public class RpcRequests {
         private long term;
         private Boolean success;
         private Long lastLogLast;
+        /**
+         * mask of the codecs the responder can decode, see {@link CompressorType#supportedMask()}.
+         */
+        private int compressors = CompressorType.supportedMask();
+        /**
+         * numeric handle of the responding node, echoed by the leader in the next requests.
+         */
+        private long nodeHandle;
+        /**
+         * AppendEntries the responder can still take, -1 if it does not say.
+         */
+        private int credit = -1;
+        /**
+         * on a log mismatch, the term of the responder at prevLogIndex, 0 if it has no entry there.
+         */
+        private long conflictTerm;
+        /**
+         * on a log mismatch, the first index of conflictTerm, or the end of the responder log when
+         * conflictTerm is 0. 0 if the responder gives no hint.
+         */
+        private long conflictIndex;
+        /**
+         * the responder is fetching the older entries from another follower, only the tail is wanted.
+         */
+        private boolean fetching;
 
         @Override
         public String toString() {
@@ -455,9 +593,63 @@ public class RpcRequests {
                     "term=" + term +
                     ", success=" + success +
                     ", lastLogLast=" + lastLogLast +
+                    ", compressors=" + compressors +
+                    ", nodeHandle=" + nodeHandle +
+                    ", credit=" + credit +
+                    ", conflictTerm=" + conflictTerm +
+                    ", conflictIndex=" + conflictIndex +
+                    ", fetching=" + fetching +
                     '}';
         }
 
+        public boolean isFetching() {
+            return fetching;
+        }
+
+        public void setFetching(boolean fetching) {
+            this.fetching = fetching;
+        }
+
+        public long getConflictTerm() {
+            return conflictTerm;
+        }
+
+        public void setConflictTerm(long conflictTerm) {
+            this.conflictTerm = conflictTerm;
+        }
+
+        public long getConflictIndex() {
+            return conflictIndex;
+        }
+
+        public void setConflictIndex(long conflictIndex) {
+            this.conflictIndex = conflictIndex;
+        }
+
+        public int getCredit() {
+            return credit;
+        }
+
+        public void setCredit(int credit) {
+            this.credit = credit;
+        }
+
+        public long getNodeHandle() {
+            return nodeHandle;
+        }
+
+        public void setNodeHandle(long nodeHandle) {
+            this.nodeHandle = nodeHandle;
+        }
+
+        public int getCompressors() {
+            return compressors;
+        }
+
+        public void setCompressors(int compressors) {
+            this.compressors = compressors;
+        }
+
         public long getTerm() {
             return term;
         }
@@ -493,6 +685,219 @@ public class RpcRequests {
         }
     }
 
+    /**
+     * AppendEntries of several groups sent to the same endpoint as one rpc, kept in sending order.
+     */
+    public static final class BatchAppendEntriesRequest implements Message {
+        private List<AppendEntriesRequest> requests;
+
+        public List<AppendEntriesRequest> getRequests() {
+            return requests;
+        }
+
+        public void setRequests(List<AppendEntriesRequest> requests) {
+            this.requests = requests;
+        }
+
+        @Override
+        public String seviceName() {
+            return AppendEntriesRpc.class.getSimpleName();
+        }
+
+        @Override
+        public String method() {
+            return "batchAppendEntries";
+        }
+
+        @Override
+        public String getName() {
+            return getClass().getName();
+        }
+
+        @Override
+        public String toString() {
+            return "BatchAppendEntriesRequest{" +
+                    "requests=" + (requests == null ? 0 : requests.size()) +
+                    '}';
+        }
+    }
+
+    /**
+     * responses[i] answers requests[i] of the {@link BatchAppendEntriesRequest}.
+     */
+    public static final class BatchAppendEntriesResponse implements Message {
+        private List<Response> responses;
+
+        public List<Response> getResponses() {
+            return responses;
+        }
+
+        public void setResponses(List<Response> responses) {
+            this.responses = responses;
+        }
+
+        @Override
+        public String toString() {
+            return "BatchAppendEntriesResponse{" +
+                    "responses=" + responses +
+                    '}';
+        }
+    }
+
+    /**
+     * heartbeats of the groups led from one process to one endpoint, a few numbers per group instead
+     * of a full AppendEntries each. Answered by a {@link BatchAppendEntriesResponse} in the same order.
+     */
+    public static final class HeartbeatVectorRequest implements Message {
+        /**
+         * leader of every group that does not name its own.
+         */
+        private String serverId;
+        private List<GroupHeartbeat> heartbeats;
+
+        public String getServerId() {
+            return serverId;
+        }
+
+        public void setServerId(String serverId) {
+            this.serverId = serverId;
+        }
+
+        public List<GroupHeartbeat> getHeartbeats() {
+            return heartbeats;
+        }
+
+        public void setHeartbeats(List<GroupHeartbeat> heartbeats) {
+            this.heartbeats = heartbeats;
+        }
+
+        @Override
+        public String seviceName() {
+            return AppendEntriesRpc.class.getSimpleName();
+        }
+
+        @Override
+        public String method() {
+            return "heartbeats";
+        }
+
+        @Override
+        public String getName() {
+            return getClass().getName();
+        }
+
+        @Override
+        public String toString() {
+            return "HeartbeatVectorRequest{" +
+                    "serverId='" + serverId + '\'' +
+                    ", heartbeats=" + (heartbeats == null ? 0 : heartbeats.size()) +
+                    '}';
+        }
+    }
+
+    /**
+     * one group of a {@link HeartbeatVectorRequest}. groupId and peerId are only set while the node
+     * handle is unknown, serverId only when it differs from the one of the vector.
+     */
+    public static final class GroupHeartbeat implements Serializable {
+        private long nodeHandle;
+        private String groupId;
+        private String peerId;
+        private String serverId;
+        private long term;
+        private long committedIndex;
+        private long prevLogIndex;
+        private long prevLogTerm;
+        private Long lowestMatchIndex;
+
+        public long getNodeHandle() {
+            return nodeHandle;
+        }
+
+        public void setNodeHandle(long nodeHandle) {
+            this.nodeHandle = nodeHandle;
+        }
+
+        public String getGroupId() {
+            return groupId;
+        }
+
+        public void setGroupId(String groupId) {
+            this.groupId = groupId;
+        }
+
+        public String getPeerId() {
+            return peerId;
+        }
+
+        public void setPeerId(String peerId) {
+            this.peerId = peerId;
+        }
+
+        public String getServerId() {
+            return serverId;
+        }
+
+        public void setServerId(String serverId) {
+            this.serverId = serverId;
+        }
+
+        public long getTerm() {
+            return term;
+        }
+
+        public void setTerm(long term) {
+            this.term = term;
+        }
+
+        public long getCommittedIndex() {
+            return committedIndex;
+        }
+
+        public void setCommittedIndex(long committedIndex) {
+            this.committedIndex = committedIndex;
+        }
+
+        public long getPrevLogIndex() {
+            return prevLogIndex;
+        }
+
+        public void setPrevLogIndex(long prevLogIndex) {
+            this.prevLogIndex = prevLogIndex;
+        }
+
+        public long getPrevLogTerm() {
+            return prevLogTerm;
+        }
+
+        public void setPrevLogTerm(long prevLogTerm) {
+            this.prevLogTerm = prevLogTerm;
+        }
+
+        public Long getLowestMatchIndex() {
+            return lowestMatchIndex;
+        }
+
+        public void setLowestMatchIndex(Long lowestMatchIndex) {
+            this.lowestMatchIndex = lowestMatchIndex;
+        }
+
+        @Override
+        public String toString() {
+            return "GroupHeartbeat{" +
+                    "nodeHandle=" + nodeHandle +
+                    ", groupId='" + groupId + '\'' +
+                    ", peerId='" + peerId + '\'' +
+                    ", serverId='" + serverId + '\'' +
+                    ", term=" + term +
+                    ", committedIndex=" + committedIndex +
+                    ", prevLogIndex=" + prevLogIndex +
+                    ", prevLogTerm=" + prevLogTerm +
+                    ", lowestMatchIndex=" + lowestMatchIndex +
+                    '}';
+        }
+    }
+
     public static final class RequestVoteResponse implements Message {
         private long term;
         private Boolean granted;
@@ -853,24 +1258,207 @@ public class RpcRequests {
         }
     }
 
+    /**
+     * asks a follower for committed entries of its log, so a lagging follower catches up from a
+     * peer instead of the leader.
+     */
+    public final static class FetchLogRequest implements Message {
+        private String groupId;
+        private String serverId;
+        private String peerId;
+        private long fromIndex;
+        private int maxCount;
+        private long maxBytes;
+        /**
+         * serve up to the last log index instead of the committed index, a replica about to campaign
+         * fetches the tail a witness acked.
+         */
+        private boolean includeUncommitted;
+
+        public void setGroupId(String groupId) {
+            this.groupId = groupId;
+        }
+
+        public String getServerId() {
+            return serverId;
+        }
+
+        public void setServerId(String serverId) {
+            this.serverId = serverId;
+        }
+
+        public void setPeerId(String peerId) {
+            this.peerId = peerId;
+        }
+
+        public long getFromIndex() {
+            return fromIndex;
+        }
+
+        public void setFromIndex(long fromIndex) {
+            this.fromIndex = fromIndex;
+        }
+
+        public int getMaxCount() {
+            return maxCount;
+        }
+
+        public void setMaxCount(int maxCount) {
+            this.maxCount = maxCount;
+        }
+
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        public void setMaxBytes(long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        public boolean isIncludeUncommitted() {
+            return includeUncommitted;
+        }
+
+        public void setIncludeUncommitted(boolean includeUncommitted) {
+            this.includeUncommitted = includeUncommitted;
+        }
+
+        @Override
+        public String seviceName() {
+            return AppendEntriesRpc.class.getSimpleName();
+        }
+
+        @Override
+        public String method() {
+            return "fetchLog";
+        }
+
+        @Override
+        public String getName() {
+            return getClass().getName();
+        }
+
+        @Override
+        public String getPeerId() {
+            return this.peerId;
+        }
+
+        @Override
+        public String getGroupId() {
+            return this.groupId;
+        }
+
+        @Override
+        public String toString() {
+            return "FetchLogRequest{" +
+                    "groupId='" + groupId + '\'' +
+                    ", serverId='" + serverId + '\'' +
+                    ", peerId='" + peerId + '\'' +
+                    ", fromIndex=" + fromIndex +
+                    ", maxCount=" + maxCount +
+                    ", maxBytes=" + maxBytes +
+                    ", includeUncommitted=" + includeUncommitted +
+                    '}';
+        }
+    }
+
+    public final static class FetchLogResponse implements Message {
+        private boolean success;
+        /**
+         * term of the responder at fromIndex - 1, the requester checks its log matches before appending.
+         */
+        private long prevLogTerm;
+        private long lastCommittedIndex;
+        private List<OutLogEntry> entries;
+
+        public boolean getSuccess() {
+            return success;
+        }
+
+        public void setSuccess(boolean success) {
+            this.success = success;
+        }
+
+        public long getPrevLogTerm() {
+            return prevLogTerm;
+        }
+
+        public void setPrevLogTerm(long prevLogTerm) {
+            this.prevLogTerm = prevLogTerm;
+        }
+
+        public long getLastCommittedIndex() {
+            return lastCommittedIndex;
+        }
+
+        public void setLastCommittedIndex(long lastCommittedIndex) {
+            this.lastCommittedIndex = lastCommittedIndex;
+        }
+
+        public List<OutLogEntry> getEntries() {
+            return entries;
+        }
+
+        public void setEntries(List<OutLogEntry> entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        public String toString() {
+            return "FetchLogResponse{" +
+                    "success=" + success +
+                    ", prevLogTerm=" + prevLogTerm +
+                    ", lastCommittedIndex=" + lastCommittedIndex +
+                    ", entries=" + (entries == null ? 0 : entries.size()) +
+                    '}';
+        }
+    }
+
     public final static class GetFileRequest implements Message {
         private long readerId;
         private String filename;
         private long count;
         private long offset;
         private boolean readPartly;
+        /**
+         * mask of the codecs the reader can decode.
+         */
+        private int compressors = CompressorType.supportedMask();
+        /**
+         * the peer reading the file.
+         */
+        private String peerId;
 
         @Override
         public String toString() {
             return "GetFileRequest{" +
-                    "readerId=" + readerId +
+                    "peerId='" + peerId + '\'' +
+                    ", readerId=" + readerId +
                     ", filename='" + filename + '\'' +
                     ", count=" + count +
                     ", offset=" + offset +
                     ", readPartly=" + readPartly +
+                    ", compressors=" + compressors +
                     '}';
         }
 
+        public int getCompressors() {
+            return compressors;
+        }
+
+        public void setCompressors(int compressors) {
+            this.compressors = compressors;
+        }
+
+        @Override
+        public String getPeerId() {
+            return peerId;
+        }
+
+        public void setPeerId(String peerId) {
+            this.peerId = peerId;
+        }
+
         @Override
         public String seviceName() {
             return GetFileRpc.class.getSimpleName();
@@ -931,6 +1519,40 @@ public class RpcRequests {
         private boolean eof;
         private byte[] data;
         private long readSize;
+        /**
+         * codec of the data on the wire, chosen by the responder from {@link GetFileRequest#getCompressors()}.
+         */
+        private CompressorType compressor = CompressorType.NONE;
+        /**
+         * the peer serving the file, and the one reading it echoed from {@link GetFileRequest#getPeerId()}.
+         */
+        private String serverId;
+        private String peerId;
+
+        public CompressorType getCompressor() {
+            return compressor;
+        }
+
+        public void setCompressor(CompressorType compressor) {
+            this.compressor = compressor;
+        }
+
+        public String getServerId() {
+            return serverId;
+        }
+
+        public void setServerId(String serverId) {
+            this.serverId = serverId;
+        }
+
+        @Override
+        public String getPeerId() {
+            return peerId;
+        }
+
+        public void setPeerId(String peerId) {
+            this.peerId = peerId;
+        }
 
         public boolean isEof() {
             return eof;
@@ -960,12 +1582,19 @@ public class RpcRequests {
     public final static class ErrorResponse implements Message {
         private Integer errorCode;
         private String errorMsg;
+        /**
+         * redirect hint of a {@link Status#NOT_LEADER} error: the leader known by the responder and its term.
+         */
+        private String leaderId;
+        private long term = -1;
 
         @Override
         public String toString() {
             return "ErrorResponse{" +
                     "errorCode=" + errorCode +
                     ", errorMsg='" + errorMsg + '\'' +
+                    ", leaderId='" + leaderId + '\'' +
+                    ", term=" + term +
                     '}';
         }
 
@@ -977,6 +1606,14 @@ public class RpcRequests {
             this.errorMsg = errorMsg;
         }
 
+        public ErrorResponse(Status status) {
+            this(status.getCode(), status.getErrorMsg());
+            if (status.getLeaderHint() != null) {
+                this.leaderId = status.getLeaderHint().toString();
+                this.term = status.getLeaderTerm();
+            }
+        }
+
         @Override
         public String getGroupId() {
             return null;
@@ -1003,6 +1640,22 @@ public class RpcRequests {
             this.errorMsg = errorMsg;
         }
 
+        public String getLeaderId() {
+            return leaderId;
+        }
+
+        public void setLeaderId(String leaderId) {
+            this.leaderId = leaderId;
+        }
+
+        public long getTerm() {
+            return term;
+        }
+
+        public void setTerm(long term) {
+            this.term = term;
+        }
+
     }
 
     public final static class Response<T extends Message> implements Message {
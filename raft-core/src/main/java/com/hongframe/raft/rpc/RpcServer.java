@@ -1,7 +1,12 @@
 package com.hongframe.raft.rpc;
 
 import com.hongframe.raft.option.RpcRemoteOptions;
+import com.hongframe.raft.rpc.codec.RaftSerialization;
 import com.hongframe.raft.rpc.core.RaftRpcService;
+import com.hongframe.raft.rpc.transport.LaneExecutors;
+import com.hongframe.raft.rpc.transport.RaftRequestDispatcher;
+import com.hongframe.raft.rpc.transport.RaftServerTransport;
+import com.hongframe.raft.rpc.transport.RpcLane;
 import com.hongframe.raft.util.Endpoint;
 import com.hongframe.raft.util.NamedThreadFactory;
 import org.apache.dubbo.config.ApplicationConfig;
@@ -13,7 +18,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
@@ -29,9 +36,17 @@ public class RpcServer {
 
     private DubboBootstrap dubboBootstrap;
 
+    private Endpoint endpoint;
+
+    private RaftServerTransport serverTransport;
+
+    private LaneExecutors lanes;
+
+    private boolean started;
 
     public RpcServer(Endpoint endpoint, RpcRemoteOptions options) {
         this.port = endpoint.getPort();
+        this.endpoint = endpoint;
         this.rpcRemoteOptions = options;
     }
 
@@ -39,18 +54,34 @@ public class RpcServer {
         this.rpcRemoteOptions.registerUserService(serviceInterface, serviceImpl);
     }
 
-    public void init() {
+    public synchronized void init() {
+        if (this.started) {
+            return;
+        }
+        this.started = true;
         List<ServiceConfig> services = new ArrayList<>();
         try {
+            // raft services are shared by every transport, they go out through the selected one
+            Map<Class, Object> raftServices = new HashMap<>();
             List<Class> servicesInterface = this.rpcRemoteOptions.getServicesInterface();
             List<Class> servicesImpl = this.rpcRemoteOptions.getServicesImpl();
             for (int i = 0; i < servicesInterface.size(); i++) {
-                services.add(createServiceConfig(servicesInterface.get(i), servicesImpl.get(i)));
+                raftServices.put(servicesInterface.get(i), servicesImpl.get(i).newInstance());
+            }
+            this.lanes = new LaneExecutors("Raft-Server-" + this.port, this.rpcRemoteOptions);
+            this.serverTransport = this.rpcRemoteOptions.getTransportFactory().createServerTransport(this.endpoint, this.rpcRemoteOptions);
+            if (!this.serverTransport.start(new RaftRequestDispatcher(raftServices, this.lanes))) {
+                LOG.error("Fail to start raft transport on {}", this.endpoint);
+            }
+            if (this.rpcRemoteOptions.getTransportFactory().isInProcess()) {
+                return;
             }
             List<Class> clientServiceInterface = this.rpcRemoteOptions.getClientServicesInterface();
             List<Class> clientServiceImpl = this.rpcRemoteOptions.getClientServicesImpl();
             for (int i = 0; i < clientServiceInterface.size(); i++) {
-                services.add(createServiceConfig(clientServiceInterface.get(i), clientServiceImpl.get(i)));
+                final Class serviceInterface = clientServiceInterface.get(i);
+                services.add(createServiceConfig(serviceInterface,
+                        this.lanes.proxy(serviceInterface, clientServiceImpl.get(i).newInstance(), RpcLane.CLIENT)));
             }
 
             List<Class> userServiceInterface = this.rpcRemoteOptions.getUserServicesInterface();
@@ -67,6 +98,10 @@ public class RpcServer {
 
         ProtocolConfig protocol = new ProtocolConfig();
         protocol.setPort(port);
+        // raft and client services leave these threads at once for their lane, user services run on them
+        protocol.setThreads(this.rpcRemoteOptions.getUserServiceThreads());
+        // responses of raft services are written with the compact codec, other objects stay hessian2 compatible
+        protocol.setSerialization(RaftSerialization.NAME);
 
         new NamedThreadFactory("dubbo-server", false).newThread(() -> {
             dubboBootstrap.application(new ApplicationConfig("dubbo-demo-api-provider"))
@@ -78,12 +113,29 @@ public class RpcServer {
         }).start();
     }
 
-    private ServiceConfig createServiceConfig(Class interfacez, Object implz) throws Exception {
+    public synchronized void shutdown() {
+        if (this.serverTransport != null) {
+            this.serverTransport.shutdown();
+        }
+        if (this.lanes != null) {
+            this.lanes.shutdown();
+        }
+    }
+
+    public LaneExecutors getLanes() {
+        return lanes;
+    }
+
+    public static ServiceConfig createServiceConfig(Class interfacez, Object implz) {
         ServiceConfig service = new ServiceConfig<>();
         service.setInterface(interfacez);
         Object rpcService;
         if (implz instanceof Class) {
-            rpcService = ((Class) implz).newInstance();
+            try {
+                rpcService = ((Class) implz).newInstance();
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Fail to create " + implz, e);
+            }
         } else {
             rpcService = implz;
         }
@@ -0,0 +1,53 @@
+package com.hongframe.raft.rpc.codec;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 10:12
+ */
+public class ByteArrayMessageInput implements MessageInput {
+
+    private final byte[] buf;
+    private final int limit;
+    private int pos;
+
+    public ByteArrayMessageInput(byte[] buf) {
+        this(buf, 0, buf.length);
+    }
+
+    public ByteArrayMessageInput(byte[] buf, int off, int len) {
+        this.buf = buf;
+        this.pos = off;
+        this.limit = off + len;
+    }
+
+    private void checkRemaining(int n) {
+        if (n < 0 || this.pos + n > this.limit) {
+            throw new IndexOutOfBoundsException("pos=" + this.pos + ", need=" + n + ", limit=" + this.limit);
+        }
+    }
+
+    @Override
+    public int readByte() {
+        checkRemaining(1);
+        return this.buf[this.pos++] & 0xFF;
+    }
+
+    @Override
+    public byte[] readBytes(int len) {
+        checkRemaining(len);
+        final byte[] bs = Arrays.copyOfRange(this.buf, this.pos, this.pos + len);
+        this.pos += len;
+        return bs;
+    }
+
+    @Override
+    public ByteBuffer readBuffer(int len) {
+        checkRemaining(len);
+        final ByteBuffer slice = ByteBuffer.wrap(this.buf, this.pos, len).slice().asReadOnlyBuffer();
+        this.pos += len;
+        return slice;
+    }
+}
@@ -0,0 +1,57 @@
+package com.hongframe.raft.rpc.codec;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 10:12
+ */
+public class ByteArrayMessageOutput implements MessageOutput {
+
+    private byte[] buf;
+    private int pos;
+
+    public ByteArrayMessageOutput() {
+        this(256);
+    }
+
+    public ByteArrayMessageOutput(int initialCapacity) {
+        this.buf = new byte[Math.max(16, initialCapacity)];
+    }
+
+    private void ensureCapacity(int n) {
+        if (this.pos + n > this.buf.length) {
+            this.buf = Arrays.copyOf(this.buf, Math.max(this.buf.length << 1, this.pos + n));
+        }
+    }
+
+    @Override
+    public void writeByte(int b) {
+        ensureCapacity(1);
+        this.buf[this.pos++] = (byte) b;
+    }
+
+    @Override
+    public void writeBytes(byte[] src, int off, int len) {
+        ensureCapacity(len);
+        System.arraycopy(src, off, this.buf, this.pos, len);
+        this.pos += len;
+    }
+
+    @Override
+    public void writeBytes(ByteBuffer src) {
+        final int len = src.remaining();
+        ensureCapacity(len);
+        src.duplicate().get(this.buf, this.pos, len);
+        this.pos += len;
+    }
+
+    public int size() {
+        return this.pos;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(this.buf, this.pos);
+    }
+}
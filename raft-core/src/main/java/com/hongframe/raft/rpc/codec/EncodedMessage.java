@@ -0,0 +1,32 @@
+package com.hongframe.raft.rpc.codec;
+
+import java.io.Serializable;
+
+/**
+ * Carrier of a {@link RpcMessageCodec} encoded message inside a hessian2 stream, so that the
+ * raft serialization stays readable by plain hessian2 peers for everything else.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 10:12
+ */
+public class EncodedMessage implements Serializable {
+
+    private static final long serialVersionUID = -3055624733422379218L;
+
+    private byte[] payload;
+
+    public EncodedMessage() {
+    }
+
+    public EncodedMessage(byte[] payload) {
+        this.payload = payload;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public void setPayload(byte[] payload) {
+        this.payload = payload;
+    }
+}
@@ -0,0 +1,104 @@
+package com.hongframe.raft.rpc.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Source for the compact raft message encoding, see {@link RpcMessageCodec}.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 10:12
+ */
+public interface MessageInput {
+
+    int readByte();
+
+    byte[] readBytes(int len);
+
+    /**
+     * Returns the next {@code len} bytes as a buffer, implementations avoid copying when they can.
+     */
+    ByteBuffer readBuffer(int len);
+
+    /**
+     * largest size a compressed payload read from this input may claim once inflated, checked
+     * before allocating it.
+     */
+    default int getMaxRawLength() {
+        return RpcMessageCodec.DEFAULT_MAX_RAW_LENGTH;
+    }
+
+    default boolean readBoolean() {
+        return readByte() != 0;
+    }
+
+    default int readVarInt() {
+        int shift = 0;
+        int result = 0;
+        while (shift < 32) {
+            final int b = readByte();
+            result |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+            shift += 7;
+        }
+        throw new IllegalStateException("Malformed varint");
+    }
+
+    default long readVarLong() {
+        int shift = 0;
+        long result = 0;
+        while (shift < 64) {
+            final int b = readByte();
+            result |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return result;
+            }
+            shift += 7;
+        }
+        throw new IllegalStateException("Malformed varlong");
+    }
+
+    default long readLong() {
+        final long v = readVarLong();
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    default Long readNullableLong() {
+        if (readByte() == 0) {
+            return null;
+        }
+        return readLong();
+    }
+
+    default Boolean readNullableBoolean() {
+        final int b = readByte();
+        return b == 0 ? null : b == 2;
+    }
+
+    default String readString() {
+        final int len = readVarInt();
+        if (len == 0) {
+            return null;
+        }
+        return new String(readBytes(len - 1), StandardCharsets.UTF_8);
+    }
+
+    default byte[] readByteArray() {
+        final int len = readVarInt();
+        if (len == 0) {
+            return null;
+        }
+        return readBytes(len - 1);
+    }
+
+    default ByteBuffer readByteBuffer() {
+        final int len = readVarInt();
+        if (len == 0) {
+            return null;
+        }
+        return readBuffer(len - 1);
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.hongframe.raft.rpc.codec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Sink for the compact raft message encoding, see {@link RpcMessageCodec}.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 10:12
+ */
+public interface MessageOutput {
+
+    void writeByte(int b);
+
+    void writeBytes(byte[] src, int off, int len);
+
+    /**
+     * Writes the remaining bytes of {@code src} without moving its position.
+     */
+    void writeBytes(ByteBuffer src);
+
+    default void writeBoolean(boolean b) {
+        writeByte(b ? 1 : 0);
+    }
+
+    default void writeVarInt(int v) {
+        while ((v & ~0x7F) != 0) {
+            writeByte((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        writeByte(v);
+    }
+
+    default void writeVarLong(long v) {
+        while ((v & ~0x7FL) != 0) {
+            writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        writeByte((int) v);
+    }
+
+    /**
+     * zigzag encoded, so small negative values (-1 is common for "unknown") stay short.
+     */
+    default void writeLong(long v) {
+        writeVarLong((v << 1) ^ (v >> 63));
+    }
+
+    default void writeNullableLong(Long v) {
+        if (v == null) {
+            writeByte(0);
+        } else {
+            writeByte(1);
+            writeLong(v);
+        }
+    }
+
+    default void writeNullableBoolean(Boolean b) {
+        writeByte(b == null ? 0 : (b ? 2 : 1));
+    }
+
+    default void writeString(String s) {
+        if (s == null) {
+            writeVarInt(0);
+            return;
+        }
+        final byte[] bs = s.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(bs.length + 1);
+        writeBytes(bs, 0, bs.length);
+    }
+
+    default void writeByteArray(byte[] bs) {
+        if (bs == null) {
+            writeVarInt(0);
+            return;
+        }
+        writeVarInt(bs.length + 1);
+        writeBytes(bs, 0, bs.length);
+    }
+
+    default void writeByteBuffer(ByteBuffer buf) {
+        if (buf == null) {
+            writeVarInt(0);
+            return;
+        }
+        writeVarInt(buf.remaining() + 1);
+        writeBytes(buf);
+    }
+
+}
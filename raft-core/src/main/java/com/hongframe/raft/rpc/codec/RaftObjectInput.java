@@ -0,0 +1,97 @@
+package com.hongframe.raft.rpc.codec;
+
+import com.hongframe.raft.entity.Message;
+import org.apache.dubbo.common.serialize.ObjectInput;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 10:12
+ */
+public class RaftObjectInput implements ObjectInput {
+
+    private final ObjectInput delegate;
+
+    public RaftObjectInput(ObjectInput delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Object readObject() throws IOException, ClassNotFoundException {
+        return unwrap(this.delegate.readObject());
+    }
+
+    @Override
+    public <T> T readObject(Class<T> cls) throws IOException, ClassNotFoundException {
+        if (isMessageType(cls)) {
+            return (T) unwrap(this.delegate.readObject());
+        }
+        return this.delegate.readObject(cls);
+    }
+
+    @Override
+    public <T> T readObject(Class<T> cls, Type type) throws IOException, ClassNotFoundException {
+        if (isMessageType(cls)) {
+            return (T) unwrap(this.delegate.readObject());
+        }
+        return this.delegate.readObject(cls, type);
+    }
+
+    private static boolean isMessageType(Class<?> cls) {
+        return cls == null || cls == Object.class || Message.class.isAssignableFrom(cls);
+    }
+
+    private static Object unwrap(Object obj) {
+        if (obj instanceof EncodedMessage) {
+            return RpcMessageCodec.decode(((EncodedMessage) obj).getPayload());
+        }
+        return obj;
+    }
+
+    @Override
+    public boolean readBool() throws IOException {
+        return this.delegate.readBool();
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        return this.delegate.readByte();
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        return this.delegate.readShort();
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        return this.delegate.readInt();
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        return this.delegate.readLong();
+    }
+
+    @Override
+    public float readFloat() throws IOException {
+        return this.delegate.readFloat();
+    }
+
+    @Override
+    public double readDouble() throws IOException {
+        return this.delegate.readDouble();
+    }
+
+    @Override
+    public String readUTF() throws IOException {
+        return this.delegate.readUTF();
+    }
+
+    @Override
+    public byte[] readBytes() throws IOException {
+        return this.delegate.readBytes();
+    }
+}
@@ -0,0 +1,82 @@
+package com.hongframe.raft.rpc.codec;
+
+import org.apache.dubbo.common.serialize.ObjectOutput;
+
+import java.io.IOException;
+
+/**
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 10:12
+ */
+public class RaftObjectOutput implements ObjectOutput {
+
+    private final ObjectOutput delegate;
+
+    public RaftObjectOutput(ObjectOutput delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void writeObject(Object obj) throws IOException {
+        if (RpcMessageCodec.isSupported(obj)) {
+            this.delegate.writeObject(new EncodedMessage(RpcMessageCodec.encode(obj)));
+        } else {
+            this.delegate.writeObject(obj);
+        }
+    }
+
+    @Override
+    public void writeBool(boolean v) throws IOException {
+        this.delegate.writeBool(v);
+    }
+
+    @Override
+    public void writeByte(byte v) throws IOException {
+        this.delegate.writeByte(v);
+    }
+
+    @Override
+    public void writeShort(short v) throws IOException {
+        this.delegate.writeShort(v);
+    }
+
+    @Override
+    public void writeInt(int v) throws IOException {
+        this.delegate.writeInt(v);
+    }
+
+    @Override
+    public void writeLong(long v) throws IOException {
+        this.delegate.writeLong(v);
+    }
+
+    @Override
+    public void writeFloat(float v) throws IOException {
+        this.delegate.writeFloat(v);
+    }
+
+    @Override
+    public void writeDouble(double v) throws IOException {
+        this.delegate.writeDouble(v);
+    }
+
+    @Override
+    public void writeUTF(String v) throws IOException {
+        this.delegate.writeUTF(v);
+    }
+
+    @Override
+    public void writeBytes(byte[] v) throws IOException {
+        this.delegate.writeBytes(v);
+    }
+
+    @Override
+    public void writeBytes(byte[] v, int off, int len) throws IOException {
+        this.delegate.writeBytes(v, off, len);
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        this.delegate.flushBuffer();
+    }
+}
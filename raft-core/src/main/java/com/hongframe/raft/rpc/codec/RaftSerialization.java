@@ -0,0 +1,51 @@
+package com.hongframe.raft.rpc.codec;
+
+import org.apache.dubbo.common.URL;
+import org.apache.dubbo.common.serialize.ObjectInput;
+import org.apache.dubbo.common.serialize.ObjectOutput;
+import org.apache.dubbo.common.serialize.Serialization;
+import org.apache.dubbo.common.serialize.hessian2.Hessian2Serialization;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Dubbo serialization used by the raft services: raft messages are written with
+ * {@link RpcMessageCodec}, everything else (attachments, user objects) goes through hessian2.
+ * Registered as {@code raft} in META-INF/dubbo.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 10:12
+ */
+public class RaftSerialization implements Serialization {
+
+    public static final String NAME = "raft";
+
+    /**
+     * must not clash with the ids of the serializations shipped with dubbo.
+     */
+    public static final byte ID = 29;
+
+    private final Serialization delegate = new Hessian2Serialization();
+
+    @Override
+    public byte getContentTypeId() {
+        return ID;
+    }
+
+    @Override
+    public String getContentType() {
+        return "x-application/raft";
+    }
+
+    @Override
+    public ObjectOutput serialize(URL url, OutputStream output) throws IOException {
+        return new RaftObjectOutput(this.delegate.serialize(url, output));
+    }
+
+    @Override
+    public ObjectInput deserialize(URL url, InputStream input) throws IOException {
+        return new RaftObjectInput(this.delegate.deserialize(url, input));
+    }
+}
@@ -0,0 +1,802 @@
+package com.hongframe.raft.rpc.codec;
+
+import com.hongframe.raft.entity.EntryType;
+import com.hongframe.raft.entity.LogId;
+import com.hongframe.raft.entity.Message;
+import com.hongframe.raft.entity.PeerId;
+import com.hongframe.raft.entity.SnapshotMeta;
+import com.hongframe.raft.rpc.ClientRequests.*;
+import com.hongframe.raft.rpc.RpcRequests.*;
+import com.hongframe.raft.rpc.compress.CompressionMetrics;
+import com.hongframe.raft.rpc.compress.CompressorType;
+import com.hongframe.raft.util.Utils;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hand written binary encoding of the raft rpc messages, used instead of reflective bean
+ * serialization on the raft hot path. Every message is prefixed with a one byte type tag,
+ * numbers are varint encoded and nullable fields carry a presence marker.
+ * <p>
+ * Tags are part of the wire format: only append new ones, never reuse.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 10:12
+ */
+public final class RpcMessageCodec {
+
+    private static final byte NULL = 0;
+    private static final byte RESPONSE = 1;
+    private static final byte ERROR_RESPONSE = 2;
+    private static final byte APPEND_ENTRIES_REQUEST = 3;
+    private static final byte APPEND_ENTRIES_RESPONSE = 4;
+    private static final byte REQUEST_VOTE_REQUEST = 5;
+    private static final byte REQUEST_VOTE_RESPONSE = 6;
+    private static final byte READ_INDEX_REQUEST = 7;
+    private static final byte READ_INDEX_RESPONSE = 8;
+    private static final byte INSTALL_SNAPSHOT_REQUEST = 9;
+    private static final byte INSTALL_SNAPSHOT_RESPONSE = 10;
+    private static final byte GET_FILE_REQUEST = 11;
+    private static final byte GET_FILE_RESPONSE = 12;
+    private static final byte GET_LEADER_REQUEST = 13;
+    private static final byte GET_LEADER_RESPONSE = 14;
+    private static final byte BATCH_APPEND_ENTRIES_REQUEST = 15;
+    private static final byte BATCH_APPEND_ENTRIES_RESPONSE = 16;
+    private static final byte WATCH_LEADER_REQUEST = 17;
+    private static final byte FETCH_LOG_REQUEST = 18;
+    private static final byte FETCH_LOG_RESPONSE = 19;
+    private static final byte HEARTBEAT_VECTOR_REQUEST = 20;
+
+    private static final Map<Class<?>, Byte> TAGS = new IdentityHashMap<>();
+
+    /**
+     * largest size a compressed payload may claim once inflated, unless the input sets its own limit.
+     */
+    public static final int DEFAULT_MAX_RAW_LENGTH = 16 * 1024 * 1024;
+
+    static {
+        TAGS.put(Response.class, RESPONSE);
+        TAGS.put(ErrorResponse.class, ERROR_RESPONSE);
+        TAGS.put(AppendEntriesRequest.class, APPEND_ENTRIES_REQUEST);
+        TAGS.put(AppendEntriesResponse.class, APPEND_ENTRIES_RESPONSE);
+        TAGS.put(RequestVoteRequest.class, REQUEST_VOTE_REQUEST);
+        TAGS.put(RequestVoteResponse.class, REQUEST_VOTE_RESPONSE);
+        TAGS.put(ReadIndexRequest.class, READ_INDEX_REQUEST);
+        TAGS.put(ReadIndexResponse.class, READ_INDEX_RESPONSE);
+        TAGS.put(InstallSnapshotRequest.class, INSTALL_SNAPSHOT_REQUEST);
+        TAGS.put(InstallSnapshotResponse.class, INSTALL_SNAPSHOT_RESPONSE);
+        TAGS.put(GetFileRequest.class, GET_FILE_REQUEST);
+        TAGS.put(GetFileResponse.class, GET_FILE_RESPONSE);
+        TAGS.put(GetLeaderRequest.class, GET_LEADER_REQUEST);
+        TAGS.put(GetLeaderResponse.class, GET_LEADER_RESPONSE);
+        TAGS.put(BatchAppendEntriesRequest.class, BATCH_APPEND_ENTRIES_REQUEST);
+        TAGS.put(BatchAppendEntriesResponse.class, BATCH_APPEND_ENTRIES_RESPONSE);
+        TAGS.put(WatchLeaderRequest.class, WATCH_LEADER_REQUEST);
+        TAGS.put(FetchLogRequest.class, FETCH_LOG_REQUEST);
+        TAGS.put(FetchLogResponse.class, FETCH_LOG_RESPONSE);
+        TAGS.put(HeartbeatVectorRequest.class, HEARTBEAT_VECTOR_REQUEST);
+    }
+
+    private RpcMessageCodec() {
+    }
+
+    /**
+     * A {@link Response} is only supported when its payload is, user service responses fall back
+     * to the generic serialization.
+     */
+    public static boolean isSupported(Object obj) {
+        if (obj == null || !TAGS.containsKey(obj.getClass())) {
+            return false;
+        }
+        if (obj instanceof Response) {
+            final Object data = ((Response) obj).getData();
+            return data == null || isSupported(data);
+        }
+        return true;
+    }
+
+    public static byte[] encode(Object msg) {
+        final ByteArrayMessageOutput out = new ByteArrayMessageOutput();
+        encode(msg, out);
+        return out.toByteArray();
+    }
+
+    public static Object decode(byte[] bs) {
+        return decode(new ByteArrayMessageInput(bs));
+    }
+
+    public static void encode(Object msg, MessageOutput out) {
+        if (msg == null) {
+            out.writeByte(NULL);
+            return;
+        }
+        final Byte tag = TAGS.get(msg.getClass());
+        if (tag == null) {
+            throw new IllegalArgumentException("Unsupported message type: " + msg.getClass().getName());
+        }
+        out.writeByte(tag);
+        switch (tag) {
+            case RESPONSE:
+                writeResponse((Response) msg, out);
+                break;
+            case ERROR_RESPONSE:
+                writeErrorResponse((ErrorResponse) msg, out);
+                break;
+            case APPEND_ENTRIES_REQUEST:
+                writeAppendEntriesRequest((AppendEntriesRequest) msg, out);
+                break;
+            case APPEND_ENTRIES_RESPONSE:
+                writeAppendEntriesResponse((AppendEntriesResponse) msg, out);
+                break;
+            case REQUEST_VOTE_REQUEST:
+                writeRequestVoteRequest((RequestVoteRequest) msg, out);
+                break;
+            case REQUEST_VOTE_RESPONSE:
+                writeRequestVoteResponse((RequestVoteResponse) msg, out);
+                break;
+            case READ_INDEX_REQUEST:
+                writeReadIndexRequest((ReadIndexRequest) msg, out);
+                break;
+            case READ_INDEX_RESPONSE:
+                writeReadIndexResponse((ReadIndexResponse) msg, out);
+                break;
+            case INSTALL_SNAPSHOT_REQUEST:
+                writeInstallSnapshotRequest((InstallSnapshotRequest) msg, out);
+                break;
+            case INSTALL_SNAPSHOT_RESPONSE:
+                writeInstallSnapshotResponse((InstallSnapshotResponse) msg, out);
+                break;
+            case GET_FILE_REQUEST:
+                writeGetFileRequest((GetFileRequest) msg, out);
+                break;
+            case GET_FILE_RESPONSE:
+                writeGetFileResponse((GetFileResponse) msg, out);
+                break;
+            case GET_LEADER_REQUEST:
+                writeGetLeaderRequest((GetLeaderRequest) msg, out);
+                break;
+            case GET_LEADER_RESPONSE:
+                writeGetLeaderResponse((GetLeaderResponse) msg, out);
+                break;
+            case BATCH_APPEND_ENTRIES_REQUEST:
+                writeBatchAppendEntriesRequest((BatchAppendEntriesRequest) msg, out);
+                break;
+            case BATCH_APPEND_ENTRIES_RESPONSE:
+                writeBatchAppendEntriesResponse((BatchAppendEntriesResponse) msg, out);
+                break;
+            case WATCH_LEADER_REQUEST:
+                writeWatchLeaderRequest((WatchLeaderRequest) msg, out);
+                break;
+            case FETCH_LOG_REQUEST:
+                writeFetchLogRequest((FetchLogRequest) msg, out);
+                break;
+            case FETCH_LOG_RESPONSE:
+                writeFetchLogResponse((FetchLogResponse) msg, out);
+                break;
+            case HEARTBEAT_VECTOR_REQUEST:
+                writeHeartbeatVectorRequest((HeartbeatVectorRequest) msg, out);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported message tag: " + tag);
+        }
+    }
+
+    public static Object decode(MessageInput in) {
+        final int tag = in.readByte();
+        switch (tag) {
+            case NULL:
+                return null;
+            case RESPONSE:
+                return readResponse(in);
+            case ERROR_RESPONSE:
+                return readErrorResponse(in);
+            case APPEND_ENTRIES_REQUEST:
+                return readAppendEntriesRequest(in);
+            case APPEND_ENTRIES_RESPONSE:
+                return readAppendEntriesResponse(in);
+            case REQUEST_VOTE_REQUEST:
+                return readRequestVoteRequest(in);
+            case REQUEST_VOTE_RESPONSE:
+                return readRequestVoteResponse(in);
+            case READ_INDEX_REQUEST:
+                return readReadIndexRequest(in);
+            case READ_INDEX_RESPONSE:
+                return readReadIndexResponse(in);
+            case INSTALL_SNAPSHOT_REQUEST:
+                return readInstallSnapshotRequest(in);
+            case INSTALL_SNAPSHOT_RESPONSE:
+                return readInstallSnapshotResponse(in);
+            case GET_FILE_REQUEST:
+                return readGetFileRequest(in);
+            case GET_FILE_RESPONSE:
+                return readGetFileResponse(in);
+            case GET_LEADER_REQUEST:
+                return readGetLeaderRequest(in);
+            case GET_LEADER_RESPONSE:
+                return readGetLeaderResponse(in);
+            case BATCH_APPEND_ENTRIES_REQUEST:
+                return readBatchAppendEntriesRequest(in);
+            case BATCH_APPEND_ENTRIES_RESPONSE:
+                return readBatchAppendEntriesResponse(in);
+            case WATCH_LEADER_REQUEST:
+                return readWatchLeaderRequest(in);
+            case FETCH_LOG_REQUEST:
+                return readFetchLogRequest(in);
+            case FETCH_LOG_RESPONSE:
+                return readFetchLogResponse(in);
+            case HEARTBEAT_VECTOR_REQUEST:
+                return readHeartbeatVectorRequest(in);
+            default:
+                throw new IllegalArgumentException("Unknown message tag: " + tag);
+        }
+    }
+
+    private static void writeResponse(Response msg, MessageOutput out) {
+        encode(msg.getData(), out);
+        encode(msg.getError(), out);
+    }
+
+    private static Response readResponse(MessageInput in) {
+        final Response response = new Response();
+        response.setData((Message) decode(in));
+        response.setError((ErrorResponse) decode(in));
+        return response;
+    }
+
+    private static void writeErrorResponse(ErrorResponse msg, MessageOutput out) {
+        out.writeNullableLong(msg.getErrorCode() == null ? null : msg.getErrorCode().longValue());
+        out.writeString(msg.getErrorMsg());
+        out.writeString(msg.getLeaderId());
+        out.writeLong(msg.getTerm());
+    }
+
+    private static ErrorResponse readErrorResponse(MessageInput in) {
+        final ErrorResponse msg = new ErrorResponse();
+        final Long code = in.readNullableLong();
+        msg.setErrorCode(code == null ? null : code.intValue());
+        msg.setErrorMsg(in.readString());
+        msg.setLeaderId(in.readString());
+        msg.setTerm(in.readLong());
+        return msg;
+    }
+
+    private static void writeAppendEntriesRequest(AppendEntriesRequest msg, MessageOutput out) {
+        final long nodeHandle = msg.getNodeHandle();
+        out.writeVarLong(nodeHandle);
+        out.writeString(nodeHandle == 0 ? msg.getGroupId() : null);
+        out.writeString(msg.getServerId());
+        out.writeString(nodeHandle == 0 ? msg.getPeerId() : null);
+        out.writeNullableLong(msg.getTerm());
+        out.writeNullableLong(msg.getPrevLogTerm());
+        out.writeNullableLong(msg.getPreLogIndex());
+        out.writeNullableLong(msg.getCommittedIndex());
+        out.writeBoolean(msg.isHeartbeat());
+        out.writeNullableLong(msg.getLowestMatchIndex());
+        final CompressorType compressor = msg.getCompressor();
+        if (compressor == null || compressor == CompressorType.NONE) {
+            out.writeByte(CompressorType.NONE.getId());
+            writeOutLogEntries(msg.getOutEntries(), out);
+            return;
+        }
+        final ByteArrayMessageOutput raw = new ByteArrayMessageOutput(estimateEntriesSize(msg.getOutEntries()));
+        writeOutLogEntries(msg.getOutEntries(), raw);
+        writeCompressed(compressor, raw.toByteArray(), msg.getPeerId(), out);
+    }
+
+    private static AppendEntriesRequest readAppendEntriesRequest(MessageInput in) {
+        final AppendEntriesRequest msg = new AppendEntriesRequest();
+        msg.setNodeHandle(in.readVarLong());
+        msg.setGroupId(in.readString());
+        msg.setServerId(in.readString());
+        msg.setPeerId(in.readString());
+        msg.setTerm(in.readNullableLong());
+        msg.setPrevLogTerm(in.readNullableLong());
+        msg.setPreLogIndex(in.readNullableLong());
+        msg.setCommittedIndex(in.readNullableLong());
+        msg.setHeartbeat(in.readBoolean());
+        msg.setLowestMatchIndex(in.readNullableLong());
+        final CompressorType compressor = CompressorType.get(in.readByte());
+        msg.setCompressor(compressor);
+        if (compressor == CompressorType.NONE) {
+            msg.setOutEntries(readOutLogEntries(in));
+        } else {
+            final byte[] raw = readCompressed(compressor, msg.getServerId(), in);
+            msg.setOutEntries(readOutLogEntries(new ByteArrayMessageInput(raw)));
+        }
+        return msg;
+    }
+
+    private static void writeOutLogEntries(List<OutLogEntry> entries, MessageOutput out) {
+        if (entries == null) {
+            out.writeVarInt(0);
+            return;
+        }
+        out.writeVarInt(entries.size() + 1);
+        for (OutLogEntry entry : entries) {
+            writeOutLogEntry(entry, out);
+        }
+    }
+
+    private static List<OutLogEntry> readOutLogEntries(MessageInput in) {
+        final int size = in.readVarInt();
+        if (size == 0) {
+            return null;
+        }
+        final List<OutLogEntry> entries = new ArrayList<>(size - 1);
+        for (int i = 0; i < size - 1; i++) {
+            entries.add(readOutLogEntry(in));
+        }
+        return entries;
+    }
+
+    private static int estimateEntriesSize(List<OutLogEntry> entries) {
+        int size = 16;
+        if (entries != null) {
+            for (OutLogEntry entry : entries) {
+                size += 32 + entry.getDataSize();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * writes the codec id, then the raw length and the compressed bytes. Falls back to the raw
+     * bytes under {@link CompressorType#NONE} when compressing does not pay off.
+     */
+    private static void writeCompressed(CompressorType compressor, byte[] raw, String peerId, MessageOutput out) {
+        final long startNanos = System.nanoTime();
+        final byte[] compressed = compressor.getCompressor().compress(raw, 0, raw.length);
+        CompressionMetrics.get(peerId).onCompress(raw.length, Math.min(compressed.length, raw.length), System.nanoTime() - startNanos);
+        if (compressed.length >= raw.length) {
+            out.writeByte(CompressorType.NONE.getId());
+            out.writeBytes(raw, 0, raw.length);
+            return;
+        }
+        out.writeByte(compressor.getId());
+        out.writeVarInt(raw.length);
+        out.writeByteArray(compressed);
+    }
+
+    private static byte[] readCompressed(CompressorType compressor, String peerId, MessageInput in) {
+        final int rawLength = in.readVarInt();
+        final int maxRawLength = in.getMaxRawLength();
+        if (rawLength < 0 || rawLength > maxRawLength) {
+            throw new IllegalStateException("Compressed payload claims " + rawLength + " bytes, the limit is " + maxRawLength);
+        }
+        final byte[] compressed = in.readByteArray();
+        final long startNanos = System.nanoTime();
+        final byte[] raw = compressor.getCompressor().decompress(compressed, rawLength);
+        CompressionMetrics.get(peerId).onDecompress(System.nanoTime() - startNanos);
+        return raw;
+    }
+
+    private static void writeOutLogEntry(OutLogEntry entry, MessageOutput out) {
+        out.writeByte(entry.getType() == null ? 0 : entry.getType().getType());
+        final LogId id = entry.getId();
+        out.writeLong(id == null ? 0 : id.getTerm());
+        out.writeLong(id == null ? 0 : id.getIndex());
+        writePeers(entry.getPeers(), out);
+        writePeers(entry.getOldPeers(), out);
+        writePeers(entry.getLearners(), out);
+        writePeers(entry.getOldLearners(), out);
+        out.writeByteBuffer(entry.getData());
+        out.writeVarInt(entry.getTotalSize());
+        if (entry.isFragment()) {
+            out.writeVarInt(entry.getFragmentOffset());
+        }
+    }
+
+    private static OutLogEntry readOutLogEntry(MessageInput in) {
+        final OutLogEntry entry = new OutLogEntry();
+        entry.setType(EntryType.get(in.readByte()));
+        final long term = in.readLong();
+        final long index = in.readLong();
+        entry.setId(new LogId(term, index));
+        entry.setPeers(readPeers(in));
+        entry.setOldPeers(readPeers(in));
+        entry.setLearners(readPeers(in));
+        entry.setOldLearners(readPeers(in));
+        // a slice of the frame for a byte array input, a netty frame is copied out
+        entry.setData(in.readByteBuffer());
+        entry.setTotalSize(in.readVarInt());
+        if (entry.isFragment()) {
+            entry.setFragmentOffset(in.readVarInt());
+        }
+        return entry;
+    }
+
+    private static void writePeers(List<PeerId> peers, MessageOutput out) {
+        if (peers == null) {
+            out.writeVarInt(0);
+            return;
+        }
+        out.writeVarInt(peers.size() + 1);
+        for (PeerId peer : peers) {
+            out.writeString(peer.toString());
+        }
+    }
+
+    private static List<PeerId> readPeers(MessageInput in) {
+        final int size = in.readVarInt();
+        if (size == 0) {
+            return null;
+        }
+        final List<PeerId> peers = new ArrayList<>(size - 1);
+        for (int i = 0; i < size - 1; i++) {
+            peers.add(Utils.getPeerId(in.readString()));
+        }
+        return peers;
+    }
+
+    private static void writeAppendEntriesResponse(AppendEntriesResponse msg, MessageOutput out) {
+        out.writeLong(msg.getTerm());
+        out.writeNullableBoolean(msg.getSuccess());
+        out.writeNullableLong(msg.getLastLogLast());
+        out.writeVarInt(msg.getCompressors());
+        out.writeVarLong(msg.getNodeHandle());
+        out.writeVarInt(msg.getCredit() + 1);
+        out.writeVarLong(msg.getConflictTerm());
+        out.writeVarLong(msg.getConflictIndex());
+        out.writeBoolean(msg.isFetching());
+    }
+
+    private static AppendEntriesResponse readAppendEntriesResponse(MessageInput in) {
+        final AppendEntriesResponse msg = new AppendEntriesResponse();
+        msg.setTerm(in.readLong());
+        msg.setSuccess(in.readNullableBoolean());
+        msg.setLastLogLast(in.readNullableLong());
+        msg.setCompressors(in.readVarInt());
+        msg.setNodeHandle(in.readVarLong());
+        msg.setCredit(in.readVarInt() - 1);
+        msg.setConflictTerm(in.readVarLong());
+        msg.setConflictIndex(in.readVarLong());
+        msg.setFetching(in.readBoolean());
+        return msg;
+    }
+
+    private static void writeRequestVoteRequest(RequestVoteRequest msg, MessageOutput out) {
+        out.writeString(msg.getGroupId());
+        out.writeString(msg.getServerId());
+        out.writeString(msg.getPeerId());
+        out.writeNullableLong(msg.getTerm());
+        out.writeNullableLong(msg.getLastLogTerm());
+        out.writeNullableLong(msg.getLastLogIndex());
+        out.writeBoolean(msg.isPreVote());
+    }
+
+    private static RequestVoteRequest readRequestVoteRequest(MessageInput in) {
+        final RequestVoteRequest msg = new RequestVoteRequest();
+        msg.setGroupId(in.readString());
+        msg.setServerId(in.readString());
+        msg.setPeerId(in.readString());
+        msg.setTerm(in.readNullableLong());
+        msg.setLastLogTerm(in.readNullableLong());
+        msg.setLastLogIndex(in.readNullableLong());
+        msg.setPreVote(in.readBoolean());
+        return msg;
+    }
+
+    private static void writeRequestVoteResponse(RequestVoteResponse msg, MessageOutput out) {
+        out.writeLong(msg.getTerm());
+        out.writeNullableBoolean(msg.getGranted());
+        out.writeNullableBoolean(msg.getPreVote());
+    }
+
+    private static RequestVoteResponse readRequestVoteResponse(MessageInput in) {
+        final RequestVoteResponse msg = new RequestVoteResponse();
+        msg.setTerm(in.readLong());
+        msg.setGranted(in.readNullableBoolean());
+        msg.setPreVote(in.readNullableBoolean());
+        return msg;
+    }
+
+    private static void writeReadIndexRequest(ReadIndexRequest msg, MessageOutput out) {
+        out.writeString(msg.getGroupId());
+        out.writeString(msg.getServerId());
+        out.writeString(msg.getPeerId());
+        final List<byte[]> datas = msg.getDatas();
+        if (datas == null) {
+            out.writeVarInt(0);
+        } else {
+            out.writeVarInt(datas.size() + 1);
+            for (byte[] data : datas) {
+                out.writeByteArray(data);
+            }
+        }
+    }
+
+    private static ReadIndexRequest readReadIndexRequest(MessageInput in) {
+        final ReadIndexRequest msg = new ReadIndexRequest();
+        msg.setGroupId(in.readString());
+        msg.setServerId(in.readString());
+        msg.setPeerId(in.readString());
+        final int size = in.readVarInt();
+        if (size > 0) {
+            final List<byte[]> datas = new ArrayList<>(size - 1);
+            for (int i = 0; i < size - 1; i++) {
+                datas.add(in.readByteArray());
+            }
+            msg.setDatas(datas);
+        }
+        return msg;
+    }
+
+    private static void writeReadIndexResponse(ReadIndexResponse msg, MessageOutput out) {
+        out.writeLong(msg.getIndex());
+        out.writeBoolean(msg.getSuccess());
+    }
+
+    private static ReadIndexResponse readReadIndexResponse(MessageInput in) {
+        final ReadIndexResponse msg = new ReadIndexResponse();
+        msg.setIndex(in.readLong());
+        msg.setSuccess(in.readBoolean());
+        return msg;
+    }
+
+    private static void writeInstallSnapshotRequest(InstallSnapshotRequest msg, MessageOutput out) {
+        out.writeString(msg.getGroupId());
+        out.writeString(msg.getServerId());
+        out.writeString(msg.getPeerId());
+        out.writeLong(msg.getTerm());
+        final SnapshotMeta meta = msg.getMeta();
+        out.writeBoolean(meta != null);
+        if (meta != null) {
+            out.writeLong(meta.getLastIncludedIndex());
+            out.writeLong(meta.getLastIncludedTerm());
+            out.writeString(meta.getPeers());
+            out.writeString(meta.getOldPeers());
+        }
+        out.writeString(msg.getUri());
+    }
+
+    private static InstallSnapshotRequest readInstallSnapshotRequest(MessageInput in) {
+        final InstallSnapshotRequest msg = new InstallSnapshotRequest();
+        msg.setGroupId(in.readString());
+        msg.setServerId(in.readString());
+        msg.setPeerId(in.readString());
+        msg.setTerm(in.readLong());
+        if (in.readBoolean()) {
+            final SnapshotMeta meta = new SnapshotMeta();
+            meta.setLastIncludedIndex(in.readLong());
+            meta.setLastIncludedTerm(in.readLong());
+            meta.setPeers(in.readString());
+            meta.setOldPeers(in.readString());
+            msg.setMeta(meta);
+        }
+        msg.setUri(in.readString());
+        return msg;
+    }
+
+    private static void writeInstallSnapshotResponse(InstallSnapshotResponse msg, MessageOutput out) {
+        out.writeLong(msg.getTerm());
+        out.writeBoolean(msg.isSuccess());
+    }
+
+    private static InstallSnapshotResponse readInstallSnapshotResponse(MessageInput in) {
+        final InstallSnapshotResponse msg = new InstallSnapshotResponse();
+        msg.setTerm(in.readLong());
+        msg.setSuccess(in.readBoolean());
+        return msg;
+    }
+
+    private static void writeFetchLogRequest(FetchLogRequest msg, MessageOutput out) {
+        out.writeString(msg.getGroupId());
+        out.writeString(msg.getServerId());
+        out.writeString(msg.getPeerId());
+        out.writeVarLong(msg.getFromIndex());
+        out.writeVarInt(msg.getMaxCount());
+        out.writeVarLong(msg.getMaxBytes());
+        out.writeBoolean(msg.isIncludeUncommitted());
+    }
+
+    private static FetchLogRequest readFetchLogRequest(MessageInput in) {
+        final FetchLogRequest msg = new FetchLogRequest();
+        msg.setGroupId(in.readString());
+        msg.setServerId(in.readString());
+        msg.setPeerId(in.readString());
+        msg.setFromIndex(in.readVarLong());
+        msg.setMaxCount(in.readVarInt());
+        msg.setMaxBytes(in.readVarLong());
+        msg.setIncludeUncommitted(in.readBoolean());
+        return msg;
+    }
+
+    private static void writeFetchLogResponse(FetchLogResponse msg, MessageOutput out) {
+        out.writeBoolean(msg.getSuccess());
+        out.writeVarLong(msg.getPrevLogTerm());
+        out.writeVarLong(msg.getLastCommittedIndex());
+        writeOutLogEntries(msg.getEntries(), out);
+    }
+
+    private static FetchLogResponse readFetchLogResponse(MessageInput in) {
+        final FetchLogResponse msg = new FetchLogResponse();
+        msg.setSuccess(in.readBoolean());
+        msg.setPrevLogTerm(in.readVarLong());
+        msg.setLastCommittedIndex(in.readVarLong());
+        msg.setEntries(readOutLogEntries(in));
+        return msg;
+    }
+
+    private static void writeGetFileRequest(GetFileRequest msg, MessageOutput out) {
+        out.writeLong(msg.getReaderId());
+        out.writeString(msg.getFilename());
+        out.writeLong(msg.getCount());
+        out.writeLong(msg.getOffset());
+        out.writeBoolean(msg.isReadPartly());
+        out.writeVarInt(msg.getCompressors());
+        out.writeString(msg.getPeerId());
+    }
+
+    private static GetFileRequest readGetFileRequest(MessageInput in) {
+        final GetFileRequest msg = new GetFileRequest();
+        msg.setReaderId(in.readLong());
+        msg.setFilename(in.readString());
+        msg.setCount(in.readLong());
+        msg.setOffset(in.readLong());
+        msg.setReadPartly(in.readBoolean());
+        msg.setCompressors(in.readVarInt());
+        msg.setPeerId(in.readString());
+        return msg;
+    }
+
+    private static void writeGetFileResponse(GetFileResponse msg, MessageOutput out) {
+        out.writeBoolean(msg.isEof());
+        out.writeLong(msg.getReadSize());
+        out.writeString(msg.getServerId());
+        out.writeString(msg.getPeerId());
+        final CompressorType compressor = msg.getCompressor();
+        if (msg.getData() == null || compressor == null || compressor == CompressorType.NONE) {
+            out.writeByte(CompressorType.NONE.getId());
+            out.writeByteArray(msg.getData());
+            return;
+        }
+        final ByteArrayMessageOutput raw = new ByteArrayMessageOutput(msg.getData().length + 8);
+        raw.writeByteArray(msg.getData());
+        writeCompressed(compressor, raw.toByteArray(), msg.getPeerId(), out);
+    }
+
+    private static GetFileResponse readGetFileResponse(MessageInput in) {
+        final GetFileResponse msg = new GetFileResponse();
+        msg.setEof(in.readBoolean());
+        msg.setReadSize(in.readLong());
+        msg.setServerId(in.readString());
+        msg.setPeerId(in.readString());
+        final CompressorType compressor = CompressorType.get(in.readByte());
+        msg.setCompressor(compressor);
+        if (compressor == CompressorType.NONE) {
+            msg.setData(in.readByteArray());
+        } else {
+            msg.setData(new ByteArrayMessageInput(readCompressed(compressor, msg.getServerId(), in)).readByteArray());
+        }
+        return msg;
+    }
+
+    private static void writeGetLeaderRequest(GetLeaderRequest msg, MessageOutput out) {
+        out.writeString(msg.getGroupId());
+        out.writeString(msg.getPeerId());
+    }
+
+    private static GetLeaderRequest readGetLeaderRequest(MessageInput in) {
+        final GetLeaderRequest msg = new GetLeaderRequest();
+        msg.setGroupId(in.readString());
+        msg.setPeerId(in.readString());
+        return msg;
+    }
+
+    private static void writeGetLeaderResponse(GetLeaderResponse msg, MessageOutput out) {
+        out.writeString(msg.getLeaderId());
+        out.writeLong(msg.getTerm());
+    }
+
+    private static GetLeaderResponse readGetLeaderResponse(MessageInput in) {
+        final GetLeaderResponse msg = new GetLeaderResponse();
+        msg.setLeaderId(in.readString());
+        msg.setTerm(in.readLong());
+        return msg;
+    }
+
+    private static void writeWatchLeaderRequest(WatchLeaderRequest msg, MessageOutput out) {
+        out.writeString(msg.getGroupId());
+        out.writeLong(msg.getKnownTerm());
+        out.writeVarInt(msg.getTimeoutMs());
+    }
+
+    private static WatchLeaderRequest readWatchLeaderRequest(MessageInput in) {
+        final WatchLeaderRequest msg = new WatchLeaderRequest();
+        msg.setGroupId(in.readString());
+        msg.setKnownTerm(in.readLong());
+        msg.setTimeoutMs(in.readVarInt());
+        return msg;
+    }
+
+    private static void writeBatchAppendEntriesRequest(BatchAppendEntriesRequest msg, MessageOutput out) {
+        final List<AppendEntriesRequest> requests = msg.getRequests();
+        out.writeVarInt(requests == null ? 0 : requests.size());
+        if (requests != null) {
+            for (AppendEntriesRequest request : requests) {
+                writeAppendEntriesRequest(request, out);
+            }
+        }
+    }
+
+    private static BatchAppendEntriesRequest readBatchAppendEntriesRequest(MessageInput in) {
+        final BatchAppendEntriesRequest msg = new BatchAppendEntriesRequest();
+        final int size = in.readVarInt();
+        final List<AppendEntriesRequest> requests = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            requests.add(readAppendEntriesRequest(in));
+        }
+        msg.setRequests(requests);
+        return msg;
+    }
+
+    private static void writeBatchAppendEntriesResponse(BatchAppendEntriesResponse msg, MessageOutput out) {
+        final List<Response> responses = msg.getResponses();
+        out.writeVarInt(responses == null ? 0 : responses.size());
+        if (responses != null) {
+            for (Response response : responses) {
+                encode(response, out);
+            }
+        }
+    }
+
+    private static BatchAppendEntriesResponse readBatchAppendEntriesResponse(MessageInput in) {
+        final BatchAppendEntriesResponse msg = new BatchAppendEntriesResponse();
+        final int size = in.readVarInt();
+        final List<Response> responses = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            responses.add((Response) decode(in));
+        }
+        msg.setResponses(responses);
+        return msg;
+    }
+
+    private static void writeHeartbeatVectorRequest(HeartbeatVectorRequest msg, MessageOutput out) {
+        out.writeString(msg.getServerId());
+        final List<GroupHeartbeat> heartbeats = msg.getHeartbeats();
+        out.writeVarInt(heartbeats == null ? 0 : heartbeats.size());
+        if (heartbeats != null) {
+            for (GroupHeartbeat heartbeat : heartbeats) {
+                out.writeLong(heartbeat.getNodeHandle());
+                if (heartbeat.getNodeHandle() == 0) {
+                    out.writeString(heartbeat.getGroupId());
+                    out.writeString(heartbeat.getPeerId());
+                }
+                out.writeString(heartbeat.getServerId());
+                out.writeLong(heartbeat.getTerm());
+                out.writeLong(heartbeat.getCommittedIndex());
+                out.writeLong(heartbeat.getPrevLogIndex());
+                out.writeLong(heartbeat.getPrevLogTerm());
+                out.writeNullableLong(heartbeat.getLowestMatchIndex());
+            }
+        }
+    }
+
+    private static HeartbeatVectorRequest readHeartbeatVectorRequest(MessageInput in) {
+        final HeartbeatVectorRequest msg = new HeartbeatVectorRequest();
+        msg.setServerId(in.readString());
+        final int size = in.readVarInt();
+        final List<GroupHeartbeat> heartbeats = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            final GroupHeartbeat heartbeat = new GroupHeartbeat();
+            heartbeat.setNodeHandle(in.readLong());
+            if (heartbeat.getNodeHandle() == 0) {
+                heartbeat.setGroupId(in.readString());
+                heartbeat.setPeerId(in.readString());
+            }
+            heartbeat.setServerId(in.readString());
+            heartbeat.setTerm(in.readLong());
+            heartbeat.setCommittedIndex(in.readLong());
+            heartbeat.setPrevLogIndex(in.readLong());
+            heartbeat.setPrevLogTerm(in.readLong());
+            heartbeat.setLowestMatchIndex(in.readNullableLong());
+            heartbeats.add(heartbeat);
+        }
+        msg.setHeartbeats(heartbeats);
+        return msg;
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.hongframe.raft.rpc.compress;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compression ratio and cpu time of the payloads exchanged with one peer.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 17:50
+ */
+public class CompressionMetrics {
+
+    private static final ConcurrentMap<String, CompressionMetrics> METRICS = new ConcurrentHashMap<>();
+
+    private final AtomicLong compressCount = new AtomicLong();
+    private final AtomicLong rawBytes = new AtomicLong();
+    private final AtomicLong compressedBytes = new AtomicLong();
+    private final AtomicLong compressNanos = new AtomicLong();
+    private final AtomicLong decompressCount = new AtomicLong();
+    private final AtomicLong decompressNanos = new AtomicLong();
+
+    public static CompressionMetrics get(String peerId) {
+        return METRICS.computeIfAbsent(peerId == null ? "unknown" : peerId, k -> new CompressionMetrics());
+    }
+
+    public static Map<String, CompressionMetrics> getAll() {
+        return new HashMap<>(METRICS);
+    }
+
+    public void onCompress(int raw, int compressed, long nanos) {
+        this.compressCount.incrementAndGet();
+        this.rawBytes.addAndGet(raw);
+        this.compressedBytes.addAndGet(compressed);
+        this.compressNanos.addAndGet(nanos);
+    }
+
+    public void onDecompress(long nanos) {
+        this.decompressCount.incrementAndGet();
+        this.decompressNanos.addAndGet(nanos);
+    }
+
+    public long getCompressCount() {
+        return compressCount.get();
+    }
+
+    public long getRawBytes() {
+        return rawBytes.get();
+    }
+
+    public long getCompressedBytes() {
+        return compressedBytes.get();
+    }
+
+    public long getCompressNanos() {
+        return compressNanos.get();
+    }
+
+    public long getDecompressCount() {
+        return decompressCount.get();
+    }
+
+    public long getDecompressNanos() {
+        return decompressNanos.get();
+    }
+
+    /**
+     * raw bytes / compressed bytes.
+     */
+    public double getRatio() {
+        final long compressed = this.compressedBytes.get();
+        return compressed == 0 ? 1.0 : (double) this.rawBytes.get() / compressed;
+    }
+
+    @Override
+    public String toString() {
+        return "CompressionMetrics{" +
+                "compressCount=" + compressCount +
+                ", rawBytes=" + rawBytes +
+                ", compressedBytes=" + compressedBytes +
+                ", ratio=" + getRatio() +
+                ", compressNanos=" + compressNanos +
+                ", decompressCount=" + decompressCount +
+                ", decompressNanos=" + decompressNanos +
+                '}';
+    }
+}
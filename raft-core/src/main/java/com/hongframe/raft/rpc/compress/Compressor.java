@@ -0,0 +1,13 @@
+package com.hongframe.raft.rpc.compress;
+
+/**
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 17:50
+ */
+public interface Compressor {
+
+    byte[] compress(byte[] src, int offset, int length);
+
+    byte[] decompress(byte[] src, int originalLength);
+
+}
@@ -0,0 +1,106 @@
+package com.hongframe.raft.rpc.compress;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Codecs of the compressed rpc payloads. The id is part of the wire format, LZ4 and Snappy are
+ * only usable when their optional dependency is on the classpath.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 17:50
+ */
+public enum CompressorType {
+
+    NONE(0, null),
+    DEFLATE(1, "java.util.zip.Deflater"),
+    LZ4(2, "net.jpountz.lz4.LZ4Factory"),
+    SNAPPY(3, "org.xerial.snappy.Snappy");
+
+    private static final Logger LOG = LoggerFactory.getLogger(CompressorType.class);
+
+    private static final int SUPPORTED_MASK;
+
+    static {
+        int mask = 0;
+        for (CompressorType type : values()) {
+            if (type != NONE && type.isAvailable()) {
+                mask |= type.mask();
+            }
+        }
+        SUPPORTED_MASK = mask;
+    }
+
+    private final int id;
+    private final String requiredClass;
+    private volatile Compressor compressor;
+
+    CompressorType(int id, String requiredClass) {
+        this.id = id;
+        this.requiredClass = requiredClass;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int mask() {
+        return 1 << this.id;
+    }
+
+    public boolean isAvailable() {
+        if (this.requiredClass == null) {
+            return true;
+        }
+        try {
+            Class.forName(this.requiredClass, false, CompressorType.class.getClassLoader());
+            return true;
+        } catch (Throwable t) {
+            return false;
+        }
+    }
+
+    public Compressor getCompressor() {
+        if (this == NONE) {
+            throw new IllegalStateException("NONE has no compressor");
+        }
+        if (this.compressor == null) {
+            synchronized (this) {
+                if (this.compressor == null) {
+                    this.compressor = newCompressor();
+                }
+            }
+        }
+        return this.compressor;
+    }
+
+    private Compressor newCompressor() {
+        switch (this) {
+            case DEFLATE:
+                return new DeflateCompressor();
+            case LZ4:
+                return new Lz4Compressor();
+            case SNAPPY:
+                return new SnappyCompressor();
+            default:
+                throw new IllegalStateException("Unknown compressor " + this);
+        }
+    }
+
+    /**
+     * the codecs this process can decode, advertised to the senders.
+     */
+    public static int supportedMask() {
+        return SUPPORTED_MASK;
+    }
+
+    public static CompressorType get(int id) {
+        for (CompressorType type : values()) {
+            if (type.id == id) {
+                return type;
+            }
+        }
+        LOG.error("Unknown compressor id {}", id);
+        throw new IllegalArgumentException("Unknown compressor id " + id);
+    }
+}
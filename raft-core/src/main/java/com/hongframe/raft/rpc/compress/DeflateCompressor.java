@@ -0,0 +1,55 @@
+package com.hongframe.raft.rpc.compress;
+
+import java.io.ByteArrayOutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 17:50
+ */
+public class DeflateCompressor implements Compressor {
+
+    @Override
+    public byte[] compress(byte[] src, int offset, int length) {
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(src, offset, length);
+            deflater.finish();
+            final ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, length / 2));
+            final byte[] buf = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buf, 0, deflater.deflate(buf));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public byte[] decompress(byte[] src, int originalLength) {
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(src);
+            final byte[] result = new byte[originalLength];
+            int n = 0;
+            while (n < originalLength && !inflater.finished()) {
+                final int read = inflater.inflate(result, n, originalLength - n);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                n += read;
+            }
+            if (n != originalLength) {
+                throw new IllegalStateException("Corrupted deflate data, expect " + originalLength + " bytes, got " + n);
+            }
+            return result;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupted deflate data", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.hongframe.raft.rpc.compress;
+
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+/**
+ * Needs the optional lz4-java dependency, only loaded when it is on the classpath.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 17:50
+ */
+public class Lz4Compressor implements Compressor {
+
+    private final LZ4Compressor compressor = LZ4Factory.fastestInstance().fastCompressor();
+    private final LZ4FastDecompressor decompressor = LZ4Factory.fastestInstance().fastDecompressor();
+
+    @Override
+    public byte[] compress(byte[] src, int offset, int length) {
+        return this.compressor.compress(src, offset, length);
+    }
+
+    @Override
+    public byte[] decompress(byte[] src, int originalLength) {
+        return this.decompressor.decompress(src, originalLength);
+    }
+}
@@ -0,0 +1,38 @@
+package com.hongframe.raft.rpc.compress;
+
+import org.xerial.snappy.Snappy;
+
+import java.io.IOException;
+
+/**
+ * Needs the optional snappy-java dependency, only loaded when it is on the classpath.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 17:50
+ */
+public class SnappyCompressor implements Compressor {
+
+    @Override
+    public byte[] compress(byte[] src, int offset, int length) {
+        try {
+            final byte[] buf = new byte[Snappy.maxCompressedLength(length)];
+            final int n = Snappy.compress(src, offset, length, buf, 0);
+            final byte[] result = new byte[n];
+            System.arraycopy(buf, 0, result, 0, n);
+            return result;
+        } catch (IOException e) {
+            throw new IllegalStateException("Snappy compress fail", e);
+        }
+    }
+
+    @Override
+    public byte[] decompress(byte[] src, int originalLength) {
+        try {
+            final byte[] result = new byte[originalLength];
+            Snappy.uncompress(src, 0, src.length, result, 0);
+            return result;
+        } catch (IOException e) {
+            throw new IllegalStateException("Snappy uncompress fail", e);
+        }
+    }
+}
@@ -10,4 +10,19 @@ public interface AppendEntriesRpc extends RaftRpcService {
 
     Response<AppendEntriesResponse> appendEntries(AppendEntriesRequest request);
 
+    /**
+     * handles every request as {@link #appendEntries(AppendEntriesRequest)} and answers once all of them are done.
+     */
+    Response<BatchAppendEntriesResponse> batchAppendEntries(BatchAppendEntriesRequest request);
+
+    /**
+     * handles every group of the vector as a heartbeat AppendEntries, the responses keep its order.
+     */
+    Response<BatchAppendEntriesResponse> heartbeats(HeartbeatVectorRequest request);
+
+    /**
+     * committed entries of the log of a follower, read for another follower catching up.
+     */
+    Response<FetchLogResponse> fetchLog(FetchLogRequest request);
+
 }
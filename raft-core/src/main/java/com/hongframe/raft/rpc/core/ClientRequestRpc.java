@@ -7,4 +7,6 @@ public interface ClientRequestRpc extends RaftRpcService {
 
     Message getLeader(final GetLeaderRequest request);
 
+    Message watchLeader(final WatchLeaderRequest request);
+
 }
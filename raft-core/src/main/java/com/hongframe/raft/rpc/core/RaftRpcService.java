@@ -3,7 +3,6 @@ package com.hongframe.raft.rpc.core;
 import com.hongframe.raft.NodeManager;
 import com.hongframe.raft.core.NodeImpl;
 import com.hongframe.raft.entity.Message;
-import com.hongframe.raft.entity.PeerId;
 import com.hongframe.raft.rpc.RpcRequests.*;
 import com.hongframe.raft.rpc.RpcService;
 
@@ -16,9 +15,7 @@ import java.util.Objects;
 public interface RaftRpcService extends RpcService {
 
     default NodeImpl getNode(Message message) {
-        PeerId peerId = new PeerId();
-        peerId.parse(message.getPeerId());
-        return (NodeImpl) NodeManager.getInstance().get(message.getGroupId(), peerId);
+        return (NodeImpl) NodeManager.getInstance().get(message.getGroupId(), message.getPeerId());
     }
 
     default Response checkResponse(Message message) {
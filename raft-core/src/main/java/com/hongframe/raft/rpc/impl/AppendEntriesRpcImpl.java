@@ -1,18 +1,25 @@
 package com.hongframe.raft.rpc.impl;
 
+import com.hongframe.raft.NodeManager;
 import com.hongframe.raft.Status;
 import com.hongframe.raft.callback.RequestCallback;
+import com.hongframe.raft.core.NodeImpl;
 import com.hongframe.raft.entity.Message;
+import com.hongframe.raft.entity.NodeId;
+import com.hongframe.raft.rpc.AsyncResponse;
+import com.hongframe.raft.rpc.RaftRpcContext;
 import com.hongframe.raft.rpc.RpcRequests.*;
 import com.hongframe.raft.rpc.core.AppendEntriesRpc;
-import org.apache.dubbo.rpc.AsyncContext;
-import org.apache.dubbo.rpc.RpcContext;
+import com.hongframe.raft.storage.LogManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.PriorityQueue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
@@ -22,80 +29,46 @@ public class AppendEntriesRpcImpl implements AppendEntriesRpc {
 
     private static final Logger LOG = LoggerFactory.getLogger(AppendEntriesRpcImpl.class);
 
-    private final ConcurrentMap<String, ConcurrentMap<String, SequenceRequestContext>> seqRequestContexts = new ConcurrentHashMap<>();
+    /**
+     * keyed by the local node, found once per request through its handle or its group and peer.
+     */
+    private final ConcurrentMap<NodeImpl, SequenceRequestContext> seqRequestContexts = new ConcurrentHashMap<>();
 
-    class SequenceMessage implements Comparable<SequenceMessage> {
-        private final int sequence;
-        private final AsyncContext asyncContext;
-        private final Message message;
-        private final int queueSize;
-
-        public SequenceMessage(int sequence, Message message, AsyncContext asyncContext, int queueSize) {
-            this.sequence = sequence;
-            this.message = message;
-            this.asyncContext = asyncContext;
-            this.queueSize = queueSize;
-        }
-
-        public void sendResponse() {
-            asyncContext.signalContextSwitch();
-            asyncContext.write(new Response<>(message));
-        }
-
-        @Override
-        public String toString() {
-            return "SequenceMessage{" +
-                    "sequence=" + sequence +
-                    ", message=" + message +
-                    ", queueSize=" + queueSize +
-                    '}';
-        }
-
-        @Override
-        public int compareTo(SequenceMessage o) {
-            return Integer.compare(this.sequence, o.sequence);
-        }
-    }
-
-    private class SequenceRequestContext {
+    private static class SequenceRequestContext {
         private final String groupId;
         private final String peerId;
-        private int sequence;
-        private int nextRequiredSequence;
-        private final PriorityQueue<SequenceMessage> responseQueue;
+        private final long nodeHandle;
+        private final String leaderId;
+        private final long term;
+        private final ResponseSequencer sequencer;
+        private final LogManager logManager;
         private final static int MAX_PENDING_RESPONSES = 256;
 
-        private SequenceRequestContext(String groupId, String peerId) {
+        private SequenceRequestContext(String groupId, String peerId, long nodeHandle, String leaderId, long term,
+                                       LogManager logManager) {
             this.groupId = groupId;
             this.peerId = peerId;
-            this.responseQueue = new PriorityQueue<>(50);
+            this.nodeHandle = nodeHandle;
+            this.leaderId = leaderId;
+            this.term = term;
+            this.sequencer = new ResponseSequencer(MAX_PENDING_RESPONSES);
+            this.logManager = logManager;
             LOG.info("Create {}", toString());
         }
 
-        boolean hasTooManyPendingResponses() {
-            return this.responseQueue.size() > MAX_PENDING_RESPONSES;
-        }
-
-        int getAndIncreSequence() {
-            int prev = this.sequence;
-            this.sequence++;
-            if (this.sequence < 0) {
-                this.sequence = 0;
-            }
-            return prev;
-        }
-
-        public int getNextRequiredSequence() {
-            return this.nextRequiredSequence;
+        /**
+         * AppendEntries this follower can still take: bounded by the room left in the sequencer and
+         * in the disk queue of the log manager.
+         */
+        int credit() {
+            final long diskRemaining = this.logManager == null ? Integer.MAX_VALUE : this.logManager.getDiskQueueRemainingCapacity();
+            final long credit = Math.min(MAX_PENDING_RESPONSES - this.sequencer.getPendingCount(), diskRemaining);
+            return (int) Math.max(0, credit);
         }
 
-        int getAndIncreRequiredSequence() {
-            int prev = this.nextRequiredSequence;
-            this.nextRequiredSequence++;
-            if (this.nextRequiredSequence < 0) {
-                this.nextRequiredSequence = 0;
-            }
-            return prev;
+        boolean isSameLeader(AppendEntriesRequest request) {
+            return request.getTerm() != null && this.term == request.getTerm()
+                    && this.leaderId != null && this.leaderId.equals(request.getServerId());
         }
 
         @Override
@@ -103,48 +76,44 @@ public class AppendEntriesRpcImpl implements AppendEntriesRpc {
             return "SequenceRequestContext{" +
                     "groupId='" + groupId + '\'' +
                     ", peerId='" + peerId + '\'' +
-                    ", sequence=" + sequence +
-                    ", nextRequiredSequence=" + nextRequiredSequence +
+                    ", nodeHandle=" + nodeHandle +
+                    ", leaderId='" + leaderId + '\'' +
+                    ", term=" + term +
+                    ", sequencer=" + sequencer +
                     '}';
         }
     }
 
-    private SequenceRequestContext getSequenceRequestContext(String groupId, String peerId) {
-        ConcurrentMap<String, SequenceRequestContext> contextConcurrentMap = this.seqRequestContexts.get(groupId);
-        if (contextConcurrentMap == null) {
-            contextConcurrentMap = new ConcurrentHashMap<>();
-            ConcurrentMap<String, SequenceRequestContext> existsCtxs = this.seqRequestContexts.putIfAbsent(groupId,
-                    contextConcurrentMap);
-            if (existsCtxs != null) {
-                contextConcurrentMap = existsCtxs;
+    /**
+     * a new leader, a new term or a full sequencer starts a new context, the pending responses of the
+     * old one still go out in their order.
+     */
+    private SequenceRequestContext getSequenceRequestContext(NodeImpl node, AppendEntriesRequest request) {
+        SequenceRequestContext seqCtx = this.seqRequestContexts.get(node);
+        while (seqCtx == null || !seqCtx.isSameLeader(request) || seqCtx.sequencer.isBroken()) {
+            final NodeId nodeId = node.getNodeId();
+            final SequenceRequestContext newCtx = new SequenceRequestContext(nodeId.getGroupId(), nodeId.getPeerId().toString(),
+                    NodeManager.getInstance().getHandle(nodeId), request.getServerId(),
+                    request.getTerm() == null ? -1 : request.getTerm(), node.getLogManager());
+            if (seqCtx == null ? this.seqRequestContexts.putIfAbsent(node, newCtx) == null
+                    : this.seqRequestContexts.replace(node, seqCtx, newCtx)) {
+                return newCtx;
             }
+            seqCtx = this.seqRequestContexts.get(node);
         }
-        SequenceRequestContext seqCtx = contextConcurrentMap.get(peerId);
-        if (seqCtx == null) {
-            synchronized (contextConcurrentMap) {
-                seqCtx = contextConcurrentMap.get(peerId);
-                if (seqCtx == null) {
-                    seqCtx = new SequenceRequestContext(groupId, peerId);
-                    contextConcurrentMap.put(peerId, seqCtx);
-                }
-            }
-        }
-
         return seqCtx;
     }
 
-    private class SequenceRequestCallback implements RequestCallback {
-        final String groupId;
-        final String peerId;
-        final int reqSeq;
-        final AsyncContext asyncContext;
+    private static class SequenceRequestCallback implements RequestCallback {
+        final SequenceRequestContext seqCtx;
+        final long reqSeq;
+        final AsyncResponse asyncResponse;
 
 
-        public SequenceRequestCallback(String groupId, String peerId, int reqSeq, AsyncContext asyncContext) {
-            this.groupId = groupId;
-            this.peerId = peerId;
+        public SequenceRequestCallback(SequenceRequestContext seqCtx, long reqSeq, AsyncResponse asyncResponse) {
+            this.seqCtx = seqCtx;
             this.reqSeq = reqSeq;
-            this.asyncContext = asyncContext;
+            this.asyncResponse = asyncResponse;
         }
 
         @Override
@@ -156,36 +125,18 @@ public class AppendEntriesRpcImpl implements AppendEntriesRpc {
 
         @Override
         public void sendResponse(final Message msg) {
-            SequenceRequestContext seqCtx = getSequenceRequestContext(this.groupId, this.peerId);
-            final PriorityQueue<SequenceMessage> respQueue = seqCtx.responseQueue;
-            synchronized (respQueue) {
-                respQueue.add(new SequenceMessage(this.reqSeq, msg, asyncContext, respQueue.size()));
-
-                if (!seqCtx.hasTooManyPendingResponses()) {
-                    while (!respQueue.isEmpty()) {
-                        final SequenceMessage queuedResponse = respQueue.peek();
-                        if (queuedResponse.sequence != seqCtx.getNextRequiredSequence()) {
-                            break;
-                        }
-
-                        respQueue.remove();
-                        try {
-                            queuedResponse.sendResponse();
-                        } finally {
-                            seqCtx.getAndIncreRequiredSequence();
-                        }
-                    }
-                } else {
-                    //TODO error
-                }
+            if (msg instanceof AppendEntriesResponse) {
+                ((AppendEntriesResponse) msg).setNodeHandle(this.seqCtx.nodeHandle);
+                ((AppendEntriesResponse) msg).setCredit(this.seqCtx.credit());
             }
+            this.seqCtx.sequencer.complete(this.reqSeq, msg, this.asyncResponse);
         }
 
         @Override
         public String toString() {
             return "SequenceRequestCallback{" +
-                    "groupId='" + groupId + '\'' +
-                    ", peerId='" + peerId + '\'' +
+                    "groupId='" + seqCtx.groupId + '\'' +
+                    ", peerId='" + seqCtx.peerId + '\'' +
                     ", reqSeq=" + reqSeq +
                     '}';
         }
@@ -193,16 +144,132 @@ public class AppendEntriesRpcImpl implements AppendEntriesRpc {
 
     @Override
     public Response<AppendEntriesResponse> appendEntries(AppendEntriesRequest request) {
-        final AsyncContext asyncContext = RpcContext.startAsync();
-        SequenceRequestContext context = getSequenceRequestContext(request.getGroupId(), request.getPeerId());
-        int seq = context.getAndIncreSequence();
-        SequenceRequestCallback sequenceRequestCallback =
-                new SequenceRequestCallback(request.getGroupId(), request.getPeerId(), seq, asyncContext);
-        Message message = getNode(request).handleAppendEntriesRequest(request, sequenceRequestCallback);
+        final NodeImpl node = request.getNodeHandle() != 0
+                ? (NodeImpl) NodeManager.getInstance().getByHandle(request.getNodeHandle())
+                : getNode(request);
+        if (node == null) {
+            // unknown or stale handle, the leader falls back to group and peer
+            return new Response<>(new ErrorResponse(10001, "node not found, handle: " + request.getNodeHandle()));
+        }
+        if (request.isHeartbeat() && request.getEntriesCount() == 0) {
+            // answered at once: the leader handles heartbeats apart from its pipeline, so they need not
+            // wait behind the pending appends
+            final Message message = node.handleAppendEntriesRequest(request, null);
+            if (message instanceof AppendEntriesResponse) {
+                ((AppendEntriesResponse) message).setNodeHandle(NodeManager.getInstance().getHandle(node.getNodeId()));
+            }
+            return new Response(message);
+        }
+        SequenceRequestContext context = getSequenceRequestContext(node, request);
+        if (request.getGroupId() == null) {
+            request.setGroupId(context.groupId);
+            request.setPeerId(context.peerId);
+        }
+        final long seq = context.sequencer.acquire();
+        if (seq < 0) {
+            // too many pending responses, the leader resets its pipeline on the error
+            LOG.warn("too many pending responses of {}, reject {}", context, request);
+            return new Response<>(new ErrorResponse(10001, "too many pending responses"));
+        }
+        final AsyncResponse asyncResponse = RaftRpcContext.startAsync();
+        SequenceRequestCallback sequenceRequestCallback = new SequenceRequestCallback(context, seq, asyncResponse);
+        Message message = node.handleAppendEntriesRequest(request, sequenceRequestCallback);
         if (message != null) {
             sequenceRequestCallback.sendResponse(message);
         }
         return null;
     }
 
+    /**
+     * Collects the responses of a batch, the batch is answered when the last one arrives. Only heartbeats
+     * and explicit batches come here, {@link com.hongframe.raft.rpc.transport.AppendEntriesBatcher} sends
+     * every request on its own so no group waits for another.
+     */
+    private static class BatchResponseCollector {
+        private final Response[] responses;
+        private final AtomicInteger remaining;
+        private final AsyncResponse asyncResponse;
+
+        private BatchResponseCollector(int size, AsyncResponse asyncResponse) {
+            this.responses = new Response[size];
+            this.remaining = new AtomicInteger(size);
+            this.asyncResponse = asyncResponse;
+        }
+
+        AsyncResponse responseAt(final int index) {
+            return response -> {
+                if (response instanceof Response) {
+                    this.responses[index] = (Response) response;
+                } else {
+                    this.responses[index] = new Response<>(new ErrorResponse(10001, "unexpected response: " + response));
+                }
+                if (this.remaining.decrementAndGet() == 0) {
+                    complete();
+                }
+            };
+        }
+
+        void complete() {
+            final BatchAppendEntriesResponse batchResponse = new BatchAppendEntriesResponse();
+            batchResponse.setResponses(Arrays.asList(this.responses));
+            this.asyncResponse.write(new Response<>(batchResponse));
+        }
+    }
+
+    @Override
+    public Response<BatchAppendEntriesResponse> heartbeats(HeartbeatVectorRequest request) {
+        final List<GroupHeartbeat> heartbeats = request.getHeartbeats();
+        final List<Response> responses = new ArrayList<>(heartbeats == null ? 0 : heartbeats.size());
+        if (heartbeats != null) {
+            for (GroupHeartbeat heartbeat : heartbeats) {
+                // a heartbeat is answered at once, never through the sequencer
+                responses.add(appendEntries(toAppendEntriesRequest(request, heartbeat)));
+            }
+        }
+        final BatchAppendEntriesResponse response = new BatchAppendEntriesResponse();
+        response.setResponses(responses);
+        return new Response<>(response);
+    }
+
+    private static AppendEntriesRequest toAppendEntriesRequest(HeartbeatVectorRequest vector, GroupHeartbeat heartbeat) {
+        final AppendEntriesRequest request = new AppendEntriesRequest();
+        request.setHeartbeat(true);
+        request.setNodeHandle(heartbeat.getNodeHandle());
+        request.setGroupId(heartbeat.getGroupId());
+        request.setPeerId(heartbeat.getPeerId());
+        request.setServerId(heartbeat.getServerId() == null ? vector.getServerId() : heartbeat.getServerId());
+        request.setTerm(heartbeat.getTerm());
+        request.setCommittedIndex(heartbeat.getCommittedIndex());
+        request.setPreLogIndex(heartbeat.getPrevLogIndex());
+        request.setPrevLogTerm(heartbeat.getPrevLogTerm());
+        request.setLowestMatchIndex(heartbeat.getLowestMatchIndex());
+        return request;
+    }
+
+    @Override
+    public Response<FetchLogResponse> fetchLog(FetchLogRequest request) {
+        final NodeImpl node = getNode(request);
+        if (node == null) {
+            return new Response<>(new ErrorResponse(10001, "node not found: " + request.getGroupId() + "/" + request.getPeerId()));
+        }
+        return checkResponse(node.handleFetchLogRequest(request));
+    }
+
+    @Override
+    public Response<BatchAppendEntriesResponse> batchAppendEntries(BatchAppendEntriesRequest request) {
+        final AsyncResponse asyncResponse = RaftRpcContext.startAsync();
+        final List<AppendEntriesRequest> requests = request.getRequests();
+        final BatchResponseCollector collector = new BatchResponseCollector(requests.size(), asyncResponse);
+        if (requests.isEmpty()) {
+            collector.complete();
+            return null;
+        }
+        // in order, so the per peer sequence of every group is preserved
+        for (int i = 0; i < requests.size(); i++) {
+            final AppendEntriesRequest appendEntriesRequest = requests.get(i);
+            RaftRpcContext.invoke(collector.responseAt(i), () -> appendEntries(appendEntriesRequest));
+        }
+        return null;
+    }
+
 }
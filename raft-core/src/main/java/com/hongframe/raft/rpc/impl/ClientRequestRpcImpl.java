@@ -5,15 +5,80 @@ import com.hongframe.raft.NodeManager;
 import com.hongframe.raft.Status;
 import com.hongframe.raft.entity.Message;
 import com.hongframe.raft.entity.PeerId;
+import com.hongframe.raft.rpc.AsyncResponse;
 import com.hongframe.raft.rpc.ClientRequests.*;
+import com.hongframe.raft.rpc.RaftRpcContext;
 import com.hongframe.raft.rpc.RpcRequests.*;
 import com.hongframe.raft.rpc.core.ClientRequestRpc;
+import com.hongframe.raft.util.NamedThreadFactory;
 import org.apache.commons.lang3.StringUtils;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class ClientRequestRpcImpl implements ClientRequestRpc {
+
+    private static final int MAX_WATCH_TIMEOUT_MS = 60 * 1000;
+
+    private static final ScheduledExecutorService WATCH_TIMER = Executors.newSingleThreadScheduledExecutor(
+            new NamedThreadFactory("Raft-Leader-Watch-Timer", true));
+    /**
+     * pending leader watches by group, answered by the leader changes of the local nodes.
+     */
+    private static final ConcurrentMap<String, Queue<LeaderWatch>> WATCHES = new ConcurrentHashMap<>();
+
+    static {
+        NodeManager.getInstance().addLeaderChangeListener((groupId, leader, term) -> {
+            final Queue<LeaderWatch> watches = WATCHES.get(groupId);
+            if (watches == null) {
+                return;
+            }
+            for (LeaderWatch watch : watches) {
+                if (term > watch.knownTerm) {
+                    watch.answer(leaderResponse(leader, term));
+                }
+            }
+        });
+    }
+
+    private static class LeaderWatch {
+        private final String groupId;
+        private final long knownTerm;
+        private final AsyncResponse asyncResponse;
+        private final AtomicBoolean done = new AtomicBoolean(false);
+        private volatile ScheduledFuture<?> timeout;
+
+        private LeaderWatch(String groupId, long knownTerm, AsyncResponse asyncResponse) {
+            this.groupId = groupId;
+            this.knownTerm = knownTerm;
+            this.asyncResponse = asyncResponse;
+        }
+
+        private void answer(Message message) {
+            if (!this.done.compareAndSet(false, true)) {
+                return;
+            }
+            final Queue<LeaderWatch> watches = WATCHES.get(this.groupId);
+            if (watches != null) {
+                watches.remove(this);
+            }
+            final ScheduledFuture<?> timeout = this.timeout;
+            if (timeout != null) {
+                timeout.cancel(false);
+            }
+            this.asyncResponse.write(new Response(message));
+        }
+    }
+
     @Override
     public Message getLeader(GetLeaderRequest request) {
         List<Node> nodes = new ArrayList<>();
@@ -36,16 +101,58 @@ public class ClientRequestRpcImpl implements ClientRequestRpc {
             return new ErrorResponse(10001, "nonthing");
         }
 
-        for(Node node : nodes) {
+        final GetLeaderResponse response = currentLeader(nodes);
+        return response != null ? response : noLeader();
+    }
+
+    @Override
+    public Message watchLeader(WatchLeaderRequest request) {
+        final String groupId = request.getGroupId();
+        final List<Node> nodes = NodeManager.getInstance().getNodesByGroupId(groupId);
+        if (nodes == null || nodes.isEmpty()) {
+            return new ErrorResponse(10001, String.format("Empty nodes in group %s", groupId));
+        }
+        final GetLeaderResponse current = currentLeader(nodes);
+        if (current != null && current.getTerm() > request.getKnownTerm()) {
+            return current;
+        }
+        final LeaderWatch watch = new LeaderWatch(groupId, request.getKnownTerm(), RaftRpcContext.startAsync());
+        WATCHES.computeIfAbsent(groupId, k -> new ConcurrentLinkedQueue<>()).add(watch);
+        final int timeoutMs = Math.min(Math.max(1, request.getTimeoutMs()), MAX_WATCH_TIMEOUT_MS);
+        watch.timeout = WATCH_TIMER.schedule(() -> {
+            final GetLeaderResponse leader = currentLeader(nodes);
+            watch.answer(leader != null ? leader : noLeader());
+        }, timeoutMs, TimeUnit.MILLISECONDS);
+        // a leader may have been elected before the watch was registered
+        final GetLeaderResponse leader = currentLeader(nodes);
+        if (leader != null && leader.getTerm() > request.getKnownTerm()) {
+            watch.answer(leader);
+        }
+        return null;
+    }
+
+    private static GetLeaderResponse currentLeader(List<Node> nodes) {
+        for (Node node : nodes.toArray(new Node[0])) {
             PeerId leader = node.getLeaderId();
             if (leader != null && !leader.isEmpty()) {
-                GetLeaderResponse response = new GetLeaderResponse();
-                response.setLeaderId(leader.toString());
-                return response;
+                return leaderResponse(leader, node.getCurrentTerm());
             }
         }
+        return null;
+    }
+
+    /**
+     * none of the nodes knows a leader: a not leader error without hint, the client asks another peer.
+     */
+    private static ErrorResponse noLeader() {
+        return new ErrorResponse(Status.notLeader(null, -1));
+    }
 
-        return new ErrorResponse(10001, "nonthing");
+    private static GetLeaderResponse leaderResponse(PeerId leader, long term) {
+        final GetLeaderResponse response = new GetLeaderResponse();
+        response.setLeaderId(leader.toString());
+        response.setTerm(term);
+        return response;
     }
 
     protected Node getNode(String groupId, PeerId peerId, Status st) {
@@ -3,10 +3,10 @@ package com.hongframe.raft.rpc.impl;
 import com.hongframe.raft.Status;
 import com.hongframe.raft.callback.RequestCallback;
 import com.hongframe.raft.entity.Message;
+import com.hongframe.raft.rpc.AsyncResponse;
+import com.hongframe.raft.rpc.RaftRpcContext;
 import com.hongframe.raft.rpc.RpcRequests.*;
 import com.hongframe.raft.rpc.core.InstallSnapshotRpc;
-import org.apache.dubbo.rpc.AsyncContext;
-import org.apache.dubbo.rpc.RpcContext;
 
 /**
  * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
@@ -16,14 +16,13 @@ public class InstallSnapshotRpcImpl implements InstallSnapshotRpc {
     @Override
     public Message intallSnapshot(InstallSnapshotRequest request) {
 
-        final AsyncContext asyncContext = RpcContext.startAsync();
+        final AsyncResponse asyncResponse = RaftRpcContext.startAsync();
 
         RequestCallback callback = new RequestCallback() {
-            private AsyncContext context = asyncContext;
+            private AsyncResponse context = asyncResponse;
 
             @Override
             public void sendResponse(Message msg) {
-                this.context.signalContextSwitch();
                 this.context.write(checkResponse(msg));
             }
 
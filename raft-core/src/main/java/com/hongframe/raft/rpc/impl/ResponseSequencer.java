@@ -0,0 +1,133 @@
+package com.hongframe.raft.rpc.impl;
+
+import com.hongframe.raft.entity.Message;
+import com.hongframe.raft.rpc.AsyncResponse;
+import com.hongframe.raft.rpc.RpcRequests.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Writes the responses of the requests in the order the requests were accepted, whatever the order
+ * they complete in. A response is published in the slot {@code seq mod capacity} of a fixed ring,
+ * the single thread that wins the drain writes every consecutive published response.
+ * <p>
+ * When {@code capacity} requests are pending, {@link #acquire()} fails and the sequencer is broken:
+ * the caller answers the request with an error and starts a new sequencer, responses acquired
+ * before still go out in order.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 14:05
+ */
+class ResponseSequencer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ResponseSequencer.class);
+
+    private final int mask;
+    private final Message[] messages;
+    private final AsyncResponse[] responses;
+    /**
+     * sequence published in each slot, -1 when empty.
+     */
+    private final AtomicLongArray published;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    /**
+     * next sequence to write, only moved by the drainer, the slots before it are free again.
+     */
+    private volatile long drainSequence;
+    private volatile boolean broken;
+
+    ResponseSequencer(int capacity) {
+        int size = 1;
+        while (size < capacity) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.messages = new Message[size];
+        this.responses = new AsyncResponse[size];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            this.published.set(i, -1);
+        }
+    }
+
+    /**
+     * @return the sequence of the request, -1 if the ring is full
+     */
+    long acquire() {
+        for (; ; ) {
+            if (this.broken) {
+                return -1;
+            }
+            final long seq = this.nextSequence.get();
+            if (seq - this.drainSequence > this.mask) {
+                // the sequence is not taken, so no later request waits behind a hole
+                this.broken = true;
+                return -1;
+            }
+            if (this.nextSequence.compareAndSet(seq, seq + 1)) {
+                return seq;
+            }
+        }
+    }
+
+    void complete(long seq, Message message, AsyncResponse asyncResponse) {
+        final int slot = (int) seq & this.mask;
+        this.messages[slot] = message;
+        this.responses[slot] = asyncResponse;
+        this.published.set(slot, seq);
+        drain();
+    }
+
+    boolean isBroken() {
+        return this.broken;
+    }
+
+    int getPendingCount() {
+        return (int) Math.min(Integer.MAX_VALUE, this.nextSequence.get() - this.drainSequence);
+    }
+
+    private void drain() {
+        if (this.wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        for (; ; ) {
+            long seq = this.drainSequence;
+            for (; ; ) {
+                final int slot = (int) seq & this.mask;
+                if (this.published.get(slot) != seq) {
+                    break;
+                }
+                final Message message = this.messages[slot];
+                final AsyncResponse asyncResponse = this.responses[slot];
+                this.messages[slot] = null;
+                this.responses[slot] = null;
+                this.drainSequence = ++seq;
+                try {
+                    asyncResponse.write(message instanceof Response ? message : new Response<>(message));
+                } catch (Throwable t) {
+                    LOG.error("write response {} fail", message, t);
+                }
+            }
+            missed = this.wip.addAndGet(-missed);
+            if (missed == 0) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ResponseSequencer{" +
+                "capacity=" + (this.mask + 1) +
+                ", nextSequence=" + nextSequence +
+                ", drainSequence=" + drainSequence +
+                ", broken=" + broken +
+                '}';
+    }
+}
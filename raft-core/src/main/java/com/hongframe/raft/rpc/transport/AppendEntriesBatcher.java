@@ -0,0 +1,203 @@
+package com.hongframe.raft.rpc.transport;
+
+import com.hongframe.raft.Status;
+import com.hongframe.raft.callback.Invokeable;
+import com.hongframe.raft.entity.Message;
+import com.hongframe.raft.entity.PeerId;
+import com.hongframe.raft.option.RpcRemoteOptions;
+import com.hongframe.raft.rpc.RpcRequests.*;
+import com.hongframe.raft.util.Endpoint;
+import com.hongframe.raft.util.NamedThreadFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batching of the AppendEntries sent through one {@link RaftClientTransport} to the same endpoint, so
+ * every group sharing the transport shares the batches. Requests are collected for at most
+ * {@link RpcRemoteOptions#getAppendEntriesBatchWindowMs()} or until the batch is full, then written
+ * back to back with {@link RaftClientTransport#invokeAllAsync}. Every request keeps its own response,
+ * a group waiting on its disk never holds back the answer of another one. Only used for a transport
+ * that {@link RaftClientTransport#isCoalescing() coalesces} the writes. Requests sent with different
+ * options never share a batch.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 15:40
+ */
+public final class AppendEntriesBatcher {
+
+    private static final ConcurrentMap<RaftClientTransport, AppendEntriesBatcher> BATCHERS = new ConcurrentHashMap<>();
+
+    private final RaftClientTransport transport;
+    private final ScheduledExecutorService flushTimer;
+    private final ConcurrentMap<BatchKey, EndpointBatch> batches = new ConcurrentHashMap<>();
+
+    /**
+     * an endpoint and the options of the requests batched for it, the options are compared by identity.
+     */
+    private static class BatchKey {
+        private final Endpoint endpoint;
+        private final RpcRemoteOptions options;
+
+        private BatchKey(Endpoint endpoint, RpcRemoteOptions options) {
+            this.endpoint = endpoint;
+            this.options = options;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof BatchKey)) {
+                return false;
+            }
+            final BatchKey other = (BatchKey) o;
+            return this.endpoint.equals(other.endpoint) && this.options == other.options;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.endpoint.hashCode() + System.identityHashCode(this.options);
+        }
+    }
+
+    private static class PendingRequest {
+        private final PeerId peerId;
+        private final AppendEntriesRequest request;
+        private final Invokeable callback;
+
+        private PendingRequest(PeerId peerId, AppendEntriesRequest request, Invokeable callback) {
+            this.peerId = peerId;
+            this.request = request;
+            this.callback = callback;
+        }
+    }
+
+    private class EndpointBatch {
+        private final RpcRemoteOptions options;
+        private List<PendingRequest> pendings = new ArrayList<>();
+        private int bytes;
+        private ScheduledFuture<?> timer;
+
+        private EndpointBatch(RpcRemoteOptions options) {
+            this.options = options;
+        }
+
+        private synchronized void add(PendingRequest pending) {
+            this.pendings.add(pending);
+            this.bytes += estimateSize(pending.request);
+            if (this.pendings.size() >= options.getAppendEntriesBatchMaxCount()
+                    || this.bytes >= options.getAppendEntriesBatchMaxBytes()) {
+                flush();
+            } else if (this.pendings.size() == 1) {
+                final List<PendingRequest> batch = this.pendings;
+                this.timer = flushTimer.schedule(() -> flush(batch), options.getAppendEntriesBatchWindowMs(), TimeUnit.MILLISECONDS);
+            }
+        }
+
+        /**
+         * a timer only flushes the batch it was scheduled for, a later batch waits for its own timer.
+         */
+        private synchronized void flush(List<PendingRequest> batch) {
+            if (this.pendings == batch) {
+                flush();
+            }
+        }
+
+        /**
+         * sends under the lock, so batches of the same endpoint leave in order.
+         */
+        private synchronized void flush() {
+            if (this.timer != null) {
+                this.timer.cancel(false);
+                this.timer = null;
+            }
+            if (this.pendings.isEmpty()) {
+                return;
+            }
+            final List<PendingRequest> flushing = this.pendings;
+            this.pendings = new ArrayList<>();
+            this.bytes = 0;
+            send(flushing);
+        }
+    }
+
+    private AppendEntriesBatcher(RaftClientTransport transport) {
+        this.transport = transport;
+        this.flushTimer = Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("Raft-AppendEntries-Batcher", true));
+    }
+
+    /**
+     * the batcher of transport, created on first use.
+     */
+    public static AppendEntriesBatcher getInstance(RaftClientTransport transport) {
+        return BATCHERS.computeIfAbsent(transport, AppendEntriesBatcher::new);
+    }
+
+    /**
+     * flushes and drops the batcher of transport, a later request creates a new one.
+     */
+    public static void shutdown(RaftClientTransport transport) {
+        final AppendEntriesBatcher batcher = BATCHERS.remove(transport);
+        if (batcher != null) {
+            for (EndpointBatch batch : batcher.batches.values()) {
+                batch.flush();
+            }
+            batcher.flushTimer.shutdownNow();
+        }
+    }
+
+    /**
+     * @param options window and limits of the batch the request joins
+     */
+    public CompletableFuture<?> appendEntries(PeerId peerId, AppendEntriesRequest request, RpcRemoteOptions options, Invokeable callback) {
+        final CompletableFuture<Response> future = new CompletableFuture<>();
+        final Invokeable completing = new Invokeable() {
+            @Override
+            public void invoke(Response response) {
+                future.complete(response);
+                callback.invoke(response);
+            }
+
+            @Override
+            public void run(Status status) {
+                future.complete(null);
+                callback.run(status);
+            }
+        };
+        this.batches.computeIfAbsent(new BatchKey(peerId.getEndpoint(), options), k -> new EndpointBatch(options))
+                .add(new PendingRequest(peerId, request, completing));
+        return future;
+    }
+
+    private void send(final List<PendingRequest> flushing) {
+        final List<PeerId> peerIds = new ArrayList<>(flushing.size());
+        final List<Message> requests = new ArrayList<>(flushing.size());
+        final List<Invokeable> callbacks = new ArrayList<>(flushing.size());
+        for (PendingRequest pending : flushing) {
+            peerIds.add(pending.peerId);
+            requests.add(pending.request);
+            callbacks.add(pending.callback);
+        }
+        this.transport.invokeAllAsync(peerIds, requests, callbacks);
+    }
+
+    private static int estimateSize(AppendEntriesRequest request) {
+        int size = 64;
+        final List<OutLogEntry> entries = request.getOutEntries();
+        if (entries != null) {
+            for (OutLogEntry entry : entries) {
+                size += 32 + entry.getDataSize();
+            }
+        }
+        return size;
+    }
+}
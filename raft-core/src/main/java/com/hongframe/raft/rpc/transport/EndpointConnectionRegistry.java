@@ -0,0 +1,169 @@
+package com.hongframe.raft.rpc.transport;
+
+import com.hongframe.raft.util.Endpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Process wide registry of the connections (dubbo references, netty channels) to remote endpoints.
+ * Every group and every service of the process that talks to the same endpoint reuses the
+ * same connection instead of opening its own.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 09:40
+ */
+public final class EndpointConnectionRegistry {
+
+    private static final Logger LOG = LoggerFactory.getLogger(EndpointConnectionRegistry.class);
+
+    private static final EndpointConnectionRegistry INSTANCE = new EndpointConnectionRegistry();
+
+    private final ConcurrentMap<Endpoint, ConcurrentMap<String, Connection>> connections = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Endpoint, EndpointStats> stats = new ConcurrentHashMap<>();
+
+    private static class Connection {
+        private final Object value;
+        private final Consumer<Object> closer;
+
+        private Connection(Object value, Consumer<Object> closer) {
+            this.value = value;
+            this.closer = closer;
+        }
+
+        private void close() {
+            if (this.closer != null) {
+                this.closer.accept(this.value);
+            }
+        }
+    }
+
+    public static class EndpointStats {
+        private final AtomicLong created = new AtomicLong();
+        private final AtomicLong reused = new AtomicLong();
+        private final AtomicLong closed = new AtomicLong();
+
+        public long getCreated() {
+            return created.get();
+        }
+
+        public long getReused() {
+            return reused.get();
+        }
+
+        public long getClosed() {
+            return closed.get();
+        }
+
+        @Override
+        public String toString() {
+            return "EndpointStats{" +
+                    "created=" + created +
+                    ", reused=" + reused +
+                    ", closed=" + closed +
+                    '}';
+        }
+    }
+
+    private EndpointConnectionRegistry() {
+    }
+
+    public static EndpointConnectionRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * @param name    identifies the connection on the endpoint, e.g. the service interface
+     * @param factory creates the connection, may return null when it can not connect
+     * @param closer  releases the connection when it is removed
+     * @return the shared connection, null if it can not be created
+     */
+    public <T> T getOrCreate(Endpoint endpoint, String name, Function<Endpoint, T> factory, Consumer<T> closer) {
+        final ConcurrentMap<String, Connection> endpointConnections = this.connections.computeIfAbsent(endpoint, k -> new ConcurrentHashMap<>());
+        final EndpointStats endpointStats = getStats(endpoint);
+        Connection connection = endpointConnections.get(name);
+        if (connection != null) {
+            endpointStats.reused.incrementAndGet();
+            return (T) connection.value;
+        }
+        connection = endpointConnections.computeIfAbsent(name, k -> {
+            final T value = factory.apply(endpoint);
+            if (value == null) {
+                return null;
+            }
+            endpointStats.created.incrementAndGet();
+            LOG.info("create connection {} to {}, {}", name, endpoint, endpointStats);
+            return new Connection(value, (Consumer<Object>) closer);
+        });
+        return connection == null ? null : (T) connection.value;
+    }
+
+    /**
+     * removes and closes the connection if it is still the registered one, used to drop broken connections.
+     */
+    public boolean remove(Endpoint endpoint, String name, Object expected) {
+        final ConcurrentMap<String, Connection> endpointConnections = this.connections.get(endpoint);
+        if (endpointConnections == null) {
+            return false;
+        }
+        final Connection connection = endpointConnections.get(name);
+        if (connection == null || connection.value != expected || !endpointConnections.remove(name, connection)) {
+            return false;
+        }
+        getStats(endpoint).closed.incrementAndGet();
+        connection.close();
+        return true;
+    }
+
+    /**
+     * removes and closes every connection whose value matches filter, used when its owner shuts down.
+     */
+    public void removeIf(Predicate<Object> filter) {
+        for (Map.Entry<Endpoint, ConcurrentMap<String, Connection>> entry : this.connections.entrySet()) {
+            for (Map.Entry<String, Connection> connection : entry.getValue().entrySet()) {
+                if (filter.test(connection.getValue().value)) {
+                    remove(entry.getKey(), connection.getKey(), connection.getValue().value);
+                }
+            }
+        }
+    }
+
+    public void closeAll() {
+        for (Map.Entry<Endpoint, ConcurrentMap<String, Connection>> entry : this.connections.entrySet()) {
+            for (Map.Entry<String, Connection> connection : entry.getValue().entrySet()) {
+                remove(entry.getKey(), connection.getKey(), connection.getValue().value);
+            }
+        }
+    }
+
+    public int getConnectionCount() {
+        int count = 0;
+        for (ConcurrentMap<String, Connection> endpointConnections : this.connections.values()) {
+            count += endpointConnections.size();
+        }
+        return count;
+    }
+
+    public int getConnectionCount(Endpoint endpoint) {
+        final ConcurrentMap<String, Connection> endpointConnections = this.connections.get(endpoint);
+        return endpointConnections == null ? 0 : endpointConnections.size();
+    }
+
+    public EndpointStats getStats(Endpoint endpoint) {
+        Objects.requireNonNull(endpoint, "endpoint");
+        return this.stats.computeIfAbsent(endpoint, k -> new EndpointStats());
+    }
+
+    public Map<Endpoint, EndpointStats> getAllStats() {
+        return new HashMap<>(this.stats);
+    }
+}
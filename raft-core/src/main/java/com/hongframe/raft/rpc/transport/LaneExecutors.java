@@ -0,0 +1,230 @@
+package com.hongframe.raft.rpc.transport;
+
+import com.hongframe.raft.option.RpcRemoteOptions;
+import com.hongframe.raft.rpc.AsyncResponse;
+import com.hongframe.raft.rpc.RaftRpcContext;
+import com.hongframe.raft.rpc.RpcRequests.*;
+import com.hongframe.raft.util.NamedThreadFactory;
+import com.hongframe.raft.util.SerializingExecutor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Proxy;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One bounded executor per {@link RpcLane} of a server, with its queue depth and wait time. User
+ * services are not served by the lanes, they keep the dubbo protocol pool, sized by
+ * {@link RpcRemoteOptions#getUserServiceThreads()}.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 09:30
+ */
+public class LaneExecutors {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LaneExecutors.class);
+
+    private static final int APPEND_STRIPES_PER_THREAD = 8;
+
+    private final Map<RpcLane, ThreadPoolExecutor> executors = new EnumMap<>(RpcLane.class);
+    private final Map<RpcLane, LaneStats> stats = new EnumMap<>(RpcLane.class);
+    /**
+     * serial executors of the append lane: the requests of one order key, see {@link RpcLane#orderKey},
+     * run one at a time in arrival order, the requests of other groups still run in parallel.
+     */
+    private final SerializingExecutor[] appendStripes;
+    private final int laneQueueCapacity;
+
+    public static class LaneStats {
+        private final ThreadPoolExecutor executor;
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicLong submitted = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong completed = new AtomicLong();
+        private final AtomicLong maxQueueDepth = new AtomicLong();
+        private final AtomicLong totalWaitNanos = new AtomicLong();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+
+        private LaneStats(ThreadPoolExecutor executor) {
+            this.executor = executor;
+        }
+
+        private void onSubmit() {
+            this.submitted.incrementAndGet();
+            updateMax(this.maxQueueDepth, this.pending.incrementAndGet());
+        }
+
+        private void onStart(long waitNanos) {
+            this.pending.decrementAndGet();
+            this.totalWaitNanos.addAndGet(waitNanos);
+            updateMax(this.maxWaitNanos, waitNanos);
+        }
+
+        private static void updateMax(AtomicLong max, long value) {
+            long prev;
+            while (value > (prev = max.get()) && !max.compareAndSet(prev, value)) {
+            }
+        }
+
+        /**
+         * requests waiting for a thread, including those queued behind their group on the append lane.
+         */
+        public int getQueueDepth() {
+            return this.pending.get();
+        }
+
+        public int getActiveThreads() {
+            return this.executor.getActiveCount();
+        }
+
+        public long getSubmitted() {
+            return submitted.get();
+        }
+
+        public long getRejected() {
+            return rejected.get();
+        }
+
+        public long getCompleted() {
+            return completed.get();
+        }
+
+        public long getMaxQueueDepth() {
+            return maxQueueDepth.get();
+        }
+
+        public long getMaxWaitNanos() {
+            return maxWaitNanos.get();
+        }
+
+        public double getAvgWaitNanos() {
+            final long n = this.completed.get();
+            return n == 0 ? 0 : (double) this.totalWaitNanos.get() / n;
+        }
+
+        @Override
+        public String toString() {
+            return "LaneStats{" +
+                    "queueDepth=" + getQueueDepth() +
+                    ", activeThreads=" + getActiveThreads() +
+                    ", submitted=" + submitted +
+                    ", rejected=" + rejected +
+                    ", completed=" + completed +
+                    ", maxQueueDepth=" + maxQueueDepth +
+                    ", avgWaitNanos=" + getAvgWaitNanos() +
+                    ", maxWaitNanos=" + maxWaitNanos +
+                    '}';
+        }
+    }
+
+    public LaneExecutors(String name, RpcRemoteOptions options) {
+        this.laneQueueCapacity = options.getLaneQueueCapacity();
+        for (RpcLane lane : RpcLane.values()) {
+            final int threads = Math.max(1, options.getLaneThreads(lane));
+            final NamedThreadFactory threadFactory = new NamedThreadFactory(name + "-" + lane.name().toLowerCase(), true);
+            final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(options.getLaneQueueCapacity()), r -> {
+                final Thread thread = threadFactory.newThread(r);
+                if (lane.isControl()) {
+                    thread.setPriority(Thread.MAX_PRIORITY);
+                }
+                return thread;
+            });
+            this.executors.put(lane, executor);
+            this.stats.put(lane, new LaneStats(executor));
+        }
+        final ThreadPoolExecutor appendExecutor = this.executors.get(RpcLane.APPEND);
+        this.appendStripes = new SerializingExecutor[appendExecutor.getMaximumPoolSize() * APPEND_STRIPES_PER_THREAD];
+        for (int i = 0; i < this.appendStripes.length; i++) {
+            this.appendStripes[i] = new SerializingExecutor(appendExecutor);
+        }
+    }
+
+    /**
+     * @param orderKey requests of the same key run in submission order, null if they may run in any order
+     * @return false if the lane is full or shut down
+     */
+    public boolean execute(RpcLane lane, Object orderKey, Runnable task) {
+        final LaneStats laneStats = this.stats.get(lane);
+        final long submitNanos = System.nanoTime();
+        final Runnable counted = () -> {
+            laneStats.onStart(System.nanoTime() - submitNanos);
+            try {
+                task.run();
+            } finally {
+                laneStats.completed.incrementAndGet();
+            }
+        };
+        final ThreadPoolExecutor executor = this.executors.get(lane);
+        if (orderKey != null && lane == RpcLane.APPEND) {
+            // the stripes queue outside the pool, the lane capacity bounds them instead
+            if (executor.isShutdown() || laneStats.pending.get() >= this.laneQueueCapacity) {
+                return reject(lane, laneStats);
+            }
+            laneStats.onSubmit();
+            this.appendStripes[Math.floorMod(orderKey.hashCode(), this.appendStripes.length)].execute(counted);
+            return true;
+        }
+        try {
+            laneStats.onSubmit();
+            executor.execute(counted);
+            return true;
+        } catch (RejectedExecutionException e) {
+            laneStats.pending.decrementAndGet();
+            return reject(lane, laneStats);
+        }
+    }
+
+    private static boolean reject(RpcLane lane, LaneStats laneStats) {
+        laneStats.rejected.incrementAndGet();
+        LOG.warn("{} lane rejects a request, {}", lane, laneStats);
+        return false;
+    }
+
+    /**
+     * runs {@code call} on the lane of {@code request} and writes its result to {@code response}.
+     */
+    public void dispatch(Object request, RpcLane defaultLane, AsyncResponse response, Callable<Object> call) {
+        final RpcLane lane = RpcLane.of(request, defaultLane);
+        if (!execute(lane, RpcLane.orderKey(request), () -> RaftRpcContext.invoke(response, call))) {
+            response.write(new Response<>(new ErrorResponse(10001, lane + " lane is busy")));
+        }
+    }
+
+    /**
+     * wraps a service exported by dubbo, so its methods leave the dubbo thread at once and run on
+     * the lane of their request. The service must use {@link RaftRpcContext#startAsync()}.
+     */
+    public <T> T proxy(Class<T> serviceInterface, Object service, RpcLane defaultLane) {
+        return (T) Proxy.newProxyInstance(serviceInterface.getClassLoader(), new Class[]{serviceInterface}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return method.invoke(service, args);
+            }
+            final Object request = args != null && args.length == 1 ? args[0] : null;
+            dispatch(request, defaultLane, RaftRpcContext.startAsync(), () -> method.invoke(service, args));
+            return null;
+        });
+    }
+
+    public LaneStats getStats(RpcLane lane) {
+        return this.stats.get(lane);
+    }
+
+    public Map<RpcLane, LaneStats> getAllStats() {
+        return new EnumMap<>(this.stats);
+    }
+
+    public void shutdown() {
+        for (ThreadPoolExecutor executor : this.executors.values()) {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.hongframe.raft.rpc.transport;
+
+import com.hongframe.raft.callback.Invokeable;
+import com.hongframe.raft.entity.Message;
+import com.hongframe.raft.entity.PeerId;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 21:05
+ */
+public interface RaftClientTransport {
+
+    boolean connect(PeerId peerId);
+
+    /**
+     * {@code callback} is always invoked, failures are reported as an error response.
+     */
+    CompletableFuture<?> invokeAsync(PeerId peerId, Message request, Invokeable callback);
+
+    /**
+     * sends requests to the same endpoint back to back, each one answered on its own through the
+     * callback at the same position. The default sends them one by one.
+     */
+    default void invokeAllAsync(List<PeerId> peerIds, List<Message> requests, List<Invokeable> callbacks) {
+        for (int i = 0; i < requests.size(); i++) {
+            invokeAsync(peerIds.get(i), requests.get(i), callbacks.get(i));
+        }
+    }
+
+    /**
+     * true if {@link #invokeAllAsync} writes the requests together. Batching for a transport that sends
+     * them one by one only adds latency, so it is off for such a transport.
+     */
+    default boolean isCoalescing() {
+        return false;
+    }
+
+    void shutdown();
+
+}
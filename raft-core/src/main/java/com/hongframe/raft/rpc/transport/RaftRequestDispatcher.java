@@ -0,0 +1,79 @@
+package com.hongframe.raft.rpc.transport;
+
+import com.hongframe.raft.entity.Message;
+import com.hongframe.raft.rpc.AsyncResponse;
+import com.hongframe.raft.rpc.RpcRequests.*;
+import com.hongframe.raft.rpc.core.*;
+
+import java.util.Map;
+
+/**
+ * Routes a decoded raft request to its service implementation. The implementations are shared
+ * by every transport of the server.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 21:05
+ */
+public class RaftRequestDispatcher {
+
+    private final Map<Class, Object> services;
+    private final LaneExecutors lanes;
+
+    public RaftRequestDispatcher(Map<Class, Object> services, LaneExecutors lanes) {
+        this.services = services;
+        this.lanes = lanes;
+    }
+
+    public Map<Class, Object> getServices() {
+        return services;
+    }
+
+    public LaneExecutors getLanes() {
+        return lanes;
+    }
+
+    /**
+     * dispatches on the {@link RpcLane} of the request, the result is written to {@code response}.
+     */
+    public void dispatchAsync(Message request, AsyncResponse response) {
+        this.lanes.dispatch(request, RpcLane.CLIENT, response, () -> dispatch(request));
+    }
+
+    public Object dispatch(Message request) {
+        if (request instanceof AppendEntriesRequest) {
+            return ((AppendEntriesRpc) getService(AppendEntriesRpc.class)).appendEntries((AppendEntriesRequest) request);
+        }
+        if (request instanceof BatchAppendEntriesRequest) {
+            return ((AppendEntriesRpc) getService(AppendEntriesRpc.class)).batchAppendEntries((BatchAppendEntriesRequest) request);
+        }
+        if (request instanceof HeartbeatVectorRequest) {
+            return ((AppendEntriesRpc) getService(AppendEntriesRpc.class)).heartbeats((HeartbeatVectorRequest) request);
+        }
+        if (request instanceof FetchLogRequest) {
+            return ((AppendEntriesRpc) getService(AppendEntriesRpc.class)).fetchLog((FetchLogRequest) request);
+        }
+        if (request instanceof RequestVoteRequest) {
+            final RequestVoteRequest voteRequest = (RequestVoteRequest) request;
+            final RequestVoteRpc service = (RequestVoteRpc) getService(RequestVoteRpc.class);
+            return voteRequest.isPreVote() ? service.preVote(voteRequest) : service.requestVote(voteRequest);
+        }
+        if (request instanceof ReadIndexRequest) {
+            return ((ReadIndexRpc) getService(ReadIndexRpc.class)).readIndex((ReadIndexRequest) request);
+        }
+        if (request instanceof InstallSnapshotRequest) {
+            return ((InstallSnapshotRpc) getService(InstallSnapshotRpc.class)).intallSnapshot((InstallSnapshotRequest) request);
+        }
+        if (request instanceof GetFileRequest) {
+            return ((GetFileRpc) getService(GetFileRpc.class)).getFile((GetFileRequest) request);
+        }
+        return new Response<>(new ErrorResponse(10001, "Unsupported request: " + (request == null ? null : request.getClass().getName())));
+    }
+
+    private Object getService(Class serviceInterface) {
+        final Object service = this.services.get(serviceInterface);
+        if (service == null) {
+            throw new IllegalStateException(serviceInterface.getSimpleName() + " is not registered");
+        }
+        return service;
+    }
+}
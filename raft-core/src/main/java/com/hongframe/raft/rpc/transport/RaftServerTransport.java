@@ -0,0 +1,13 @@
+package com.hongframe.raft.rpc.transport;
+
+/**
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 21:05
+ */
+public interface RaftServerTransport {
+
+    boolean start(RaftRequestDispatcher dispatcher);
+
+    void shutdown();
+
+}
@@ -0,0 +1,26 @@
+package com.hongframe.raft.rpc.transport;
+
+import com.hongframe.raft.option.RpcRemoteOptions;
+import com.hongframe.raft.util.Endpoint;
+
+/**
+ * SPI of the transport carrying the raft services (vote, append entries, read index, snapshot).
+ * Client and user services are always served by dubbo.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 21:05
+ */
+public interface RaftTransportFactory {
+
+    RaftClientTransport createClientTransport(RpcRemoteOptions options);
+
+    RaftServerTransport createServerTransport(Endpoint endpoint, RpcRemoteOptions options);
+
+    /**
+     * all the nodes live in this process, no dubbo server is started then.
+     */
+    default boolean isInProcess() {
+        return false;
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.hongframe.raft.rpc.transport;
+
+import com.hongframe.raft.rpc.ClientRequests.*;
+import com.hongframe.raft.rpc.RpcRequests.*;
+
+import java.util.List;
+
+/**
+ * Classes of the requests served by a raft server, every lane has its own executor so elections
+ * and heartbeats never wait behind bulk appends or snapshots. User services stay on the dubbo
+ * protocol pool.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 09:30
+ */
+public enum RpcLane {
+
+    ELECTION(true),
+    HEARTBEAT(true),
+    APPEND(false),
+    SNAPSHOT(false),
+    CLIENT(false);
+
+    /**
+     * latency critical lanes run on threads of higher priority.
+     */
+    private final boolean control;
+
+    RpcLane(boolean control) {
+        this.control = control;
+    }
+
+    public boolean isControl() {
+        return control;
+    }
+
+    public static RpcLane of(Object request, RpcLane defaultLane) {
+        if (request instanceof AppendEntriesRequest) {
+            return isHeartbeat((AppendEntriesRequest) request) ? HEARTBEAT : APPEND;
+        }
+        if (request instanceof BatchAppendEntriesRequest) {
+            final List<AppendEntriesRequest> requests = ((BatchAppendEntriesRequest) request).getRequests();
+            if (requests != null) {
+                for (AppendEntriesRequest appendEntriesRequest : requests) {
+                    if (!isHeartbeat(appendEntriesRequest)) {
+                        return APPEND;
+                    }
+                }
+            }
+            return HEARTBEAT;
+        }
+        if (request instanceof HeartbeatVectorRequest) {
+            return HEARTBEAT;
+        }
+        if (request instanceof RequestVoteRequest) {
+            return ELECTION;
+        }
+        if (request instanceof InstallSnapshotRequest || request instanceof GetFileRequest || request instanceof FetchLogRequest) {
+            return SNAPSHOT;
+        }
+        if (request instanceof ReadIndexRequest || request instanceof GetLeaderRequest || request instanceof WatchLeaderRequest
+                || request instanceof ChangePeersRequest || request instanceof AddPeerRequest || request instanceof RemovePeerRequest) {
+            return CLIENT;
+        }
+        return defaultLane;
+    }
+
+    /**
+     * the requests a leader sends to one group must be handled in the order they arrive: they are
+     * keyed by group, target peer and leader. A batch of several groups is keyed by its leader.
+     * Null for the other requests.
+     */
+    public static Object orderKey(Object request) {
+        if (request instanceof AppendEntriesRequest) {
+            final AppendEntriesRequest appendEntriesRequest = (AppendEntriesRequest) request;
+            return appendEntriesRequest.getGroupId() + "/" + appendEntriesRequest.getPeerId() + "/" + appendEntriesRequest.getServerId();
+        }
+        if (request instanceof BatchAppendEntriesRequest) {
+            final List<AppendEntriesRequest> requests = ((BatchAppendEntriesRequest) request).getRequests();
+            return requests == null || requests.isEmpty() ? null : requests.get(0).getServerId();
+        }
+        return null;
+    }
+
+    private static boolean isHeartbeat(AppendEntriesRequest request) {
+        return request.isHeartbeat() && request.getEntriesCount() == 0;
+    }
+}
@@ -0,0 +1,88 @@
+package com.hongframe.raft.rpc.transport.dubbo;
+
+import com.hongframe.raft.callback.Invokeable;
+import com.hongframe.raft.entity.Message;
+import com.hongframe.raft.entity.PeerId;
+import com.hongframe.raft.option.RpcRemoteOptions;
+import com.hongframe.raft.rpc.AbstractRpcClient;
+import com.hongframe.raft.rpc.RpcRequests.*;
+import com.hongframe.raft.rpc.core.*;
+import com.hongframe.raft.rpc.transport.EndpointConnectionRegistry;
+import com.hongframe.raft.rpc.transport.RaftClientTransport;
+import com.hongframe.raft.util.Utils;
+import org.apache.dubbo.config.ReferenceConfig;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 21:05
+ */
+public class DubboClientTransport extends AbstractRpcClient implements RaftClientTransport {
+
+    public DubboClientTransport(RpcRemoteOptions options) {
+        super(options);
+    }
+
+    @Override
+    public CompletableFuture<?> invokeAsync(PeerId peerId, Message request, Invokeable callback) {
+        if (request instanceof AppendEntriesRequest) {
+            final AppendEntriesRequest req = (AppendEntriesRequest) request;
+            return invokeAsync(peerId, request, callback, service -> ((AppendEntriesRpc) service).appendEntries(req));
+        }
+        if (request instanceof BatchAppendEntriesRequest) {
+            final BatchAppendEntriesRequest req = (BatchAppendEntriesRequest) request;
+            return invokeAsync(peerId, request, callback, service -> ((AppendEntriesRpc) service).batchAppendEntries(req));
+        }
+        if (request instanceof HeartbeatVectorRequest) {
+            final HeartbeatVectorRequest req = (HeartbeatVectorRequest) request;
+            return invokeAsync(peerId, request, callback, service -> ((AppendEntriesRpc) service).heartbeats(req));
+        }
+        if (request instanceof FetchLogRequest) {
+            final FetchLogRequest req = (FetchLogRequest) request;
+            return invokeAsync(peerId, request, callback, service -> ((AppendEntriesRpc) service).fetchLog(req));
+        }
+        if (request instanceof RequestVoteRequest) {
+            final RequestVoteRequest req = (RequestVoteRequest) request;
+            if (req.isPreVote()) {
+                return invokeAsync(peerId, request, callback, service -> ((RequestVoteRpc) service).preVote(req));
+            }
+            return invokeAsync(peerId, request, callback, service -> ((RequestVoteRpc) service).requestVote(req));
+        }
+        if (request instanceof ReadIndexRequest) {
+            final ReadIndexRequest req = (ReadIndexRequest) request;
+            return invokeAsync(peerId, request, callback, service -> ((ReadIndexRpc) service).readIndex(req));
+        }
+        if (request instanceof InstallSnapshotRequest) {
+            final InstallSnapshotRequest req = (InstallSnapshotRequest) request;
+            return invokeAsync(peerId, request, callback, service -> ((InstallSnapshotRpc) service).intallSnapshot(req));
+        }
+        if (request instanceof GetFileRequest) {
+            final GetFileRequest req = (GetFileRequest) request;
+            return invokeAsync(peerId, request, callback, service -> ((GetFileRpc) service).getFile(req));
+        }
+        Utils.runInThread(() -> callback.invoke(new Response(new ErrorResponse(10001, "Unsupported request: " + request.getClass().getName()))));
+        return null;
+    }
+
+    @Override
+    protected Map<String, ReferenceConfig> addReferenceConfig(PeerId peerId) {
+        Map<String, ReferenceConfig> referenceConfigMap = new HashMap<>();
+        List<Class> classes = this.getRpcRemoteOptions().getServicesInterface();
+        for (Class c : classes) {
+            referenceConfigMap.put(c.getSimpleName(), getSharedReferenceConfig(peerId, c, false, 0));
+        }
+        return referenceConfigMap;
+    }
+
+    /**
+     * the references are shared with the other clients, they are released by {@link EndpointConnectionRegistry}.
+     */
+    @Override
+    public void shutdown() {
+        getReferences().clear();
+    }
+}
@@ -0,0 +1,42 @@
+package com.hongframe.raft.rpc.transport.dubbo;
+
+import com.hongframe.raft.rpc.RpcServer;
+import com.hongframe.raft.rpc.transport.RaftRequestDispatcher;
+import com.hongframe.raft.rpc.transport.RaftServerTransport;
+import com.hongframe.raft.rpc.transport.RpcLane;
+import org.apache.dubbo.config.ServiceConfig;
+import org.apache.dubbo.config.bootstrap.DubboBootstrap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Registers the raft services on the shared {@link DubboBootstrap}, they are exported when
+ * {@link RpcServer} starts it.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 21:05
+ */
+public class DubboServerTransport implements RaftServerTransport {
+
+    private final List<ServiceConfig> services = new ArrayList<>();
+
+    @Override
+    public boolean start(RaftRequestDispatcher dispatcher) {
+        for (Map.Entry<Class, Object> entry : dispatcher.getServices().entrySet()) {
+            // served on the lane of their request instead of the dubbo protocol pool
+            this.services.add(RpcServer.createServiceConfig(entry.getKey(),
+                    dispatcher.getLanes().proxy(entry.getKey(), entry.getValue(), RpcLane.CLIENT)));
+        }
+        DubboBootstrap.getInstance().services(this.services);
+        return true;
+    }
+
+    @Override
+    public void shutdown() {
+        for (ServiceConfig service : this.services) {
+            service.unexport();
+        }
+    }
+}
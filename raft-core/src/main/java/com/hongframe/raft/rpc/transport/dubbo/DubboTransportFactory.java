@@ -0,0 +1,26 @@
+package com.hongframe.raft.rpc.transport.dubbo;
+
+import com.hongframe.raft.option.RpcRemoteOptions;
+import com.hongframe.raft.rpc.transport.RaftClientTransport;
+import com.hongframe.raft.rpc.transport.RaftServerTransport;
+import com.hongframe.raft.rpc.transport.RaftTransportFactory;
+import com.hongframe.raft.util.Endpoint;
+
+/**
+ * The default transport: raft services are exported next to the user services on the dubbo port.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 21:05
+ */
+public class DubboTransportFactory implements RaftTransportFactory {
+
+    @Override
+    public RaftClientTransport createClientTransport(RpcRemoteOptions options) {
+        return new DubboClientTransport(options);
+    }
+
+    @Override
+    public RaftServerTransport createServerTransport(Endpoint endpoint, RpcRemoteOptions options) {
+        return new DubboServerTransport();
+    }
+}
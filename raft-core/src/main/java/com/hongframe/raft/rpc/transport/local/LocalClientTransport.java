@@ -0,0 +1,155 @@
+package com.hongframe.raft.rpc.transport.local;
+
+import com.hongframe.raft.callback.Invokeable;
+import com.hongframe.raft.entity.Message;
+import com.hongframe.raft.entity.PeerId;
+import com.hongframe.raft.option.RpcRemoteOptions;
+import com.hongframe.raft.rpc.AbstractRpcClient;
+import com.hongframe.raft.rpc.RpcRequests.*;
+import com.hongframe.raft.rpc.codec.RpcMessageCodec;
+import com.hongframe.raft.rpc.transport.RaftClientTransport;
+import com.hongframe.raft.rpc.transport.RaftRequestDispatcher;
+import com.hongframe.raft.util.Endpoint;
+
+import java.net.ConnectException;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Every destination has its own link, the requests of a link are delivered one by one in sending order.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 14:10
+ */
+public class LocalClientTransport implements RaftClientTransport {
+
+    private final LocalTransportFactory factory;
+    private final RpcRemoteOptions options;
+    private final ConcurrentMap<Endpoint, Link> links = new ConcurrentHashMap<>();
+
+    private static class Delivery {
+        private final long deliverNanos;
+        private final Runnable task;
+
+        private Delivery(long deliverNanos, Runnable task) {
+            this.deliverNanos = deliverNanos;
+            this.task = task;
+        }
+    }
+
+    private class Link {
+        private final Queue<Delivery> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger wip = new AtomicInteger();
+        private long busyUntilNanos;
+
+        /**
+         * the bandwidth is shared by the messages of the link, so a large message delays the next ones.
+         */
+        private synchronized void send(int bytes, Runnable task) {
+            final long now = System.nanoTime();
+            long start = Math.max(now, this.busyUntilNanos);
+            final long bandwidth = options.getLocalBandwidthBytesPerSec();
+            if (bandwidth > 0) {
+                start += bytes * TimeUnit.SECONDS.toNanos(1) / bandwidth;
+            }
+            this.busyUntilNanos = start;
+            this.queue.add(new Delivery(start + TimeUnit.MILLISECONDS.toNanos(options.getLocalDelayMs()), task));
+            drain();
+        }
+
+        private void drain() {
+            if (this.wip.getAndIncrement() != 0) {
+                return;
+            }
+            factory.getExecutor().execute(this::run);
+        }
+
+        private void run() {
+            int missed = 1;
+            for (; ; ) {
+                Delivery delivery;
+                while ((delivery = this.queue.peek()) != null) {
+                    final long waitNanos = delivery.deliverNanos - System.nanoTime();
+                    if (waitNanos > 0) {
+                        factory.getTimer().schedule(() -> {
+                            this.wip.set(0);
+                            drain();
+                        }, waitNanos, TimeUnit.NANOSECONDS);
+                        return;
+                    }
+                    this.queue.poll();
+                    delivery.task.run();
+                }
+                missed = this.wip.addAndGet(-missed);
+                if (missed == 0) {
+                    return;
+                }
+            }
+        }
+    }
+
+    public LocalClientTransport(LocalTransportFactory factory, RpcRemoteOptions options) {
+        this.factory = factory;
+        this.options = options;
+    }
+
+    @Override
+    public boolean connect(PeerId peerId) {
+        return this.factory.getServer(peerId.getEndpoint()) != null;
+    }
+
+    @Override
+    public CompletableFuture<?> invokeAsync(PeerId peerId, Message request, Invokeable callback) {
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        future.whenCompleteAsync((result, e) -> {
+            if (e == null) {
+                callback.invoke(AbstractRpcClient.toResponse(result));
+            } else {
+                callback.invoke(new Response(new ErrorResponse(10001, e.toString())));
+            }
+        }, this.factory.getExecutor());
+
+        final Endpoint endpoint = peerId.getEndpoint();
+        final RaftRequestDispatcher server = this.factory.getServer(endpoint);
+        if (server == null) {
+            future.completeExceptionally(new ConnectException("No local server on " + endpoint));
+            return future;
+        }
+        final ScheduledFuture<?> timeout = this.factory.getTimer().schedule(
+                () -> future.completeExceptionally(new TimeoutException("Waiting response of " + request.method() + " timeout")),
+                this.options.getRpcTimeoutMs(), TimeUnit.MILLISECONDS);
+        future.whenComplete((r, e) -> timeout.cancel(false));
+
+        if (ThreadLocalRandom.current().nextDouble() < this.options.getLocalDropRate()) {
+            // lost, the caller only sees the timeout
+            return future;
+        }
+        // encoded like on the wire, so the receiver never shares objects with the sender
+        final byte[] payload = RpcMessageCodec.encode(request);
+        this.links.computeIfAbsent(endpoint, k -> new Link()).send(payload.length, () -> {
+            final Message copy = (Message) RpcMessageCodec.decode(payload);
+            final AtomicBoolean written = new AtomicBoolean(false);
+            server.dispatchAsync(copy, response -> {
+                if (!written.compareAndSet(false, true)) {
+                    return;
+                }
+                final Object answer = RpcMessageCodec.isSupported(response) ? RpcMessageCodec.decode(RpcMessageCodec.encode(response))
+                        : new Response<>(new ErrorResponse(10001, "Unsupported response: " + response));
+                final long delayMs = this.options.getLocalDelayMs();
+                if (delayMs > 0) {
+                    this.factory.getTimer().schedule(() -> future.complete(answer), delayMs, TimeUnit.MILLISECONDS);
+                } else {
+                    future.complete(answer);
+                }
+            });
+        });
+        return future;
+    }
+
+    @Override
+    public void shutdown() {
+        this.links.clear();
+    }
+}
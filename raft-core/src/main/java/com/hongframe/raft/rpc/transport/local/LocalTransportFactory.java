@@ -0,0 +1,73 @@
+package com.hongframe.raft.rpc.transport.local;
+
+import com.hongframe.raft.option.RpcRemoteOptions;
+import com.hongframe.raft.rpc.transport.RaftClientTransport;
+import com.hongframe.raft.rpc.transport.RaftRequestDispatcher;
+import com.hongframe.raft.rpc.transport.RaftServerTransport;
+import com.hongframe.raft.rpc.transport.RaftTransportFactory;
+import com.hongframe.raft.util.Endpoint;
+import com.hongframe.raft.util.NamedThreadFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * In-JVM transport: every node of the cluster runs in this process and the raft requests go
+ * through queues instead of sockets. Delay, bandwidth and drop of the links are injected from
+ * {@link RpcRemoteOptions}, used for tests and for benchmarks of the consensus core alone.
+ * <p>
+ * Dubbo is not started, so client and user services are not available.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 14:10
+ */
+public class LocalTransportFactory implements RaftTransportFactory {
+
+    private final ConcurrentMap<Endpoint, RaftRequestDispatcher> servers = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService timer =
+            Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("Raft-Local-Timer", true));
+
+    private final ExecutorService executor =
+            Executors.newCachedThreadPool(new NamedThreadFactory("Raft-Local-Transport", true));
+
+    @Override
+    public RaftClientTransport createClientTransport(RpcRemoteOptions options) {
+        return new LocalClientTransport(this, options);
+    }
+
+    @Override
+    public RaftServerTransport createServerTransport(Endpoint endpoint, RpcRemoteOptions options) {
+        return new RaftServerTransport() {
+            @Override
+            public boolean start(RaftRequestDispatcher dispatcher) {
+                return servers.putIfAbsent(endpoint, dispatcher) == null;
+            }
+
+            @Override
+            public void shutdown() {
+                servers.remove(endpoint);
+            }
+        };
+    }
+
+    @Override
+    public boolean isInProcess() {
+        return true;
+    }
+
+    RaftRequestDispatcher getServer(Endpoint endpoint) {
+        return this.servers.get(endpoint);
+    }
+
+    ScheduledExecutorService getTimer() {
+        return timer;
+    }
+
+    ExecutorService getExecutor() {
+        return executor;
+    }
+}
@@ -0,0 +1,48 @@
+package com.hongframe.raft.rpc.transport.netty;
+
+import com.hongframe.raft.rpc.codec.MessageInput;
+import io.netty.buffer.ByteBuf;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads from a frame buffer that is released after decoding, so payloads are copied out.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 21:05
+ */
+public class ByteBufMessageInput implements MessageInput {
+
+    private final ByteBuf buf;
+    private final int maxRawLength;
+
+    /**
+     * @param maxRawLength frame limit of the transport, a frame never carries a larger payload
+     */
+    public ByteBufMessageInput(ByteBuf buf, int maxRawLength) {
+        this.buf = buf;
+        this.maxRawLength = maxRawLength;
+    }
+
+    @Override
+    public int readByte() {
+        return this.buf.readUnsignedByte();
+    }
+
+    @Override
+    public byte[] readBytes(int len) {
+        final byte[] bs = new byte[len];
+        this.buf.readBytes(bs);
+        return bs;
+    }
+
+    @Override
+    public ByteBuffer readBuffer(int len) {
+        return ByteBuffer.wrap(readBytes(len));
+    }
+
+    @Override
+    public int getMaxRawLength() {
+        return this.maxRawLength;
+    }
+}
@@ -0,0 +1,36 @@
+package com.hongframe.raft.rpc.transport.netty;
+
+import com.hongframe.raft.rpc.codec.MessageOutput;
+import io.netty.buffer.ByteBuf;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Writes the codec output straight into the (direct) frame buffer, no intermediate byte[].
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 21:05
+ */
+public class ByteBufMessageOutput implements MessageOutput {
+
+    private final ByteBuf buf;
+
+    public ByteBufMessageOutput(ByteBuf buf) {
+        this.buf = buf;
+    }
+
+    @Override
+    public void writeByte(int b) {
+        this.buf.writeByte(b);
+    }
+
+    @Override
+    public void writeBytes(byte[] src, int off, int len) {
+        this.buf.writeBytes(src, off, len);
+    }
+
+    @Override
+    public void writeBytes(ByteBuffer src) {
+        this.buf.writeBytes(src.duplicate());
+    }
+}
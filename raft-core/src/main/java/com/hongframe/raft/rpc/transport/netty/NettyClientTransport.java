@@ -0,0 +1,308 @@
+package com.hongframe.raft.rpc.transport.netty;
+
+import com.hongframe.raft.callback.Invokeable;
+import com.hongframe.raft.entity.Message;
+import com.hongframe.raft.entity.PeerId;
+import com.hongframe.raft.option.RpcRemoteOptions;
+import com.hongframe.raft.rpc.AbstractRpcClient;
+import com.hongframe.raft.rpc.RpcRequests.*;
+import com.hongframe.raft.rpc.codec.RpcMessageCodec;
+import com.hongframe.raft.rpc.transport.EndpointConnectionRegistry;
+import com.hongframe.raft.rpc.transport.RaftClientTransport;
+import com.hongframe.raft.util.Endpoint;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.*;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.flush.FlushConsolidationHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Channels to a remote endpoint are shared by the whole process through {@link EndpointConnectionRegistry},
+ * concurrent calls are multiplexed by request id.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 21:05
+ */
+public class NettyClientTransport implements RaftClientTransport {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NettyClientTransport.class);
+
+    private final RpcRemoteOptions options;
+    private final Executor callbackExecutor;
+    private final Bootstrap bootstrap;
+    private final ConcurrentMap<Long, PendingCall> pendingCalls = new ConcurrentHashMap<>();
+    private final AtomicLong requestIdGenerator = new AtomicLong();
+    private final EventLoopGroup group;
+    private final Set<ChannelFuture> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger refs = new AtomicInteger();
+    private volatile boolean shutdown;
+
+    private static class PendingCall {
+        private final Channel channel;
+        private final CompletableFuture<Object> future;
+
+        private PendingCall(Channel channel, CompletableFuture<Object> future) {
+            this.channel = channel;
+            this.future = future;
+        }
+    }
+
+    public NettyClientTransport(RpcRemoteOptions options, EventLoopGroup group, Executor callbackExecutor) {
+        this.options = options;
+        this.callbackExecutor = callbackExecutor;
+        this.group = group;
+        this.bootstrap = new Bootstrap()
+                .group(group)
+                .channel(NioSocketChannel.class)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, options.getNettyConnectTimeoutMs())
+                .handler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline().addLast(new FlushConsolidationHandler());
+                        ch.pipeline().addLast(NettyFrames.newFrameDecoder(options.getNettyMaxFrameSize()));
+                        ch.pipeline().addLast(new ResponseHandler());
+                    }
+                });
+    }
+
+    private Endpoint transportEndpoint(PeerId peerId) {
+        return new Endpoint(peerId.getIp(), peerId.getPort() + this.options.getNettyPortOffset());
+    }
+
+    /**
+     * the channel of the requests of one group to one peer, so a replicator's pipelined requests
+     * never overtake each other on different connections.
+     */
+    private int channelSlot(PeerId peerId, Message request) {
+        return Math.floorMod(Objects.hash(request.getGroupId(), peerId), this.options.getConnectionsPerEndpoint());
+    }
+
+    private ChannelFuture getConnection(Endpoint endpoint, int slot) {
+        final String name = "netty#" + slot;
+        final EndpointConnectionRegistry registry = EndpointConnectionRegistry.getInstance();
+        final ChannelFuture connection = registry.getOrCreate(endpoint, name, this::doConnect, this::close);
+        if (connection == null || !connection.isDone() || (connection.isSuccess() && connection.channel().isActive())) {
+            return connection;
+        }
+        registry.remove(endpoint, name, connection);
+        return registry.getOrCreate(endpoint, name, this::doConnect, this::close);
+    }
+
+    /**
+     * only starts connecting, the calls wait for the returned future.
+     */
+    private ChannelFuture doConnect(Endpoint endpoint) {
+        if (this.shutdown) {
+            return null;
+        }
+        final ChannelFuture connection = this.bootstrap.connect(endpoint.getIp(), endpoint.getPort());
+        this.connections.add(connection);
+        connection.addListener(f -> {
+            if (!f.isSuccess()) {
+                LOG.warn("connect to {} fail", endpoint, f.cause());
+            }
+        });
+        return connection;
+    }
+
+    private void close(ChannelFuture connection) {
+        this.connections.remove(connection);
+        connection.channel().close();
+    }
+
+    /**
+     * never blocks, false only if the last attempt to connect failed.
+     */
+    @Override
+    public boolean connect(PeerId peerId) {
+        final ChannelFuture connection = getConnection(transportEndpoint(peerId), 0);
+        return connection != null && (!connection.isDone() || connection.isSuccess());
+    }
+
+    @Override
+    public CompletableFuture<?> invokeAsync(PeerId peerId, Message request, Invokeable callback) {
+        final CompletableFuture<Object> future = newCall(callback);
+        final long requestId = this.requestIdGenerator.incrementAndGet();
+        whenConnected(getConnection(transportEndpoint(peerId), channelSlot(peerId, request)), peerId, channel -> {
+            write(channel, requestId, request, future);
+            channel.flush();
+        }, future::completeExceptionally);
+        return future;
+    }
+
+    /**
+     * one flush per channel for all the requests, so the requests sharing a channel leave in a single
+     * write. Each request keeps the channel of its group and peer.
+     */
+    @Override
+    public void invokeAllAsync(List<PeerId> peerIds, List<Message> requests, List<Invokeable> callbacks) {
+        if (requests.isEmpty()) {
+            return;
+        }
+        final Map<Integer, List<Integer>> slots = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            slots.computeIfAbsent(channelSlot(peerIds.get(i), requests.get(i)), k -> new ArrayList<>()).add(i);
+        }
+        for (Map.Entry<Integer, List<Integer>> slot : slots.entrySet()) {
+            final List<Integer> indexes = slot.getValue();
+            final List<CompletableFuture<Object>> futures = new ArrayList<>(indexes.size());
+            final long[] requestIds = new long[indexes.size()];
+            for (int i = 0; i < indexes.size(); i++) {
+                futures.add(newCall(callbacks.get(indexes.get(i))));
+                requestIds[i] = this.requestIdGenerator.incrementAndGet();
+            }
+            final PeerId peerId = peerIds.get(indexes.get(0));
+            whenConnected(getConnection(transportEndpoint(peerId), slot.getKey()), peerId, channel -> {
+                for (int i = 0; i < indexes.size(); i++) {
+                    write(channel, requestIds[i], requests.get(indexes.get(i)), futures.get(i));
+                }
+                channel.flush();
+            }, cause -> {
+                for (CompletableFuture<Object> future : futures) {
+                    future.completeExceptionally(cause);
+                }
+            });
+        }
+    }
+
+    @Override
+    public boolean isCoalescing() {
+        return true;
+    }
+
+    private CompletableFuture<Object> newCall(Invokeable callback) {
+        final CompletableFuture<Object> future = new CompletableFuture<>();
+        future.whenCompleteAsync((result, e) -> {
+            if (e == null) {
+                callback.invoke(AbstractRpcClient.toResponse(result));
+            } else {
+                callback.invoke(new Response(new ErrorResponse(10001, e.toString())));
+            }
+        }, this.callbackExecutor);
+        return future;
+    }
+
+    private void whenConnected(ChannelFuture connection, PeerId peerId, Consumer<Channel> action, Consumer<Throwable> failure) {
+        if (connection == null) {
+            failure.accept(new ConnectException("Fail to connect " + peerId));
+            return;
+        }
+        connection.addListener(f -> {
+            if (f.isSuccess()) {
+                action.accept(connection.channel());
+            } else {
+                failure.accept(new ConnectException("Fail to connect " + peerId + ": " + f.cause()));
+            }
+        });
+    }
+
+    private void write(Channel channel, long requestId, Message request, CompletableFuture<Object> future) {
+        this.pendingCalls.put(requestId, new PendingCall(channel, future));
+        final ByteBuf frame;
+        try {
+            frame = NettyFrames.encode(channel.alloc(), requestId, NettyFrames.KIND_REQUEST, request);
+        } catch (Exception e) {
+            this.pendingCalls.remove(requestId);
+            future.completeExceptionally(e);
+            return;
+        }
+        channel.write(frame).addListener(f -> {
+            if (!f.isSuccess()) {
+                failCall(requestId, f.cause());
+            }
+        });
+        final ScheduledFuture<?> timeout = channel.eventLoop().schedule(
+                () -> failCall(requestId, new TimeoutException("Waiting response of " + request.method() + " timeout")),
+                this.options.getRpcTimeoutMs(), TimeUnit.MILLISECONDS);
+        future.whenComplete((r, e) -> timeout.cancel(false));
+    }
+
+    private void failCall(long requestId, Throwable cause) {
+        final PendingCall call = this.pendingCalls.remove(requestId);
+        if (call != null) {
+            call.future.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * shared by the nodes of the process, see {@link NettyTransportFactory}: the last release closes
+     * the channels and the event loops.
+     */
+    @Override
+    public void shutdown() {
+        if (this.refs.decrementAndGet() > 0) {
+            return;
+        }
+        this.shutdown = true;
+        EndpointConnectionRegistry.getInstance().removeIf(this.connections::contains);
+        for (ChannelFuture connection : this.connections) {
+            connection.channel().close();
+        }
+        this.connections.clear();
+        this.group.shutdownGracefully();
+        if (this.callbackExecutor instanceof ExecutorService) {
+            ((ExecutorService) this.callbackExecutor).shutdown();
+        }
+    }
+
+    void retain() {
+        this.refs.incrementAndGet();
+    }
+
+    boolean isShutdown() {
+        return this.shutdown;
+    }
+
+    private class ResponseHandler extends SimpleChannelInboundHandler<ByteBuf> {
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, ByteBuf frame) {
+            final long requestId = frame.readLong();
+            frame.readByte();
+            final PendingCall call = pendingCalls.remove(requestId);
+            if (call == null) {
+                // timeout already reported
+                return;
+            }
+            try {
+                call.future.complete(RpcMessageCodec.decode(new ByteBufMessageInput(frame, options.getNettyMaxFrameSize())));
+            } catch (Exception e) {
+                call.future.completeExceptionally(e);
+            }
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            final Channel channel = ctx.channel();
+            for (Map.Entry<Long, PendingCall> entry : pendingCalls.entrySet()) {
+                if (entry.getValue().channel == channel) {
+                    failCall(entry.getKey(), new ConnectException("Channel " + channel + " closed"));
+                }
+            }
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            LOG.warn("channel {} exception, close it", ctx.channel(), cause);
+            ctx.close();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.hongframe.raft.rpc.transport.netty;
+
+import com.hongframe.raft.rpc.codec.RpcMessageCodec;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+
+/**
+ * Frame layout: {@code [int length][long requestId][byte kind][codec payload]}, length excludes
+ * itself. Request ids are per connection so responses may come back in any order.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 21:05
+ */
+public final class NettyFrames {
+
+    public static final byte KIND_REQUEST = 0;
+    public static final byte KIND_RESPONSE = 1;
+
+    private NettyFrames() {
+    }
+
+    public static ByteBuf encode(ByteBufAllocator alloc, long requestId, byte kind, Object message) {
+        final ByteBuf buf = alloc.directBuffer();
+        try {
+            buf.writeInt(0);
+            buf.writeLong(requestId);
+            buf.writeByte(kind);
+            RpcMessageCodec.encode(message, new ByteBufMessageOutput(buf));
+            buf.setInt(0, buf.readableBytes() - 4);
+            return buf;
+        } catch (RuntimeException e) {
+            buf.release();
+            throw e;
+        }
+    }
+
+    public static LengthFieldBasedFrameDecoder newFrameDecoder(int maxFrameSize) {
+        return new LengthFieldBasedFrameDecoder(maxFrameSize, 0, 4, 0, 4);
+    }
+}
@@ -0,0 +1,138 @@
+package com.hongframe.raft.rpc.transport.netty;
+
+import com.hongframe.raft.entity.Message;
+import com.hongframe.raft.option.RpcRemoteOptions;
+import com.hongframe.raft.rpc.AsyncResponse;
+import com.hongframe.raft.rpc.RpcRequests.*;
+import com.hongframe.raft.rpc.codec.RpcMessageCodec;
+import com.hongframe.raft.rpc.transport.RaftRequestDispatcher;
+import com.hongframe.raft.rpc.transport.RaftServerTransport;
+import com.hongframe.raft.util.Endpoint;
+import com.hongframe.raft.util.NamedThreadFactory;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.*;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.flush.FlushConsolidationHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 21:05
+ */
+public class NettyServerTransport implements RaftServerTransport {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NettyServerTransport.class);
+
+    private final Endpoint endpoint;
+    private final RpcRemoteOptions options;
+    private EventLoopGroup bossGroup;
+    private EventLoopGroup workerGroup;
+    private Channel serverChannel;
+
+    public NettyServerTransport(Endpoint endpoint, RpcRemoteOptions options) {
+        this.endpoint = endpoint;
+        this.options = options;
+    }
+
+    @Override
+    public boolean start(RaftRequestDispatcher dispatcher) {
+        this.bossGroup = new NioEventLoopGroup(1, new NamedThreadFactory("Raft-Netty-Boss", true));
+        this.workerGroup = new NioEventLoopGroup(this.options.getNettyIoThreads(), new NamedThreadFactory("Raft-Netty-Worker", true));
+        final ServerBootstrap bootstrap = new ServerBootstrap()
+                .group(this.bossGroup, this.workerGroup)
+                .channel(NioServerSocketChannel.class)
+                .option(ChannelOption.SO_BACKLOG, 1024)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childOption(ChannelOption.SO_KEEPALIVE, true)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline().addLast(new FlushConsolidationHandler());
+                        ch.pipeline().addLast(NettyFrames.newFrameDecoder(options.getNettyMaxFrameSize()));
+                        ch.pipeline().addLast(new RequestHandler(dispatcher));
+                    }
+                });
+        try {
+            this.serverChannel = bootstrap.bind(this.endpoint.getPort()).syncUninterruptibly().channel();
+            LOG.info("raft netty transport listen on {}", this.endpoint);
+            return true;
+        } catch (Exception e) {
+            LOG.error("Fail to bind {}", this.endpoint, e);
+            shutdown();
+            return false;
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        if (this.serverChannel != null) {
+            this.serverChannel.close();
+        }
+        if (this.bossGroup != null) {
+            this.bossGroup.shutdownGracefully();
+        }
+        if (this.workerGroup != null) {
+            this.workerGroup.shutdownGracefully();
+        }
+    }
+
+    private static class NettyAsyncResponse implements AsyncResponse {
+        private final Channel channel;
+        private final long requestId;
+        private final AtomicBoolean written = new AtomicBoolean(false);
+
+        private NettyAsyncResponse(Channel channel, long requestId) {
+            this.channel = channel;
+            this.requestId = requestId;
+        }
+
+        @Override
+        public void write(Object response) {
+            if (!this.written.compareAndSet(false, true)) {
+                return;
+            }
+            Object message = response;
+            if (!RpcMessageCodec.isSupported(message)) {
+                message = new Response<>(new ErrorResponse(10001, "Unsupported response: " + response));
+            }
+            this.channel.writeAndFlush(NettyFrames.encode(this.channel.alloc(), this.requestId, NettyFrames.KIND_RESPONSE, message));
+        }
+    }
+
+    private class RequestHandler extends SimpleChannelInboundHandler<ByteBuf> {
+
+        private final RaftRequestDispatcher dispatcher;
+
+        private RequestHandler(RaftRequestDispatcher dispatcher) {
+            this.dispatcher = dispatcher;
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, ByteBuf frame) {
+            final long requestId = frame.readLong();
+            frame.readByte();
+            final NettyAsyncResponse response = new NettyAsyncResponse(ctx.channel(), requestId);
+            final Message request;
+            try {
+                request = (Message) RpcMessageCodec.decode(new ByteBufMessageInput(frame, options.getNettyMaxFrameSize()));
+            } catch (Exception e) {
+                LOG.error("Fail to decode request from {}", ctx.channel(), e);
+                response.write(new Response<>(new ErrorResponse(10001, e.toString())));
+                return;
+            }
+            this.dispatcher.dispatchAsync(request, response);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            LOG.warn("channel {} exception, close it", ctx.channel(), cause);
+            ctx.close();
+        }
+    }
+}
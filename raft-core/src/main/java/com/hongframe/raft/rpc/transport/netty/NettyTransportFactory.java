@@ -0,0 +1,49 @@
+package com.hongframe.raft.rpc.transport.netty;
+
+import com.hongframe.raft.option.RpcRemoteOptions;
+import com.hongframe.raft.rpc.transport.RaftClientTransport;
+import com.hongframe.raft.rpc.transport.RaftServerTransport;
+import com.hongframe.raft.rpc.transport.RaftTransportFactory;
+import com.hongframe.raft.util.Endpoint;
+import com.hongframe.raft.util.NamedThreadFactory;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Native netty transport for the raft services, it listens on the dubbo port plus
+ * {@link RpcRemoteOptions#getNettyPortOffset()}. Every node of the cluster must use it.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 21:05
+ */
+public class NettyTransportFactory implements RaftTransportFactory {
+
+    private EventLoopGroup clientGroup;
+    private ExecutorService callbackExecutor;
+    private NettyClientTransport clientTransport;
+
+    @Override
+    public synchronized RaftClientTransport createClientTransport(RpcRemoteOptions options) {
+        if (this.clientTransport == null || this.clientTransport.isShutdown()) {
+            this.clientGroup = new NioEventLoopGroup(options.getNettyIoThreads(),
+                    new NamedThreadFactory("Raft-Netty-Client", true));
+            this.callbackExecutor = new ThreadPoolExecutor(options.getNettyServerThreads(), options.getNettyServerThreads(),
+                    60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                    new NamedThreadFactory("Raft-Netty-Callback", true));
+            this.clientTransport = new NettyClientTransport(options, this.clientGroup, this.callbackExecutor);
+        }
+        // one transport for all the nodes of the process, its channels are shared per endpoint
+        this.clientTransport.retain();
+        return this.clientTransport;
+    }
+
+    @Override
+    public RaftServerTransport createServerTransport(Endpoint endpoint, RpcRemoteOptions options) {
+        return new NettyServerTransport(new Endpoint(endpoint.getIp(), endpoint.getPort() + options.getNettyPortOffset()), options);
+    }
+}
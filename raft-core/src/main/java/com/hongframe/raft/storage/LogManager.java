@@ -8,6 +8,7 @@ import com.hongframe.raft.entity.SnapshotMeta;
 import com.hongframe.raft.option.LogManagerOptions;
 
 import java.util.List;
+import java.util.function.LongUnaryOperator;
 
 /**
  * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
@@ -59,14 +60,56 @@ public interface LogManager extends Lifecycle<LogManagerOptions> {
 
     long getTerm(final long index);
 
+    /**
+     * first index of the run of entries sharing the term of the given index.
+     * it may read the storage, callers must not hold the node lock.
+     */
+    long getFirstIndexOfTerm(final long index);
+
+    /**
+     * last index of the entries of the given term, 0 if the log holds none.
+     * it may read the storage, callers must not hold the node lock.
+     */
+    long getLastIndexOfTerm(final long term);
+
     LogEntry getEntry(final long index);
 
+    /**
+     * at most maxCount consecutive entries from fromIndex, the payloads stay within maxBytes except
+     * for the first entry, which is always returned. Empty if fromIndex is not in the log.
+     */
+    List<LogEntry> getEntries(final long fromIndex, final int maxCount, final long maxBytes);
+
     void appendEntries(final List<LogEntry> entries, FlushDoneCallback callback);
 
     long wait(final long expectedLastLogIndex, final NewLogNotification notify, final Object arg);
 
+    /**
+     * drops the waiter registered by {@link #wait}, false if it already ran or is unknown.
+     */
+    boolean removeWaiter(final long id);
+
     void clearBufferedLogs();
 
+    /**
+     * free slots of the queue of appends waiting for the disk, a follower advertises its receive
+     * credit from it.
+     */
+    long getDiskQueueRemainingCapacity();
+
     void setSnapshot(final SnapshotMeta meta);
 
+    /**
+     * drops the log before firstIndexKept without a snapshot, never past the applied and flushed index.
+     */
+    void compactPrefix(final long firstIndexKept);
+
+    long getLastSnapshotIndex();
+
+    /**
+     * the function gives the lowest index the followers still need not below its argument, Long.MAX_VALUE
+     * if there is none. The log from that index is kept behind a snapshot within the retention window.
+     */
+    void setRetainedIndexFunction(final LongUnaryOperator lowestNeededIndex);
+
 }
@@ -18,6 +18,12 @@ public interface LogStorage extends Lifecycle<LogStorageOptions> {
 
     LogEntry getEntry(final long index);
 
+    /**
+     * reads at most maxCount consecutive entries from fromIndex with one scan, stops before the
+     * payloads exceed maxBytes but always returns the first entry.
+     */
+    List<LogEntry> getEntries(final long fromIndex, final int maxCount, final long maxBytes);
+
     long getTerm(final long index);
 
     boolean appendEntry(final LogEntry entry);
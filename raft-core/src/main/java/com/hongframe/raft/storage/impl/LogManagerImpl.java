@@ -25,9 +25,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongUnaryOperator;
 
 /**
  * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
@@ -55,6 +57,12 @@ public class LogManagerImpl implements LogManager {
     private volatile LogId lastSnapshotId = new LogId(0, 0);
     private volatile long firstLogIndex;
     private volatile long lastLogIndex;
+    private volatile LongUnaryOperator retainedIndexFunction;
+    /**
+     * entries and payload bytes written, the byte retention window is converted to entries with them.
+     */
+    private final AtomicLong flushedEntries = new AtomicLong();
+    private final AtomicLong flushedBytes = new AtomicLong();
 
     private static class FlushDoneCallbackEvent {
         FlushDoneCallback callback;
@@ -288,6 +296,43 @@ public class LogManagerImpl implements LogManager {
         return 0;
     }
 
+    /**
+     * terms never decrease along the log, so both lookups are binary searches.
+     */
+    @Override
+    public long getFirstIndexOfTerm(long index) {
+        final long term = getTerm(index);
+        long low = Math.max(1, this.firstLogIndex);
+        long high = index;
+        while (low < high) {
+            final long mid = (low + high) >>> 1;
+            if (getTerm(mid) < term) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @Override
+    public long getLastIndexOfTerm(long term) {
+        long low = Math.max(1, this.firstLogIndex);
+        long high = this.lastLogIndex;
+        if (high < low) {
+            return 0;
+        }
+        while (low < high) {
+            final long mid = (low + high + 1) >>> 1;
+            if (getTerm(mid) > term) {
+                high = mid - 1;
+            } else {
+                low = mid;
+            }
+        }
+        return getTerm(low) == term ? low : 0;
+    }
+
     private long unsafeGetTerm(final long index) {
         if (index == 0) {
             return 0;
@@ -391,11 +436,67 @@ public class LogManagerImpl implements LogManager {
         if (entry == null) {
             //TODO error
         } else {
-            LOG.info("entry log id: {}", entry.getId());
+            LOG.debug("entry log id: {}", entry.getId());
         }
         return entry;
     }
 
+    @Override
+    public List<LogEntry> getEntries(long fromIndex, int maxCount, long maxBytes) {
+        final List<LogEntry> entries = new ArrayList<>(Math.max(0, maxCount));
+        long bytes = 0;
+        long index = fromIndex;
+        while (entries.size() < maxCount) {
+            final long memoryFirstIndex;
+            this.readLock.lock();
+            try {
+                if (index < this.firstLogIndex || index > this.lastLogIndex) {
+                    break;
+                }
+                memoryFirstIndex = this.logsInMemory.isEmpty() ? this.lastLogIndex + 1 : this.logsInMemory.peekFirst().getId().getIndex();
+                if (index >= memoryFirstIndex) {
+                    copyFromMemory(index, maxCount, maxBytes, bytes, entries);
+                    break;
+                }
+            } finally {
+                this.readLock.unlock();
+            }
+            // the on disk part, up to the first entry still in memory
+            final int diskCount = (int) Math.min(maxCount - entries.size(), memoryFirstIndex - index);
+            final List<LogEntry> diskEntries = this.logStorage.getEntries(index, diskCount, entries.isEmpty() ? maxBytes : maxBytes - bytes);
+            for (LogEntry entry : diskEntries) {
+                final int size = entry.getData() == null ? 0 : entry.getData().remaining();
+                if (!entries.isEmpty() && bytes + size > maxBytes) {
+                    return entries;
+                }
+                bytes += size;
+                entries.add(entry);
+            }
+            if (diskEntries.size() < diskCount) {
+                break;
+            }
+            index += diskCount;
+        }
+        return entries;
+    }
+
+    /**
+     * copies a contiguous run of logsInMemory, called under the read lock.
+     */
+    private void copyFromMemory(long fromIndex, int maxCount, long maxBytes, long bytes, List<LogEntry> entries) {
+        final int offset = (int) (fromIndex - this.logsInMemory.peekFirst().getId().getIndex());
+        final int end = Math.min(this.logsInMemory.size(), offset + maxCount - entries.size());
+        for (int i = offset; i < end; i++) {
+            final LogEntry entry = this.logsInMemory.get(i);
+            final int size = entry.getData() == null ? 0 : entry.getData().remaining();
+            if (!entries.isEmpty() && bytes + size > maxBytes) {
+                return;
+            }
+            bytes += size;
+            entries.add(entry);
+        }
+    }
+
     private LogEntry getEntryFromMemory(long index) {
         if (!logsInMemory.isEmpty()) {
             final long firstIndex = this.logsInMemory.peekFirst().getId().getIndex();
@@ -407,12 +508,21 @@ public class LogManagerImpl implements LogManager {
         return null;
     }
 
+    @Override
+    public long getDiskQueueRemainingCapacity() {
+        final RingBuffer<FlushDoneCallbackEvent> queue = this.diskQueue;
+        return queue == null ? 0 : queue.remainingCapacity();
+    }
+
     @Override
     public void clearBufferedLogs() {
         this.writeLock.lock();
         try {
             if (this.lastSnapshotId.getIndex() != 0) {
-                truncatePrefix(this.lastSnapshotId.getIndex() + 1);
+                final long firstIndexKept = retainedFirstIndex(this.lastSnapshotId.getIndex() + 1);
+                if (firstIndexKept > this.firstLogIndex) {
+                    truncatePrefix(firstIndexKept);
+                }
             }
         } finally {
             this.writeLock.unlock();
@@ -445,7 +555,10 @@ public class LogManagerImpl implements LogManager {
                 truncatePrefix(meta.getLastIncludedIndex() + 1);
             } else if (term == meta.getLastIncludedTerm()) {
                 if (savedLastSnapshotIndex > 0) { // 这里跳过首次快照
-                    truncatePrefix(savedLastSnapshotIndex + 1);
+                    final long firstIndexKept = retainedFirstIndex(savedLastSnapshotIndex + 1);
+                    if (firstIndexKept > this.firstLogIndex) {
+                        truncatePrefix(firstIndexKept);
+                    }
                 }
             } else {
                 //TODO reset
@@ -455,6 +568,64 @@ public class LogManagerImpl implements LogManager {
         }
     }
 
+    @Override
+    public long getLastSnapshotIndex() {
+        return this.lastSnapshotId.getIndex();
+    }
+
+    @Override
+    public void setRetainedIndexFunction(LongUnaryOperator lowestNeededIndex) {
+        this.retainedIndexFunction = lowestNeededIndex;
+    }
+
+    private long retainedFirstIndex(final long firstIndexKept) {
+        final long kept = retainedFirstIndex(firstIndexKept, this.firstLogIndex, retentionWindow(), this.retainedIndexFunction);
+        if (kept < firstIndexKept) {
+            LOG.info("Keep log from {} instead of {} for a lagging follower, last snapshot {}.", kept,
+                    firstIndexKept, this.lastSnapshotId.getIndex());
+        }
+        return kept;
+    }
+
+    /**
+     * lowers firstIndexKept to the index the most lagging follower needs when it is at most window
+     * entries before firstIndexKept, so that follower replays the log rather than installing the snapshot.
+     */
+    static long retainedFirstIndex(final long firstIndexKept, final long firstLogIndex, final long window,
+                                   final LongUnaryOperator lowestNeededIndex) {
+        if (lowestNeededIndex == null || window <= 0) {
+            return firstIndexKept;
+        }
+        final long lowest = Math.max(firstLogIndex, firstIndexKept - window);
+        final long needed = lowestNeededIndex.applyAsLong(lowest);
+        return needed < firstIndexKept ? needed : firstIndexKept;
+    }
+
+    private long retentionWindow() {
+        long window = this.raftOptions.getLogRetentionEntries();
+        final long bytes = this.raftOptions.getLogRetentionBytes();
+        final long entries = this.flushedEntries.get();
+        if (bytes > 0 && entries > 0) {
+            final long avgSize = Math.max(1, this.flushedBytes.get() / entries);
+            window = window > 0 ? Math.min(window, bytes / avgSize) : bytes / avgSize;
+        }
+        return window;
+    }
+
+    @Override
+    public void compactPrefix(long firstIndexKept) {
+        this.writeLock.lock();
+        try {
+            final long kept = Math.min(firstIndexKept, Math.min(this.appliedId.getIndex(), this.diskId.getIndex()) + 1);
+            if (kept <= this.firstLogIndex) {
+                return;
+            }
+            truncatePrefix(kept);
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
     private class TruncatePrefixCallback extends FlushDoneCallback {
         long firstIndexKept;
 
@@ -505,6 +676,8 @@ public class LogManagerImpl implements LogManager {
         LogId flush() {
             if (this.size > 0) {
                 LOG.info("flush first: {}, lastId:{}", this.entries.get(0).getId().getIndex(), this.entries.get(0).getId().getIndex() + this.entries.size() - 1);
+                LogManagerImpl.this.flushedEntries.addAndGet(this.entries.size());
+                LogManagerImpl.this.flushedBytes.addAndGet(this.bufferSize);
                 this.lastId = appendToStorage(this.entries);
                 for (FlushDoneCallback callback : callbacks) {
                     callback.getEntries().clear();
@@ -610,6 +783,16 @@ public class LogManagerImpl implements LogManager {
         }
     }
 
+    @Override
+    public boolean removeWaiter(long id) {
+        this.writeLock.lock();
+        try {
+            return this.waitMap.remove(id) != null;
+        } finally {
+            this.writeLock.unlock();
+        }
+    }
+
     void runOnNewLog(final WaitMeta wm) {
         wm.notify.onNewLog(wm.arg, wm.errorCode);
     }
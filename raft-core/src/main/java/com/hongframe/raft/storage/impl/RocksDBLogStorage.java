@@ -247,6 +247,45 @@ public class RocksDBLogStorage implements LogStorage {
         return null;
     }
 
+    @Override
+    public List<LogEntry> getEntries(long fromIndex, int maxCount, long maxBytes) {
+        final List<LogEntry> entries = new ArrayList<>(Math.max(0, maxCount));
+        if (maxCount <= 0) {
+            return entries;
+        }
+        this.readLock.lock();
+        try (final RocksIterator iterator = this.db.newIterator(this.defaultHandle, this.readOptions)) {
+            if (fromIndex < this.firstLogIndex) {
+                return entries;
+            }
+            long expectedIndex = fromIndex;
+            long bytes = 0;
+            // keys are big endian indexes, so the iterator walks the log in order
+            for (iterator.seek(getKeyBytes(fromIndex)); iterator.isValid() && entries.size() < maxCount; iterator.next()) {
+                if (Bits.getLong(iterator.key(), 0) != expectedIndex) {
+                    break;
+                }
+                final LogEntry entry = this.decoder.decode(iterator.value());
+                if (entry == null) {
+                    LOG.warn("log entry {} is null", expectedIndex);
+                    break;
+                }
+                final int size = entry.getData() == null ? 0 : entry.getData().remaining();
+                if (!entries.isEmpty() && bytes + size > maxBytes) {
+                    break;
+                }
+                bytes += size;
+                entries.add(entry);
+                expectedIndex++;
+            }
+        } catch (Exception e) {
+            LOG.error("", e);
+        } finally {
+            this.readLock.unlock();
+        }
+        return entries;
+    }
+
     @Override
     public long getTerm(long index) {
         return 0;
@@ -43,6 +43,7 @@ public class SnapshotExecutorImpl implements SnapshotExecutor {
     private FSMCaller fsmCaller;
     private NodeImpl node;
     private LogManager logManager;
+    private boolean witness;
     private SnapshotMeta loadingSnapshotMeta;
     private final AtomicReference<DownloadingSnapshot> downloadingSnapshot = new AtomicReference<>(null);
 
@@ -57,9 +58,13 @@ public class SnapshotExecutorImpl implements SnapshotExecutor {
         this.fsmCaller = opts.getFsmCaller();
         this.node = opts.getNode();
         this.term = opts.getInitTerm();
+        this.witness = this.node.getNodeOptions().isWitness();
 
         this.snapshotStorage = new LocalSnapshotStorage(opts.getUri(), this.node.getNodeOptions().getRaftOptions());
         this.snapshotStorage.init(null);
+        if (this.witness) {
+            return true;
+        }
 
         final SnapshotReader reader = this.snapshotStorage.open();
         if (reader == null) {
@@ -146,6 +151,10 @@ public class SnapshotExecutorImpl implements SnapshotExecutor {
     @Override
     public void installSnapshot(RpcRequests.InstallSnapshotRequest request, RequestCallback callback) {
         final SnapshotMeta meta = request.getMeta();
+        if (this.witness) {
+            installWitnessSnapshot(request, callback);
+            return;
+        }
         final DownloadingSnapshot ds = new DownloadingSnapshot(request, new RpcRequests.InstallSnapshotResponse(), callback);
 
         if (!registerDownloadingSnapshot(ds)) {
@@ -156,6 +165,27 @@ public class SnapshotExecutorImpl implements SnapshotExecutor {
         //TODO installSnapshot
     }
 
+    /**
+     * a witness has no state to load, the meta only moves its log past the snapshot.
+     */
+    private void installWitnessSnapshot(RpcRequests.InstallSnapshotRequest request, RequestCallback callback) {
+        final SnapshotMeta meta = request.getMeta();
+        final RpcRequests.InstallSnapshotResponse response = new RpcRequests.InstallSnapshotResponse();
+        this.lock.lock();
+        try {
+            response.setTerm(this.term);
+            response.setSuccess(request.getTerm() == this.term);
+            if (response.isSuccess() && meta.getLastIncludedIndex() > this.lastSnapshotIndex) {
+                this.logManager.setSnapshot(meta);
+                this.lastSnapshotIndex = meta.getLastIncludedIndex();
+                this.lastSnapshotTerm = meta.getLastIncludedTerm();
+            }
+        } finally {
+            this.lock.unlock();
+        }
+        callback.sendResponse(response);
+    }
+
     boolean registerDownloadingSnapshot(final DownloadingSnapshot ds) {
         this.lock.lock();
         try {
@@ -210,6 +240,10 @@ public class SnapshotExecutorImpl implements SnapshotExecutor {
     @Override
     public void doSnapshot(Callback callback) {
         LOG.info("Node {} start do snapshot.", this.node.getNodeId());
+        if (this.witness) {
+            Utils.runCallbackInThread(callback, new Status(10001, "witness takes no snapshot"));
+            return;
+        }
         boolean doUnlock = true;
         this.lock.lock();
         try {
@@ -0,0 +1,75 @@
+package com.hongframe.raft.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Mailbox of an actor: the tasks submitted from any thread run one at a time, in submission order,
+ * on a shared executor, so the state of the actor needs no lock and many actors share a few threads.
+ * The submitter that finds the mailbox idle schedules the drain, a drain yields its thread after
+ * {@link #MAX_BATCH} tasks so a busy actor does not starve the others.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 16:50
+ */
+public class SerializingExecutor implements Executor {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SerializingExecutor.class);
+
+    private static final int MAX_BATCH = 64;
+
+    private final Executor executor;
+    private final Queue<Runnable> mailbox = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+    public SerializingExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        this.mailbox.add(task);
+        if (this.scheduled.compareAndSet(false, true)) {
+            schedule();
+        }
+    }
+
+    public int getPendingCount() {
+        return this.mailbox.size();
+    }
+
+    private void schedule() {
+        try {
+            this.executor.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            LOG.error("executor rejects the mailbox, {} tasks dropped", this.mailbox.size(), e);
+            this.mailbox.clear();
+            this.scheduled.set(false);
+        }
+    }
+
+    private void drain() {
+        for (int i = 0; i < MAX_BATCH; i++) {
+            final Runnable task = this.mailbox.poll();
+            if (task == null) {
+                break;
+            }
+            try {
+                task.run();
+            } catch (Throwable t) {
+                LOG.error("mailbox task {} fail", task, t);
+            }
+        }
+        this.scheduled.set(false);
+        // tasks added after the last poll, or left by a full batch
+        if (!this.mailbox.isEmpty() && this.scheduled.compareAndSet(false, true)) {
+            schedule();
+        }
+    }
+}
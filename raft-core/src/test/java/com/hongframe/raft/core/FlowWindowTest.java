@@ -0,0 +1,62 @@
+package com.hongframe.raft.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 18:15
+ */
+public class FlowWindowTest {
+
+    @Test
+    public void testAckWithoutEntriesIsNoRttSample() {
+        final FlowWindow window = new FlowWindow(4, 16);
+        window.onAck(500, 0, 2, 1000);
+        assertEquals(-1, window.getMinRttMs());
+        assertEquals(4.0, window.getWindow(), 0.0);
+        // its credit still counts
+        assertEquals(2, window.limit());
+    }
+
+    @Test
+    public void testFastAcksWidenAndSlowAckHalves() {
+        final FlowWindow window = new FlowWindow(2, 16);
+        long nowMs = 1000;
+        for (int i = 0; i < 20; i++) {
+            window.onAck(2, 1, -1, nowMs++);
+        }
+        final double widened = window.getWindow();
+        assertTrue(widened > 2);
+        window.onAck(100, 1, -1, nowMs + 10);
+        assertEquals(Math.max(1, widened / 2), window.getWindow(), 0.0001);
+    }
+
+    @Test
+    public void testAckRateCapsTheWindow() {
+        final FlowWindow window = new FlowWindow(4, 64);
+        long nowMs = 1000;
+        // one ack every 10 ms with a round trip of 1 ms: the follower drains 0.1 request per ms
+        for (int i = 0; i < 20; i++) {
+            window.onAck(1, 1, -1, nowMs);
+            nowMs += 10;
+        }
+        assertEquals(0.1, window.getAckRatePerMs(), 0.02);
+        final double capped = window.getWindow();
+        for (int i = 0; i < 100; i++) {
+            window.onAck(1, 1, -1, nowMs);
+            nowMs += 10;
+        }
+        assertEquals(capped, window.getWindow(), 0.0);
+    }
+
+    @Test
+    public void testCreditCapsTheLimit() {
+        final FlowWindow window = new FlowWindow(8, 16);
+        window.onAck(1, 1, 3, 1000);
+        assertEquals(3, window.limit());
+        window.onAck(1, 1, 0, 1001);
+        assertEquals(1, window.limit());
+    }
+}
@@ -0,0 +1,74 @@
+package com.hongframe.raft.core;
+
+import com.hongframe.raft.Status;
+import com.hongframe.raft.entity.EntryType;
+import com.hongframe.raft.entity.LogId;
+import com.hongframe.raft.rpc.RpcRequests.OutLogEntry;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 18:05
+ */
+public class FragmentAssemblerTest {
+
+    private static OutLogEntry fragment(long index, int offset, int totalSize, byte[] data) {
+        final OutLogEntry fragment = new OutLogEntry();
+        fragment.setType(EntryType.ENTRY_TYPE_DATA);
+        fragment.setId(new LogId(1, index));
+        fragment.setData(ByteBuffer.wrap(data));
+        fragment.setTotalSize(totalSize);
+        fragment.setFragmentOffset(offset);
+        return fragment;
+    }
+
+    @Test
+    public void testAssemblesInOrderFragments() {
+        final FragmentAssembler assembler = new FragmentAssembler(16);
+        final Status st = new Status();
+        assertNull(assembler.offer(fragment(3, 0, 5, new byte[]{1, 2, 3}), st));
+        assertTrue(st.isOk());
+        final OutLogEntry entry = assembler.offer(fragment(3, 3, 5, new byte[]{4, 5}), st);
+        assertTrue(st.isOk());
+        assertNotNull(entry);
+        assertEquals(new LogId(1, 3), entry.getId());
+        final byte[] data = new byte[entry.getDataSize()];
+        entry.getData().get(data);
+        assertArrayEquals(new byte[]{1, 2, 3, 4, 5}, data);
+    }
+
+    @Test
+    public void testRefusesAnEntryAboveTheLimit() {
+        final FragmentAssembler assembler = new FragmentAssembler(16);
+        final Status st = new Status();
+        assertNull(assembler.offer(fragment(3, 0, 17, new byte[]{1}), st));
+        assertFalse(st.isOk());
+    }
+
+    @Test
+    public void testRefusesAFragmentPastTheEnd() {
+        final FragmentAssembler assembler = new FragmentAssembler(16);
+        final Status st = new Status();
+        assertNull(assembler.offer(fragment(3, 0, 2, new byte[]{1, 2, 3}), st));
+        assertFalse(st.isOk());
+
+        final Status overflow = new Status();
+        assertNull(assembler.offer(fragment(3, 0, 4, new byte[]{1, 2}), overflow));
+        assertTrue(overflow.isOk());
+        assertNull(assembler.offer(fragment(3, Integer.MAX_VALUE - 1, 4, new byte[]{3, 4}), overflow));
+        assertFalse(overflow.isOk());
+    }
+
+    @Test
+    public void testRefusesAFragmentThatDoesNotContinue() {
+        final FragmentAssembler assembler = new FragmentAssembler(16);
+        final Status st = new Status();
+        assertNull(assembler.offer(fragment(3, 0, 6, new byte[]{1, 2}), st));
+        assertNull(assembler.offer(fragment(3, 4, 6, new byte[]{5, 6}), st));
+        assertFalse(st.isOk());
+    }
+}
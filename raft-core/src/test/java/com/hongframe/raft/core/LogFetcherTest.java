@@ -0,0 +1,177 @@
+package com.hongframe.raft.core;
+
+import com.hongframe.raft.Status;
+import com.hongframe.raft.callback.Invokeable;
+import com.hongframe.raft.entity.LogEntry;
+import com.hongframe.raft.entity.LogId;
+import com.hongframe.raft.entity.Message;
+import com.hongframe.raft.entity.PeerId;
+import com.hongframe.raft.option.RaftOptions;
+import com.hongframe.raft.option.RpcRemoteOptions;
+import com.hongframe.raft.rpc.RpcClient;
+import com.hongframe.raft.rpc.RpcRequests.*;
+import com.hongframe.raft.rpc.transport.RaftClientTransport;
+import com.hongframe.raft.rpc.transport.RaftServerTransport;
+import com.hongframe.raft.rpc.transport.RaftTransportFactory;
+import com.hongframe.raft.storage.LogManager;
+import com.hongframe.raft.util.Endpoint;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 16:40
+ */
+public class LogFetcherTest {
+
+    private static final PeerId SELF = new PeerId("127.0.0.1", 8001);
+    private static final PeerId LEADER = new PeerId("127.0.0.1", 8002);
+    private static final PeerId PEER1 = new PeerId("127.0.0.1", 8003);
+    private static final PeerId PEER2 = new PeerId("127.0.0.1", 8004);
+
+    /**
+     * log of term 1 entries, the fetched entries are appended to it.
+     */
+    private final List<LogEntry> log = new ArrayList<>();
+    private final Map<PeerId, Function<FetchLogRequest, Message>> peers = new ConcurrentHashMap<>();
+    private final List<PeerId> asked = new ArrayList<>();
+
+    private static LogEntry entry(long index) {
+        final LogEntry entry = new LogEntry();
+        entry.setId(new LogId(1, index));
+        return entry;
+    }
+
+    private LogManager logManager() {
+        return (LogManager) Proxy.newProxyInstance(LogManager.class.getClassLoader(), new Class[]{LogManager.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getLastLogIndex":
+                            return (long) this.log.size();
+                        case "getTerm":
+                            final long index = (long) args[0];
+                            return index >= 1 && index <= this.log.size() ? 1L : 0L;
+                        case "appendEntries":
+                            this.log.addAll((List<LogEntry>) args[0]);
+                            ((LogManager.FlushDoneCallback) args[1]).run(Status.OK());
+                            return null;
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+
+    private RpcClient rpcClient() {
+        final RaftClientTransport transport = new RaftClientTransport() {
+            @Override
+            public boolean connect(PeerId peerId) {
+                return true;
+            }
+
+            @Override
+            public CompletableFuture<?> invokeAsync(PeerId peerId, Message request, Invokeable callback) {
+                asked.add(peerId);
+                final Function<FetchLogRequest, Message> peer = peers.get(peerId);
+                final Message answer = peer == null ? new ErrorResponse(10001, "unreachable") : peer.apply((FetchLogRequest) request);
+                callback.invoke(new Response<>(answer));
+                return CompletableFuture.completedFuture(null);
+            }
+
+            @Override
+            public void shutdown() {
+            }
+        };
+        final RpcRemoteOptions options = new RpcRemoteOptions();
+        options.setTransportFactory(new RaftTransportFactory() {
+            @Override
+            public RaftClientTransport createClientTransport(RpcRemoteOptions options) {
+                return transport;
+            }
+
+            @Override
+            public RaftServerTransport createServerTransport(Endpoint endpoint, RpcRemoteOptions options) {
+                return null;
+            }
+        });
+        return new RpcClient(options);
+    }
+
+    /**
+     * serves its log of lastIndex entries of term 1, up to committedIndex unless the tail is asked.
+     */
+    private static Function<FetchLogRequest, Message> peer(long committedIndex, long lastIndex) {
+        return request -> {
+            final long upTo = request.isIncludeUncommitted() ? lastIndex : committedIndex;
+            if (request.getFromIndex() > upTo) {
+                return new ErrorResponse(10001, "not committed");
+            }
+            final List<OutLogEntry> entries = new ArrayList<>();
+            for (long i = request.getFromIndex(); i <= upTo && entries.size() < request.getMaxCount(); i++) {
+                entries.add(OutLogEntry.getInstance(entry(i)));
+            }
+            final FetchLogResponse response = new FetchLogResponse();
+            response.setSuccess(true);
+            response.setPrevLogTerm(request.getFromIndex() == 1 ? 0 : 1);
+            response.setLastCommittedIndex(0);
+            response.setEntries(entries);
+            return response;
+        };
+    }
+
+    private LogFetcher newFetcher() {
+        final RaftOptions raftOptions = new RaftOptions();
+        raftOptions.setMaxEntriesSize(4);
+        return new LogFetcher("group", SELF, logManager(), new BallotBox(), rpcClient(), raftOptions);
+    }
+
+    @Test
+    public void testFetchesUpToTheTarget() {
+        this.peers.put(PEER1, peer(20, 20));
+        final LogFetcher fetcher = newFetcher();
+        fetcher.start(10, LEADER, Arrays.asList(SELF, LEADER, PEER1));
+        assertFalse(fetcher.isRunning());
+        assertEquals(10, this.log.size());
+        assertFalse(this.asked.contains(LEADER));
+    }
+
+    @Test
+    public void testMovesToTheNextPeerAndStopsWhenNoneServes() {
+        this.peers.put(PEER2, peer(6, 6));
+        final LogFetcher fetcher = newFetcher();
+        fetcher.start(10, LEADER, Arrays.asList(LEADER, PEER1, PEER2));
+        assertFalse(fetcher.isRunning());
+        assertEquals(6, this.log.size());
+        assertTrue(this.asked.contains(PEER1));
+    }
+
+    @Test
+    public void testTailIncludesUncommittedEntries() {
+        this.log.add(entry(1));
+        this.peers.put(PEER1, peer(3, 9));
+        final LogFetcher fetcher = newFetcher();
+        fetcher.fetchTail(PEER1);
+        assertFalse(fetcher.isRunning());
+        assertEquals(9, this.log.size());
+        assertEquals(9, this.log.get(8).getId().getIndex());
+    }
+
+    @Test
+    public void testTailDoesNotRaiseTheNextTarget() {
+        this.peers.put(PEER1, peer(5, 9));
+        final LogFetcher fetcher = newFetcher();
+        fetcher.fetchTail(PEER1);
+        this.peers.put(PEER2, peer(20, 20));
+        fetcher.start(12, LEADER, Arrays.asList(LEADER, PEER2));
+        assertEquals(12, this.log.size());
+    }
+}
@@ -0,0 +1,51 @@
+package com.hongframe.raft.core;
+
+import com.hongframe.raft.option.RaftOptions;
+import org.junit.Test;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 19:05
+ */
+public class ReplicatorExecutorsTest {
+
+    @Test
+    public void testNodesShareThePoolsUntilTheLastRelease() {
+        final RaftOptions options = new RaftOptions();
+        final ReplicatorExecutors first = ReplicatorExecutors.acquire(options);
+        final ReplicatorExecutors second = ReplicatorExecutors.acquire(options);
+        assertSame(first, second);
+
+        ReplicatorExecutors.release(first);
+        assertFalse(((ThreadPoolExecutor) first.getReplicatorExecutor()).isShutdown());
+
+        ReplicatorExecutors.release(second);
+        assertTrue(((ThreadPoolExecutor) first.getReplicatorExecutor()).isShutdown());
+        assertTrue(((ThreadPoolExecutor) first.getLogReadExecutor()).isShutdown());
+
+        final ReplicatorExecutors next = ReplicatorExecutors.acquire(options);
+        assertNotSame(first, next);
+        ReplicatorExecutors.release(next);
+    }
+
+    @Test
+    public void testPoolsGrowToTheLargestAsked() {
+        final RaftOptions small = new RaftOptions();
+        small.setReplicatorThreads(2);
+        small.setReplicatorLogReadThreads(1);
+        final RaftOptions large = new RaftOptions();
+        large.setReplicatorThreads(6);
+        large.setReplicatorLogReadThreads(3);
+
+        final ReplicatorExecutors first = ReplicatorExecutors.acquire(large);
+        final ReplicatorExecutors second = ReplicatorExecutors.acquire(small);
+        assertEquals(6, ((ThreadPoolExecutor) second.getReplicatorExecutor()).getCorePoolSize());
+        assertEquals(3, ((ThreadPoolExecutor) second.getLogReadExecutor()).getCorePoolSize());
+        ReplicatorExecutors.release(second);
+        ReplicatorExecutors.release(first);
+    }
+}
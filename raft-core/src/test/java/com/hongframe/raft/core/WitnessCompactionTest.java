@@ -0,0 +1,30 @@
+package com.hongframe.raft.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 15:20
+ */
+public class WitnessCompactionTest {
+
+    @Test
+    public void testKeepsTheRetainedWindow() {
+        assertEquals(0L, FSMCallerImpl.witnessCompactIndex(100, 1, 64, 100));
+        assertEquals(111L, FSMCallerImpl.witnessCompactIndex(200, 1, 90, 200));
+    }
+
+    @Test
+    public void testKeepsWhatAFollowerMisses() {
+        // the full follower matched 50 only, the witness keeps the entry at 50 and everything after
+        assertEquals(50L, FSMCallerImpl.witnessCompactIndex(200, 1, 10, 50));
+    }
+
+    @Test
+    public void testUnknownMatchKeepsAll() {
+        assertEquals(0L, FSMCallerImpl.witnessCompactIndex(200, 1, 10, 0));
+        assertEquals(0L, FSMCallerImpl.witnessCompactIndex(200, 80, 10, 80));
+    }
+}
@@ -0,0 +1,89 @@
+package com.hongframe.raft.rpc.impl;
+
+import com.hongframe.raft.rpc.RpcRequests.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 14:10
+ */
+public class ResponseSequencerTest {
+
+    private static ErrorResponse message(long seq) {
+        return new ErrorResponse(0, String.valueOf(seq));
+    }
+
+    private static long seqOf(Object response) {
+        return Long.parseLong(((ErrorResponse) ((Response<?>) response).getData()).getErrorMsg());
+    }
+
+    @Test
+    public void testWritesInAcquireOrder() {
+        final ResponseSequencer sequencer = new ResponseSequencer(8);
+        final List<Long> written = new ArrayList<>();
+        final long s0 = sequencer.acquire();
+        final long s1 = sequencer.acquire();
+        final long s2 = sequencer.acquire();
+        sequencer.complete(s2, message(s2), r -> written.add(seqOf(r)));
+        sequencer.complete(s1, message(s1), r -> written.add(seqOf(r)));
+        assertTrue(written.isEmpty());
+        sequencer.complete(s0, message(s0), r -> written.add(seqOf(r)));
+        assertEquals(java.util.Arrays.asList(0L, 1L, 2L), written);
+        assertEquals(0, sequencer.getPendingCount());
+    }
+
+    @Test
+    public void testFullRingBreaksWithoutTakingASequence() {
+        final ResponseSequencer sequencer = new ResponseSequencer(4);
+        for (int i = 0; i < 4; i++) {
+            assertEquals(i, sequencer.acquire());
+        }
+        assertEquals(-1, sequencer.acquire());
+        assertTrue(sequencer.isBroken());
+        assertEquals(4, sequencer.getPendingCount());
+        final List<Long> written = new ArrayList<>();
+        for (long seq = 0; seq < 4; seq++) {
+            sequencer.complete(seq, message(seq), r -> written.add(seqOf(r)));
+        }
+        // every acquired request is answered even though the sequencer broke in between
+        assertEquals(4, written.size());
+        assertEquals(-1, sequencer.acquire());
+        assertEquals(0, sequencer.getPendingCount());
+    }
+
+    @Test
+    public void testConcurrentCompletionsKeepOrder() throws Exception {
+        final int count = 10_000;
+        final ResponseSequencer sequencer = new ResponseSequencer(count);
+        final List<Long> written = Collections.synchronizedList(new ArrayList<>());
+        final List<Long> seqs = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            seqs.add(sequencer.acquire());
+        }
+        Collections.shuffle(seqs);
+        final ExecutorService pool = Executors.newFixedThreadPool(4);
+        final CountDownLatch done = new CountDownLatch(count);
+        for (final long seq : seqs) {
+            pool.execute(() -> {
+                sequencer.complete(seq, message(seq), r -> written.add(seqOf(r)));
+                done.countDown();
+            });
+        }
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        pool.shutdown();
+        assertEquals(count, written.size());
+        for (int i = 0; i < count; i++) {
+            assertEquals(i, (long) written.get(i));
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.hongframe.raft.storage.impl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 18:25
+ */
+public class LogRetentionTest {
+
+    @Test
+    public void testNoWindowCutsAtTheSnapshot() {
+        assertEquals(101L, LogManagerImpl.retainedFirstIndex(101, 1, 0, floor -> 50));
+        assertEquals(101L, LogManagerImpl.retainedFirstIndex(101, 1, 100, null));
+    }
+
+    @Test
+    public void testKeepsWhatALaggingFollowerNeeds() {
+        assertEquals(80L, LogManagerImpl.retainedFirstIndex(101, 1, 30, floor -> floor <= 80 ? 80 : Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testWindowIsMeasuredFromTheCutPoint() {
+        // the window of 30 reaches back to 71 from the cut point at 101, whatever the last snapshot is
+        final long[] asked = new long[1];
+        LogManagerImpl.retainedFirstIndex(101, 1, 30, floor -> {
+            asked[0] = floor;
+            return Long.MAX_VALUE;
+        });
+        assertEquals(71L, asked[0]);
+        // a follower needing more than the window gets the snapshot
+        assertEquals(101L, LogManagerImpl.retainedFirstIndex(101, 1, 30, floor -> floor <= 60 ? 60 : Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testNeverBelowTheFirstLogIndex() {
+        final long[] asked = new long[1];
+        LogManagerImpl.retainedFirstIndex(101, 90, 30, floor -> {
+            asked[0] = floor;
+            return floor;
+        });
+        assertEquals(90L, asked[0]);
+    }
+}
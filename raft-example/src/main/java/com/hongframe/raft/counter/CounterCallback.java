@@ -27,6 +27,11 @@ public class CounterCallback extends ResponseCallbackAdapter {
     @Override
     public void run(Status status) {
         this.asyncContext.signalContextSwitch();
+        if (!status.isOk()) {
+            // carries the leader hint of a not leader error back to the client
+            asyncContext.write(new RpcRequests.Response<>(new RpcRequests.ErrorResponse(status)));
+            return;
+        }
         LOG.info("value : {}", value);
         asyncContext.write(new RpcRequests.Response<>(this.value));
     }
@@ -32,6 +32,8 @@ public class CounterClient {
         options.registerUserService(CounterService.class, null);
         ClientService clientService = new ClientService(options);
         RouteTable.getInstance().refreshLeader(clientService, CounterRaftServerStartup.GROUP);
+        RouteTable.getInstance().subscribe(clientService, CounterRaftServerStartup.GROUP,
+                (groupId, leader, term) -> LOG.info("leader of group {} is {} at term {}", groupId, leader, term));
 
         PeerId leader = RouteTable.getInstance().selectLeader(CounterRaftServerStartup.GROUP);
 
@@ -59,6 +61,10 @@ public class CounterClient {
                     @Override
                     public void run(Status status) {
                         System.out.println(getResponse());
+                        if (status.getLeaderHint() != null) {
+                            RouteTable.getInstance().updateLeader(CounterRaftServerStartup.GROUP, status.getLeaderHint(),
+                                    status.getLeaderTerm());
+                        }
                     }
                 });
             }
@@ -0,0 +1,32 @@
+package com.hongframe.raft;
+
+import com.hongframe.raft.option.RpcRemoteOptions;
+import com.hongframe.raft.rpc.transport.local.LocalTransportFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Three nodes in this JVM over the in-memory transport, no port is bound.
+ *
+ * @author 墨声 E-mail: zehong.hongframe.huang@gmail.com
+ * create time: 2026-10-18 14:10
+ */
+public class LocalCluster {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LocalCluster.class);
+
+    public static final String NODES = "localhost:8888,localhost:8889,localhost:8890";
+
+    public static void main(String[] args) {
+        RpcRemoteOptions options = DubboRaftRpcFactory.getRpcRemoteOptions();
+        options.setTransportFactory(new LocalTransportFactory());
+        options.setLocalDelayMs(1);
+        options.setLocalBandwidthBytesPerSec(100L * 1024 * 1024);
+
+        for (int port = 8888; port <= 8890; port++) {
+            RaftServerStartup.startup(port, NODES);
+        }
+        LOG.info("local cluster started...");
+    }
+
+}